@@ -0,0 +1,590 @@
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Random;
+import tester.*;
+
+// a board for simulations and solvers that keeps every plane as 64-bit words,
+// one run of 'wordsPerRow' words per row, with bit (col % 64) of word
+// (col / 64) of a row standing for the cell in that column. the bits past the
+// last column of a row are always 0.
+//
+// the neighboring mine counts are bit-sliced: bit k of every cell's count is
+// kept in the plane count[k], so the counts of 64 cells are added up at once
+// by shifting whole words of the mine plane. cascades fill whole words too,
+// a row at a time, instead of visiting cells one by one.
+class BitBoard {
+  int gridWidth;
+  int gridHeight;
+  int wordsPerRow;
+  long[] mines;
+  long[] hidden;
+  long[] flags;
+  // bits 0 to 3 of each cell's neighboring mine count
+  long[][] count;
+  // the cells with no neighboring mines
+  long[] zero;
+  // live counts, kept the same way as PackedBoard's
+  int numMines;
+  int numHidden;
+  int numFlags;
+  int numSafeRevealed;
+  // has a mine been uncovered by updateCell?
+  boolean lost;
+  // scratch state for cascades: the cells filled so far, the first and last
+  // word of each row with filled cells in it, the rows whose neighbors
+  // changed and need another look, and the rows that were filled
+  long[] fill;
+  int[] fillLo;
+  int[] fillHi;
+  int[] rowQueue;
+  boolean[] rowQueued;
+  int[] touchedRows;
+  boolean[] rowTouched;
+
+  // construct a bit board where every cell is hidden and there are no mines
+  BitBoard(int gridWidth, int gridHeight) {
+    if (gridWidth < 1 || gridHeight < 1) {
+      throw new IllegalArgumentException("grid dimensions are too small");
+    }
+    this.gridWidth = gridWidth;
+    this.gridHeight = gridHeight;
+    this.wordsPerRow = (gridWidth + 63) >>> 6;
+    int words = this.wordsPerRow * gridHeight;
+    this.mines = new long[words];
+    this.hidden = new long[words];
+    this.flags = new long[words];
+    this.count = new long[4][words];
+    this.zero = new long[words];
+    this.fill = new long[words];
+    this.fillLo = new int[gridHeight];
+    this.fillHi = new int[gridHeight];
+    Arrays.fill(this.fillLo, this.wordsPerRow);
+    Arrays.fill(this.fillHi, -1);
+    this.rowQueue = new int[gridHeight];
+    this.rowQueued = new boolean[gridHeight];
+    this.touchedRows = new int[gridHeight];
+    this.rowTouched = new boolean[gridHeight];
+    for (int row = 0; row < gridHeight; row++) {
+      for (int word = 0; word < this.wordsPerRow; word++) {
+        this.hidden[row * this.wordsPerRow + word] = columnMask(word);
+      }
+    }
+    this.numHidden = gridWidth * gridHeight;
+    countNeighbors();
+  }
+
+  // construct a bit board with the mines laid out by the given generator
+  BitBoard(MineGenerator mineGen) {
+    this(mineGen.gridWidth, mineGen.gridHeight);
+    setMines(mineGen.makeMineLayout());
+  }
+
+  // the bits of the given word of a row that stand for columns on the board
+  long columnMask(int word) {
+    int columns = this.gridWidth - 64 * word;
+    if (columns >= 64) {
+      return -1L;
+    }
+    return (1L << columns) - 1;
+  }
+
+  // the index of the word that holds the given cell
+  int wordIndex(int col, int row) {
+    return row * this.wordsPerRow + (col >>> 6);
+  }
+
+  // place the mines of a layout indexed like PackedBoard's on this empty
+  // board, and count every cell's neighboring mines
+  void setMines(BitSet layout) {
+    for (int index = layout.nextSetBit(0); index >= 0; index = layout.nextSetBit(index + 1)) {
+      int col = index % this.gridWidth;
+      int row = index / this.gridWidth;
+      this.mines[wordIndex(col, row)] |= 1L << col;
+    }
+    this.numMines = layout.cardinality();
+    countNeighbors();
+  }
+
+  // the given word of the mine plane, or 0 outside the board
+  long mineWord(int row, int word) {
+    if (row < 0 || row >= this.gridHeight || word < 0 || word >= this.wordsPerRow) {
+      return 0;
+    }
+    return this.mines[row * this.wordsPerRow + word];
+  }
+
+  // count every cell's neighboring mines. for each word, the mine words of
+  // the row above, the row itself and the row below are shifted one column
+  // each way, with the bit that crosses into the next word carried over, and
+  // the eight shifted words are added into the bit-sliced counts
+  void countNeighbors() {
+    for (int row = 0; row < this.gridHeight; row++) {
+      for (int word = 0; word < this.wordsPerRow; word++) {
+        int i = row * this.wordsPerRow + word;
+        this.count[0][i] = 0;
+        this.count[1][i] = 0;
+        this.count[2][i] = 0;
+        this.count[3][i] = 0;
+        for (int r = row - 1; r <= row + 1; r++) {
+          long center = mineWord(r, word);
+          long fromLeft = center << 1 | mineWord(r, word - 1) >>> 63;
+          long fromRight = center >>> 1 | mineWord(r, word + 1) << 63;
+          addToCount(i, fromLeft);
+          addToCount(i, fromRight);
+          if (r != row) {
+            addToCount(i, center);
+          }
+        }
+        this.zero[i] = ~(this.count[0][i] | this.count[1][i] | this.count[2][i]
+            | this.count[3][i]) & columnMask(word);
+      }
+    }
+  }
+
+  // add one to the counts of the cells in word 'i' whose bits are set in
+  // 'plane', carrying through the bit-sliced counts the way a ripple adder
+  // carries through the bits of a number
+  void addToCount(int i, long plane) {
+    long carry = plane;
+    for (int bit = 0; bit < 4 && carry != 0; bit++) {
+      long next = this.count[bit][i] & carry;
+      this.count[bit][i] ^= carry;
+      carry = next;
+    }
+  }
+
+  // the number of mines that neighbor the given cell
+  int adjacentMines(int col, int row) {
+    int i = wordIndex(col, row);
+    int shift = col & 63;
+    return (int) (this.count[0][i] >>> shift & 1 | (this.count[1][i] >>> shift & 1) << 1
+        | (this.count[2][i] >>> shift & 1) << 2 | (this.count[3][i] >>> shift & 1) << 3);
+  }
+
+  // is the given cell hidden?
+  boolean isHidden(int col, int row) {
+    return (this.hidden[wordIndex(col, row)] & 1L << col) != 0;
+  }
+
+  // is the given cell a mine?
+  boolean isMine(int col, int row) {
+    return (this.mines[wordIndex(col, row)] & 1L << col) != 0;
+  }
+
+  // is the given cell flagged?
+  boolean isFlagged(int col, int row) {
+    return (this.flags[wordIndex(col, row)] & 1L << col) != 0;
+  }
+
+  // flip the flag on the given cell
+  void toggleFlag(int col, int row) {
+    int i = wordIndex(col, row);
+    this.flags[i] ^= 1L << col;
+    if ((this.flags[i] & 1L << col) != 0) {
+      this.numFlags += 1;
+    }
+    else {
+      this.numFlags -= 1;
+    }
+  }
+
+  // make the given cell visible if it is hidden, following the same rules as
+  // PackedBoard.reveal: a cell with no neighboring mines also uncovers every
+  // hidden cell with no neighboring mines that it is connected to through
+  // such cells. return the number of cells that were uncovered
+  int reveal(int col, int row) {
+    int i = wordIndex(col, row);
+    long bit = 1L << col;
+    if ((this.hidden[i] & bit) == 0) {
+      return 0;
+    }
+    if ((this.zero[i] & bit) == 0) {
+      this.hidden[i] &= ~bit;
+      this.numHidden -= 1;
+      if ((this.mines[i] & bit) == 0) {
+        this.numSafeRevealed += 1;
+      }
+      return 1;
+    }
+
+    this.fill[i] = bit;
+    this.fillLo[row] = col >>> 6;
+    this.fillHi[row] = col >>> 6;
+    int numTouched = 0;
+    this.rowTouched[row] = true;
+    this.touchedRows[numTouched] = row;
+    numTouched += 1;
+    int head = 0;
+    int size = 0;
+    for (int r = Math.max(0, row - 1); r <= Math.min(this.gridHeight - 1, row + 1); r++) {
+      this.rowQueue[(head + size) % this.gridHeight] = r;
+      this.rowQueued[r] = true;
+      size += 1;
+    }
+    while (size > 0) {
+      int r = this.rowQueue[head];
+      head = (head + 1) % this.gridHeight;
+      size -= 1;
+      this.rowQueued[r] = false;
+      if (fillRow(r)) {
+        if (!this.rowTouched[r]) {
+          this.rowTouched[r] = true;
+          this.touchedRows[numTouched] = r;
+          numTouched += 1;
+        }
+        for (int next = r - 1; next <= r + 1; next += 2) {
+          if (next >= 0 && next < this.gridHeight && !this.rowQueued[next]) {
+            this.rowQueue[(head + size) % this.gridHeight] = next;
+            this.rowQueued[next] = true;
+            size += 1;
+          }
+        }
+      }
+    }
+
+    int uncovered = 0;
+    for (int t = 0; t < numTouched; t++) {
+      int r = this.touchedRows[t];
+      this.rowTouched[r] = false;
+      for (int word = this.fillLo[r]; word <= this.fillHi[r]; word++) {
+        int w = r * this.wordsPerRow + word;
+        uncovered += Long.bitCount(this.fill[w] & this.hidden[w]);
+        this.hidden[w] &= ~this.fill[w];
+        this.fill[w] = 0;
+      }
+      this.fillLo[r] = this.wordsPerRow;
+      this.fillHi[r] = -1;
+    }
+    this.numHidden -= uncovered;
+    // cascades only ever pass through cells without neighboring mines, which
+    // can't be mines themselves; only the clicked cell can be one
+    this.numSafeRevealed += uncovered;
+    if ((this.mines[i] & bit) != 0) {
+      this.numSafeRevealed -= 1;
+    }
+    return uncovered;
+  }
+
+  // grow the filled cells of the given row by the hidden cells without
+  // neighboring mines that touch a filled cell in this row or the rows next
+  // to it, and then by every such cell they run into along the row. only the
+  // words next to filled words are looked at, unless a run carries on past
+  // them. return whether the row gained any cells
+  boolean fillRow(int row) {
+    int rowStart = row * this.wordsPerRow;
+    int lo = this.fillLo[row];
+    int hi = this.fillHi[row];
+    if (row > 0) {
+      lo = Math.min(lo, this.fillLo[row - 1]);
+      hi = Math.max(hi, this.fillHi[row - 1]);
+    }
+    if (row + 1 < this.gridHeight) {
+      lo = Math.min(lo, this.fillLo[row + 1]);
+      hi = Math.max(hi, this.fillHi[row + 1]);
+    }
+    if (lo > hi) {
+      return false;
+    }
+    lo = Math.max(0, lo - 1);
+    hi = Math.min(this.wordsPerRow - 1, hi + 1);
+
+    // find the new cells next to filled cells
+    boolean grew = false;
+    long previous = 0;
+    if (lo > 0) {
+      previous = filledAround(row, lo - 1);
+    }
+    long current = filledAround(row, lo);
+    for (int word = lo; word <= hi; word++) {
+      long next = 0;
+      if (word + 1 < this.wordsPerRow) {
+        next = filledAround(row, word + 1);
+      }
+      long spread = current | current << 1 | previous >>> 63 | current >>> 1 | next << 63;
+      long open = this.hidden[rowStart + word] & this.zero[rowStart + word];
+      long seeds = spread & open & ~this.fill[rowStart + word];
+      grew = grew || seeds != 0;
+      this.fill[rowStart + word] |= seeds;
+      previous = current;
+      current = next;
+    }
+    if (!grew) {
+      return false;
+    }
+
+    // run the new cells along the row, up through the words and then back
+    // down, so runs that cross from one word into the next are filled whole
+    long carry = 0;
+    int word = lo;
+    while (word <= hi || carry != 0 && word < this.wordsPerRow) {
+      long open = this.hidden[rowStart + word] & this.zero[rowStart + word];
+      this.fill[rowStart + word] = fillUp(this.fill[rowStart + word] | carry & open, open);
+      carry = this.fill[rowStart + word] >>> 63;
+      word += 1;
+    }
+    hi = word - 1;
+    carry = 0;
+    word = hi;
+    while (word >= lo || carry != 0 && word >= 0) {
+      long open = this.hidden[rowStart + word] & this.zero[rowStart + word];
+      this.fill[rowStart + word] = fillDown(this.fill[rowStart + word] | carry << 63 & open,
+          open);
+      carry = this.fill[rowStart + word] & 1;
+      word -= 1;
+    }
+    lo = word + 1;
+
+    while (this.fill[rowStart + lo] == 0) {
+      lo += 1;
+    }
+    while (this.fill[rowStart + hi] == 0) {
+      hi -= 1;
+    }
+    this.fillLo[row] = Math.min(this.fillLo[row], lo);
+    this.fillHi[row] = Math.max(this.fillHi[row], hi);
+    return true;
+  }
+
+  // the filled cells of the given word in the row and the rows above and
+  // below it
+  long filledAround(int row, int word) {
+    long filled = this.fill[row * this.wordsPerRow + word];
+    if (row > 0) {
+      filled |= this.fill[(row - 1) * this.wordsPerRow + word];
+    }
+    if (row + 1 < this.gridHeight) {
+      filled |= this.fill[(row + 1) * this.wordsPerRow + word];
+    }
+    return filled;
+  }
+
+  // spread the set bits of 'seeds' toward the high bits through the set bits
+  // of 'open', doubling the distance covered at each step
+  static long fillUp(long seeds, long open) {
+    long filled = seeds & open;
+    long through = open;
+    filled |= through & filled << 1;
+    through &= through << 1;
+    filled |= through & filled << 2;
+    through &= through << 2;
+    filled |= through & filled << 4;
+    through &= through << 4;
+    filled |= through & filled << 8;
+    through &= through << 8;
+    filled |= through & filled << 16;
+    through &= through << 16;
+    filled |= through & filled << 32;
+    return filled;
+  }
+
+  // spread the set bits of 'seeds' toward the low bits through the set bits
+  // of 'open', doubling the distance covered at each step
+  static long fillDown(long seeds, long open) {
+    long filled = seeds & open;
+    long through = open;
+    filled |= through & filled >>> 1;
+    through &= through >>> 1;
+    filled |= through & filled >>> 2;
+    through &= through >>> 2;
+    filled |= through & filled >>> 4;
+    through &= through >>> 4;
+    filled |= through & filled >>> 8;
+    through &= through >>> 8;
+    filled |= through & filled >>> 16;
+    through &= through >>> 16;
+    filled |= through & filled >>> 32;
+    return filled;
+  }
+
+  // uncover the given cell the way Board.updateCell does: flagged cells stay
+  // covered and nothing changes once the game is over. return the number of
+  // cells uncovered
+  int updateCell(int col, int row) {
+    if (isOver() || isFlagged(col, row)) {
+      return 0;
+    }
+    int uncovered = reveal(col, row);
+    if (isMine(col, row)) {
+      this.lost = true;
+    }
+    return uncovered;
+  }
+
+  // put a flag on the given cell or take it off the way Board.updateCellFlag
+  // does: there can't be more flags than mines, and nothing changes once the
+  // game is over. return whether the flag changed
+  boolean updateCellFlag(int col, int row) {
+    if (!isOver() && (this.numFlags != this.numMines || isFlagged(col, row))) {
+      toggleFlag(col, row);
+      return true;
+    }
+    return false;
+  }
+
+  // count the number of hidden cells remaining on the board
+  int countHidden() {
+    return this.numHidden;
+  }
+
+  // count the number of flags placed on the board
+  int countFlags() {
+    return this.numFlags;
+  }
+
+  // have all the cells that aren't mines been uncovered?
+  boolean allSafeRevealed() {
+    return this.numSafeRevealed == this.gridWidth * this.gridHeight - this.numMines;
+  }
+
+  // has the game been won or lost?
+  boolean isOver() {
+    return this.lost || allSafeRevealed();
+  }
+
+  // hide every cell again and take away every flag, keeping the mines
+  void cover() {
+    for (int row = 0; row < this.gridHeight; row++) {
+      for (int word = 0; word < this.wordsPerRow; word++) {
+        this.hidden[row * this.wordsPerRow + word] = columnMask(word);
+      }
+    }
+    Arrays.fill(this.flags, 0);
+    this.numHidden = this.gridWidth * this.gridHeight;
+    this.numFlags = 0;
+    this.numSafeRevealed = 0;
+    this.lost = false;
+  }
+}
+
+// examples for bit boards
+class ExamplesBitBoard {
+  BitBoard board;
+
+  // initialize variables
+  void init() {
+    board = new BitBoard(3, 3);
+    BitSet layout = new BitSet();
+    layout.set(0);
+    layout.set(8);
+    board.setMines(layout);
+    /*
+     * X 1 0
+     * 1 2 1
+     * 0 1 X
+     */
+  }
+
+  // test counting neighboring mines
+  void testAdjacentMines(Tester t) {
+    init();
+
+    t.checkExpect(board.adjacentMines(0, 0), 0);
+    t.checkExpect(board.adjacentMines(1, 0), 1);
+    t.checkExpect(board.adjacentMines(2, 0), 0);
+    t.checkExpect(board.adjacentMines(1, 1), 2);
+    t.checkExpect(board.adjacentMines(0, 2), 0);
+    // the counts of a small board
+
+    boolean same = true;
+    int[] widths = { 1, 63, 64, 65, 130 };
+    for (int width : widths) {
+      MineGenerator mineGen = new MineGenerator(width, 9, width * 9 / 3, width);
+      BitSet layout = mineGen.makeMineLayout();
+      BitBoard bits = new BitBoard(width, 9);
+      bits.setMines(layout);
+      PackedBoard packed = new PackedBoard(width, 9);
+      packed.setMines(layout);
+      for (int index = 0; index < packed.size(); index++) {
+        same = same && bits.adjacentMines(packed.colOf(index), packed.rowOf(index)) == packed
+            .adjacentMines(index);
+      }
+    }
+    t.checkExpect(same, true);
+    // counts carried across word boundaries match the packed board's
+  }
+
+  // test uncovering cells
+  void testReveal(Tester t) {
+    init();
+
+    t.checkExpect(board.reveal(2, 0), 1);
+    t.checkExpect(board.isHidden(2, 0), false);
+    t.checkExpect(board.isHidden(1, 0), true);
+    t.checkExpect(board.reveal(2, 0), 0);
+    // a cell with no neighboring mines only uncovers neighbors that have none
+    // either, and an uncovered cell can't be uncovered again
+
+    t.checkExpect(board.reveal(1, 1), 1);
+    t.checkExpect(board.countHidden(), 7);
+    t.checkExpect(board.allSafeRevealed(), false);
+
+    boolean same = true;
+    int[] widths = { 7, 64, 100, 200 };
+    for (int width : widths) {
+      MineGenerator mineGen = new MineGenerator(width, 50, width * 50 / 12, width + 1);
+      BitSet layout = mineGen.makeMineLayout();
+      BitBoard bits = new BitBoard(width, 50);
+      bits.setMines(layout);
+      PackedBoard packed = new PackedBoard(width, 50);
+      packed.setMines(layout);
+      Random rand = new Random(width);
+      for (int i = 0; i < 60; i++) {
+        int col = rand.nextInt(width);
+        int row = rand.nextInt(50);
+        same = same && bits.reveal(col, row) == packed.reveal(packed.index(col, row));
+      }
+      for (int index = 0; index < packed.size(); index++) {
+        same = same && bits.isHidden(packed.colOf(index), packed.rowOf(index)) == packed
+            .isHidden(index);
+      }
+      same = same && bits.countHidden() == packed.countHidden()
+          && bits.allSafeRevealed() == packed.allSafeRevealed();
+    }
+    t.checkExpect(same, true);
+    // cascades through word boundaries uncover the same cells as the packed
+    // board's cascades
+  }
+
+  // test the word fills
+  void testFill(Tester t) {
+    t.checkExpect(BitBoard.fillUp(0b100L, 0b1111110L), 0b1111100L);
+    t.checkExpect(BitBoard.fillDown(0b1000L, 0b1101110L), 0b1110L);
+    t.checkExpect(BitBoard.fillUp(1L, -1L), -1L);
+    t.checkExpect(BitBoard.fillDown(Long.MIN_VALUE, -1L), -1L);
+    // fills stop at the first closed bit, and cross a whole word
+  }
+
+  // test the moves of a game
+  void testUpdateCell(Tester t) {
+    init();
+
+    t.checkExpect(board.updateCellFlag(0, 0), true);
+    t.checkExpect(board.updateCellFlag(2, 2), true);
+    t.checkExpect(board.updateCellFlag(1, 0), false);
+    t.checkExpect(board.countFlags(), 2);
+    // there can't be more flags than mines
+
+    t.checkExpect(board.updateCell(0, 0), 0);
+    t.checkExpect(board.isHidden(0, 0), true);
+    // a flagged cell can't be uncovered
+
+    board.updateCellFlag(2, 2);
+    t.checkExpect(board.updateCell(2, 2), 1);
+    t.checkExpect(board.isOver(), true);
+    t.checkExpect(board.updateCell(1, 0), 0);
+    // uncovering a mine ends the game
+
+    board.cover();
+    t.checkExpect(board.isOver(), false);
+    for (int row = 0; row < 3; row++) {
+      for (int col = 0; col < 3; col++) {
+        if (!board.isMine(col, row)) {
+          board.updateCell(col, row);
+        }
+      }
+    }
+    t.checkExpect(board.isOver(), true);
+    t.checkExpect(board.lost, false);
+    // uncovering every safe cell wins
+  }
+}
@@ -0,0 +1,1310 @@
+import java.util.Random;
+import tester.*;
+import javalib.impworld.*;
+import java.awt.Color;
+import javalib.worldimages.*;
+import java.util.ArrayList;
+import java.util.BitSet;
+
+// represent a mine sweeper game board
+class Board extends World {
+  // the rules and state of the game live in 'game'; this world draws it and
+  // turns mouse and key events into moves. 'cellGrid' holds a Cell view of
+  // the same board, built only when cellGrid() asks for it, so moves never
+  // pay for it.
+  MinesweeperGame game;
+  ArrayList<ArrayList<Cell>> cellGrid;
+  int gridWidth;
+  int gridHeight;
+  int cellWidth;
+  int cellHeight;
+  MineGenerator mineGen;
+  int timer;
+  boolean gameEnd;
+  int numMines;
+  // lay the mines out on the first left click rather than up front
+  boolean deferMines;
+  // the log every move is recorded in, or null when moves aren't recorded
+  MoveLog moveLog;
+  // when 'incrementalScene' is on, makeScene keeps the scene it drew last and
+  // only draws over the cells in 'dirtyCells' and the timer and flag count
+  // when they have changed. 'scenePatches' counts the images drawn over the
+  // scene since it was last drawn from scratch.
+  boolean incrementalScene;
+  WorldScene scene;
+  BitSet dirtyCells;
+  int sceneTimer;
+  int sceneFlags;
+  boolean sceneShowsGameEnd;
+  int scenePatches;
+  // the shared cell images for each cell size this board has been drawn at
+  ArrayList<CellImages> cellImageCache;
+  // the part of the board that is on screen. 'cellWidth' and 'cellHeight'
+  // follow its cell size as it zooms
+  Camera camera;
+  // the flag drawn next to the flag count, which stays the same size however
+  // far the board is zoomed out
+  WorldImage hudFlag;
+  // the size of the window once bigBang has opened it, or 0 before then. new
+  // games are started in the same window, so their camera is fitted to it
+  int windowWidth;
+  int windowHeight;
+  // the layouts for each of the LEVELS, generated in the background as they
+  // are taken. a pool is made the first time its level is started
+  BoardPool[] boardPools;
+  // when frames are drawn, and the clock 'timer' follows
+  RedrawScheduler scheduler;
+  // the scene makeScene returned last, shown again while frames are held back
+  WorldScene frame;
+
+  // construct a representation of a Minesweeper game board using native Java
+  // objects
+  Board(int gridWidth, int gridHeight, int numMines) {
+    this(new MineGenerator(gridWidth, gridHeight, numMines), false);
+  }
+
+  // construct a board whose mines are laid out by the given generator. when
+  // 'deferMines' is set, the mines are laid out on the first left click
+  // instead, keeping the clicked cell and its neighbors clear
+  Board(MineGenerator mineGen, boolean deferMines) {
+    this.cellGrid = new ArrayList<>();
+    this.gridHeight = mineGen.gridHeight;
+    this.gridWidth = mineGen.gridWidth;
+    this.cellWidth = 50;
+    this.cellHeight = 50;
+    this.timer = 0;
+    this.gameEnd = false;
+    this.numMines = mineGen.numMines;
+    this.deferMines = deferMines;
+    this.incrementalScene = true;
+    this.scene = null;
+    this.dirtyCells = new BitSet();
+    this.cellImageCache = new ArrayList<>();
+    this.hudFlag = drawFlag();
+    this.boardPools = new BoardPool[LEVELS.length];
+    this.scheduler = new RedrawScheduler();
+
+    checkSize(this.gridWidth, this.gridHeight);
+    resetCamera();
+
+    this.mineGen = mineGen;
+
+    createBoard(this.gridWidth, this.gridHeight);
+  }
+
+  // constructor that takes a random seed to pass to the mine generator
+  Board(int gridWidth, int gridHeight, int numMines, int seed) {
+    this(new MineGenerator(gridWidth, gridHeight, numMines, seed), false);
+  }
+
+  // constructor that takes a random seed and can lay the mines out the way
+  // boards were laid out before MineGenerator.makeMineLayout, so saved seeds
+  // give the same boards
+  Board(int gridWidth, int gridHeight, int numMines, int seed, boolean legacyLayout) {
+    this(new MineGenerator(gridWidth, gridHeight, numMines, seed, legacyLayout), false);
+  }
+
+  // constructor that takes a random seed and records every move made on the
+  // board in the given log, so that the game can be replayed from it
+  Board(int gridWidth, int gridHeight, int numMines, int seed, MoveLog moveLog) {
+    this(new MineGenerator(gridWidth, gridHeight, numMines, seed), false);
+    this.moveLog = moveLog;
+    moveLog.newGame(gridWidth, gridHeight, numMines, seed);
+  }
+
+  // ensure that the board is constructed with possible Minesweeper grid
+  // dimensions
+  void checkSize(int gridWidth, int gridHeight) {
+    if (gridWidth < 1 || gridHeight < 1) {
+      throw new IllegalArgumentException("grid dimensions are too small");
+    }
+  }
+
+  // create an ArrayList representation of the Minesweeper board
+  void createBoard(int gridWidth, int gridHeight) {
+    // lay out the mines and count every cell's neighboring mines once, up
+    // front unless they are deferred to the first click
+    this.game = new MinesweeperGame(this.mineGen, this.deferMines);
+    this.game.keepHistory();
+  }
+
+  // the Cell view of the game's board, with no rows before its mines are laid
+  // out. the cells are built the first time they are asked for and brought up
+  // to date with the game each time after
+  ArrayList<ArrayList<Cell>> cellGrid() {
+    if (!this.game.minesPlaced()) {
+      return new ArrayList<>();
+    }
+    createCellGrid(this.gridWidth, this.gridHeight);
+    return this.cellGrid;
+  }
+
+  // build the Cell view of the game's board, or bring the cells already built
+  // up to date when they are for a board of the same size, since they have
+  // the same neighbors
+  void createCellGrid(int gridWidth, int gridHeight) {
+    if (hasCellGrid(gridWidth, gridHeight)) {
+      for (int row = 0; row < gridHeight; row++) {
+        ArrayList<Cell> cellRow = this.cellGrid.get(row);
+        for (int col = 0; col < gridWidth; col++) {
+          int index = this.game.board.index(col, row);
+          Cell cell = cellRow.get(col);
+          cell.hidden = this.game.board.isHidden(index);
+          cell.mine = this.game.board.isMine(index);
+          cell.flag = this.game.board.isFlagged(index);
+        }
+      }
+      return;
+    }
+    this.cellGrid = new ArrayList<>();
+    for (int row = 0; row < gridHeight; row++) {
+      ArrayList<Cell> cellRow = new ArrayList<>();
+      for (int col = 0; col < gridWidth; col++) {
+        // the next cell added to the board is a mine if the layout says so
+        int index = this.game.board.index(col, row);
+        Cell cell = new Cell(this.game.board.isHidden(index), this.game.board.isMine(index));
+        cell.flag = this.game.board.isFlagged(index);
+        cellRow.add(cell);
+
+        // update horizontal neighboring cells
+        if (0 < col) {
+          cell.updateNeighbors(cellRow.get(col - 1));
+        }
+      }
+      this.cellGrid.add(cellRow);
+      // update vertical and vertical-diagonal neighbors
+      updateVertNeighbor(this.cellGrid);
+    }
+  }
+
+  // does 'cellGrid' hold cells for a board of the given size?
+  boolean hasCellGrid(int gridWidth, int gridHeight) {
+    return this.cellGrid.size() == gridHeight && this.cellGrid.get(0).size() == gridWidth;
+  }
+
+  // update cells' 'neighbor' fields to include the cells that neighbor it
+  // vertically
+  void updateVertNeighbor(ArrayList<ArrayList<Cell>> cellGrid) {
+
+    // a cell will have a top neighbor iff there is more than 1 row in the grid
+    if (1 < cellGrid.size()) {
+
+      // the last and second to last rows, respectively
+      ArrayList<Cell> tailRow = cellGrid.get(cellGrid.size() - 1);
+      ArrayList<Cell> tailRowNeighbor = cellGrid.get(cellGrid.size() - 2);
+
+      // iterate over each cell in the last row and update its 'neighbor' field
+      // to include the cell directly above and diagonally bordering from above.
+      // this will also update the above cell's 'neighbor' field to include the below
+      // cell.
+      for (int colIndex = 0; colIndex < tailRow.size(); colIndex++) {
+        Cell cell = tailRow.get(colIndex);
+        // update top neighbor
+        Cell topNeighbor = tailRowNeighbor.get(colIndex);
+        cell.updateNeighbors(topNeighbor);
+        // update top left neighbor
+        if (colIndex > 0) {
+          Cell diagCell = tailRowNeighbor.get(colIndex - 1);
+          cell.updateNeighbors(diagCell);
+        }
+        // update top right neighbor
+        if (colIndex < tailRow.size() - 1) {
+          Cell diagCell = tailRowNeighbor.get(colIndex + 1);
+          cell.updateNeighbors(diagCell);
+        }
+      }
+    }
+  }
+
+  // the color of the board behind the cells
+  static final Color BOARD_COLOR = new Color(200, 200, 200);
+  // the color of the canvas behind the timer and flag count
+  static final Color CANVAS_COLOR = Color.WHITE;
+  // the colors of cells drawn without detail when the board is zoomed out
+  static final Color OVERVIEW_HIDDEN_COLOR = Color.GRAY;
+  static final Color OVERVIEW_FLAG_COLOR = new Color(220, 40, 40);
+  static final Color OVERVIEW_MINE_COLOR = Color.DARK_GRAY;
+  static final Color OVERVIEW_NUMBER_COLOR = new Color(170, 170, 200);
+  // the largest the viewport gets; bigger boards are panned around in it
+  static final int MAX_VIEW_WIDTH = 1600;
+  static final int MAX_VIEW_HEIGHT = 900;
+  // the height of the strip below the board with the timer and flag count
+  static final int HUD_HEIGHT = 50;
+  // below this cell size, cells are drawn as flat colors instead of images
+  static final int DETAIL_CELL_SIZE = 20;
+  // the width, height and number of mines of the beginner, intermediate and
+  // expert levels picked with b, i and e once a game is over
+  static final int[][] LEVELS = { { 8, 8, 10 }, { 16, 16, 40 }, { 30, 16, 99 } };
+  // the number of layouts kept ready for each level
+  static final int POOL_CAPACITY = 2;
+  // the time between ticks once the window is open. a tick draws whatever
+  // moves the frames in between held back, and a tick with nothing to draw
+  // shows the last frame again
+  static final double FRAME_SECONDS = 0.05;
+  static final long FRAME_NANOS = 50000000L;
+
+  // initialize the layout for an empty world scene
+  WorldScene initializeWorld() {
+    // initialize an empty world
+    WorldScene world = new WorldScene(this.camera.viewWidth, this.camera.viewHeight);
+    // draw the board background
+    RectangleImage boardBackground = new RectangleImage(this.camera.viewWidth,
+        this.camera.viewHeight, OutlineMode.SOLID, BOARD_COLOR);
+    world.placeImageXY(boardBackground, this.camera.viewWidth / 2, this.camera.viewHeight / 2);
+    return world;
+  }
+
+  // draw the mine sweeper game board as a WorldScene
+  public WorldScene makeScene() {
+    GameMetrics.METRICS.makeScene.begin();
+    WorldScene world = makeSceneHelp();
+    GameMetrics.METRICS.makeScene.end();
+    return world;
+  }
+
+  // draw the scene for makeScene, from scratch or by patching the last one
+  WorldScene makeSceneHelp() {
+    if (!this.incrementalScene) {
+      return drawFullScene();
+    }
+    // an idle board shows the last frame without looking for patches
+    if (this.frame != null && !sceneChanged()) {
+      return this.frame;
+    }
+    // moves made in a burst between two frames are drawn together in the
+    // next one, so the last frame is shown again until then
+    if (this.frame != null && !this.scheduler.frameDue()) {
+      return this.frame;
+    }
+    // the end-of-game scene is drawn between the rows of cells, so it can't be
+    // patched in. the scene is also redrawn once the patches outnumber the
+    // cells on screen, which keeps the scene from growing without bound
+    if (this.scene == null || this.gameEnd != this.sceneShowsGameEnd
+        || this.scenePatches > this.camera.visibleCells()) {
+      this.scene = drawFullScene();
+      this.sceneShowsGameEnd = this.gameEnd;
+      this.sceneTimer = this.timer;
+      this.sceneFlags = numFlags();
+      this.scenePatches = 0;
+      this.dirtyCells.clear();
+    }
+    else {
+      patchScene(this.scene);
+    }
+    this.frame = this.scene;
+    this.scheduler.frameDrawn();
+    return this.scene;
+  }
+
+  // draw the part of the game board in the camera's viewport from scratch.
+  // only the cells on screen are drawn, so the cost of a frame depends on the
+  // size of the viewport and not of the board
+  WorldScene drawFullScene() {
+    GameMetrics.METRICS.drawFullScene.begin();
+    // initialize an empty world
+    WorldScene world = initializeWorld();
+
+    // draw the timer
+    drawTimer(world);
+    // draw flag count
+    drawFlagCount(world);
+    // Iterate over the cells in the viewport and outline each cell
+    for (int row = this.camera.firstRow(); row <= this.camera.lastRow(); row++) {
+      if (this.cellWidth >= DETAIL_CELL_SIZE) {
+        for (int col = this.camera.firstCol(); col <= this.camera.lastCol(); col++) {
+          world.placeImageXY(drawCell(col, row), this.camera.centerX(col),
+              this.camera.centerY(row));
+        }
+      }
+      else {
+        drawOverviewRow(world, row);
+      }
+      if (this.gameEnd) {
+        gameOverScene(world);
+      }
+    }
+    GameMetrics.METRICS.drawFullScene.end();
+    return world;
+  }
+
+  // draw the cells of a row in the viewport as flat colors, with each run of
+  // cells of the same color drawn as one rectangle
+  void drawOverviewRow(WorldScene world, int rowIndex) {
+    int col = this.camera.firstCol();
+    while (col <= this.camera.lastCol()) {
+      Color color = overviewColor(this.game.board.index(col, rowIndex));
+      int end = col + 1;
+      while (end <= this.camera.lastCol()
+          && overviewColor(this.game.board.index(end, rowIndex)).equals(color)) {
+        end += 1;
+      }
+      int left = this.camera.centerX(col) - this.camera.cellSize / 2;
+      int runWidth = (end - col) * this.camera.cellSize;
+      world.placeImageXY(
+          new RectangleImage(runWidth, this.camera.cellSize, OutlineMode.SOLID, color),
+          left + runWidth / 2, this.camera.centerY(rowIndex));
+      col = end;
+    }
+  }
+
+  // the flat color of the cell at the given index when the board is zoomed
+  // out too far to draw cell images
+  Color overviewColor(int index) {
+    PackedBoard board = this.game.board;
+    if (board.isHidden(index)) {
+      if (board.isFlagged(index)) {
+        return OVERVIEW_FLAG_COLOR;
+      }
+      else {
+        return OVERVIEW_HIDDEN_COLOR;
+      }
+    }
+    else if (board.isMine(index) && !board.isFlagged(index)) {
+      return OVERVIEW_MINE_COLOR;
+    }
+    else if (board.adjacentMines(index) > 0) {
+      return OVERVIEW_NUMBER_COLOR;
+    }
+    else {
+      return BOARD_COLOR;
+    }
+  }
+
+  // has anything the scene shows changed since it was last drawn?
+  boolean sceneChanged() {
+    return this.scene == null || this.gameEnd != this.sceneShowsGameEnd
+        || !this.dirtyCells.isEmpty() || this.timer != this.sceneTimer
+        || numFlags() != this.sceneFlags;
+  }
+
+  // bring a scene drawn by drawFullScene up to date by drawing over the cells
+  // that changed since it was last drawn, and over the timer and flag count if
+  // they changed. each patch starts with an opaque background so the picture
+  // is the same as drawing the scene from scratch
+  void patchScene(WorldScene world) {
+    for (int index = this.dirtyCells.nextSetBit(0); index >= 0; index = this.dirtyCells
+        .nextSetBit(index + 1)) {
+      int col = this.game.board.colOf(index);
+      int row = this.game.board.rowOf(index);
+      // cells off screen are drawn when the camera brings them into view
+      if (!this.camera.shows(col, row)) {
+        continue;
+      }
+      int x = this.camera.centerX(col);
+      int y = this.camera.centerY(row);
+      if (this.cellWidth >= DETAIL_CELL_SIZE) {
+        world.placeImageXY(
+            new RectangleImage(this.cellWidth, this.cellHeight, OutlineMode.SOLID, BOARD_COLOR),
+            x, y);
+        world.placeImageXY(drawCell(col, row), x, y);
+        this.scenePatches += 2;
+      }
+      else {
+        world.placeImageXY(new RectangleImage(this.cellWidth, this.cellHeight, OutlineMode.SOLID,
+            overviewColor(index)), x, y);
+        this.scenePatches += 1;
+      }
+    }
+    this.dirtyCells.clear();
+
+    // the timer and flag count are layers of their own, each redrawn over
+    // its half of the strip below the board only when it has changed
+    if (this.timer != this.sceneTimer) {
+      clearHud(world, this.camera.viewWidth / 4);
+      drawTimer(world);
+      this.sceneTimer = this.timer;
+      this.scenePatches += 2;
+    }
+    if (numFlags() != this.sceneFlags) {
+      clearHud(world, 3 * this.camera.viewWidth / 4);
+      drawFlagCount(world);
+      this.sceneFlags = numFlags();
+      this.scenePatches += 2;
+    }
+  }
+
+  // paint over the half of the strip below the board centered on the given x
+  // position
+  void clearHud(WorldScene world, int centerX) {
+    RectangleImage hudBackground = new RectangleImage((this.camera.viewWidth + 1) / 2, HUD_HEIGHT,
+        OutlineMode.SOLID, CANVAS_COLOR);
+    world.placeImageXY(hudBackground, centerX, this.camera.viewHeight + HUD_HEIGHT / 2);
+  }
+
+  // draw the cell at the given column and row
+  WorldImage drawCell(int colIndex, int rowIndex) {
+    int index = this.game.board.index(colIndex, rowIndex);
+    return cellImages().cell(this.game.board.isHidden(index), this.game.board.isMine(index),
+        numNeighboringMines(colIndex, rowIndex), this.game.board.isFlagged(index));
+  }
+
+  // the shared cell images for the current cell size, drawn the first time
+  // the board is drawn at that size. a board only ever sees a few sizes, so
+  // they are kept in a short list
+  CellImages cellImages() {
+    for (CellImages images : this.cellImageCache) {
+      if (images.hasSize(this.cellWidth, this.cellHeight)) {
+        return images;
+      }
+    }
+    CellImages images = new CellImages(this.cellWidth, this.cellHeight);
+    this.cellImageCache.add(images);
+    return images;
+  }
+
+  // count the number of hidden cells remaining on the board
+  int countHiddenCells() {
+    return this.game.board.countHidden();
+  }
+
+  // has the user uncovered all cells that aren't mines, without uncovering a
+  // mine?
+  boolean foundAllMines() {
+    return this.game.isWon();
+  }
+
+  // ******EXTRA CREDIT*****
+  // draw the end-of-game scene
+  void gameOverScene(WorldScene world) {
+    RectangleImage endBackground = new RectangleImage(160, 150, OutlineMode.SOLID,
+        new Color(255, 255, 255, 100));
+
+    TextImage gameOver;
+    if (this.game.isWon()) {
+      gameOver = new TextImage("You Win!", 20, FontStyle.BOLD, new Color(0, 200, 100));
+    }
+    else {
+      gameOver = new TextImage("Game Over!", 20, FontStyle.BOLD, Color.RED);
+    }
+
+    WorldImage levelSelect = levelSelect();
+
+    WorldImage gameOverImage = new OverlayOffsetImage(levelSelect, 0, -HUD_HEIGHT, gameOver);
+    WorldImage endScene = new OverlayOffsetImage(gameOverImage, 0, 15, endBackground);
+    world.placeImageXY(endScene, this.camera.viewWidth / 2, this.camera.viewHeight / 2);
+  }
+
+  // ******EXTRA CREDIT*****
+  // draw the timer onto the scene
+  void drawTimer(WorldScene world) {
+    String timerText = "Timer: " + this.timer;
+    TextImage timerImage = new TextImage(timerText, 20, Color.BLACK);
+    // draw the timer
+    world.placeImageXY(timerImage, this.camera.viewWidth / 4,
+        this.camera.viewHeight + HUD_HEIGHT / 2);
+  }
+
+  // ******EXTRA CREDIT*****
+  // draw the number of flags remaining
+  void drawFlagCount(WorldScene world) {
+    String flagCount = "=" + Integer.toString(this.numMines - numFlags());
+    TextImage flagCountImage = new TextImage(flagCount, 20, Color.BLACK);
+    WorldImage flagsRemaining = new OverlayOffsetAlign(AlignModeX.CENTER, AlignModeY.MIDDLE,
+        this.hudFlag, 20, 0, flagCountImage);
+    world.placeImageXY(flagsRemaining, 3 * this.camera.viewWidth / 4,
+        this.camera.viewHeight + HUD_HEIGHT / 2);
+  }
+
+  // ******EXTRA CREDIT*****
+  // menu for selecting level difficulty
+  WorldImage levelSelect() {
+    TextImage press = new TextImage("Press:", 14, Color.BLACK);
+    TextImage beginner = new TextImage("b for beginner", 14, Color.BLACK);
+    TextImage intermediate = new TextImage("i  for intermediate", 14, Color.BLACK);
+    TextImage expert = new TextImage("e for expert", 14, Color.BLACK);
+    WorldImage endText;
+    WorldImage levelOptions;
+    levelOptions = new OverlayOffsetAlign(AlignModeX.LEFT, AlignModeY.TOP, beginner, 2, 16,
+        intermediate);
+    levelOptions = new OverlayOffsetAlign(AlignModeX.LEFT, AlignModeY.TOP, levelOptions, 1, 24,
+        expert);
+    endText = new OverlayOffsetImage(press, 50, 40, levelOptions);
+    return endText;
+  }
+
+  // draw a cell with its number of neighboring mines displayed
+  WorldImage drawSafe(int numNeighboringMines) {
+    return cellImages().safe[numNeighboringMines];
+  }
+
+  // method to draw the mine
+  WorldImage drawMine() {
+    return cellImages().mine;
+  }
+
+  // determine what type of tile to return
+  WorldImage drawVisibleCell(boolean isMine, int numNeighboringMines, boolean isFlag) {
+    if (isMine && !isFlag) {
+      return drawMine();
+    }
+    else {
+      return drawSafe(numNeighboringMines);
+    }
+  }
+
+  // drawing a hidden cell (not clicked)
+  WorldImage drawHiddenCell(boolean isFlag) {
+    return cellImages().cell(true, false, 0, isFlag);
+  }
+
+  // flag graphics
+  WorldImage drawFlag() {
+    return cellImages().flag;
+  }
+
+  // show the given game, as read back from a save, with the given timer and
+  // end-of-game state
+  void loadGame(MinesweeperGame game, int timer, boolean gameEnd) {
+    this.game = game;
+    game.keepHistory();
+    this.gridWidth = game.board.gridWidth;
+    this.gridHeight = game.board.gridHeight;
+    this.numMines = game.numMines;
+    this.timer = timer;
+    this.scheduler.startClock(timer);
+    this.gameEnd = gameEnd;
+    resetCamera();
+    this.dirtyCells.clear();
+  }
+
+  // start a new game of the given size in this world, with mines placed using
+  // the given seed. the game's board and cells are reused when the new game is
+  // the same size, and the new game goes on being recorded if moves are
+  void reset(int gridWidth, int gridHeight, int numMines, int seed) {
+    checkSize(gridWidth, gridHeight);
+    this.mineGen = new MineGenerator(gridWidth, gridHeight, numMines, seed);
+    this.game.restart(this.mineGen, this.deferMines);
+    startGame(seed);
+  }
+
+  // start a new game at the given index into LEVELS in this world. its mines
+  // come from the level's pool, unless they are laid out on the first click
+  void reset(int level) {
+    int[] size = LEVELS[level];
+    if (this.deferMines) {
+      reset(size[0], size[1], size[2], new Random().nextInt());
+      return;
+    }
+    if (this.boardPools[level] == null) {
+      this.boardPools[level] = new BoardPool(size[0], size[1], size[2], POOL_CAPACITY);
+    }
+    PooledLayout layout = this.boardPools[level].take();
+    this.mineGen = new MineGenerator(size[0], size[1], size[2], layout.seed);
+    this.game.restart(size[0], size[1], size[2], layout.mines);
+    startGame(layout.seed);
+  }
+
+  // set this world up for the game just started on 'game' from the given seed
+  void startGame(int seed) {
+    loadGame(this.game, 0, false);
+    if (this.moveLog != null) {
+      this.moveLog.newGame(this.gridWidth, this.gridHeight, this.numMines, seed);
+    }
+  }
+
+  // show the top left corner of the board at the closest zoom level. once the
+  // window is open, zoom out until the board fits in it, but no further than
+  // the smallest cell size drawn in detail
+  void resetCamera() {
+    int maxViewWidth = MAX_VIEW_WIDTH;
+    int maxViewHeight = MAX_VIEW_HEIGHT;
+    int level = 0;
+    if (this.windowWidth > 0) {
+      maxViewWidth = this.windowWidth;
+      maxViewHeight = this.windowHeight - HUD_HEIGHT;
+      while (Camera.ZOOM_LEVELS[level + 1] >= DETAIL_CELL_SIZE
+          && ((long) this.gridWidth * Camera.ZOOM_LEVELS[level] > maxViewWidth
+              || (long) this.gridHeight * Camera.ZOOM_LEVELS[level] > maxViewHeight)) {
+        level += 1;
+      }
+    }
+    this.camera = new Camera(this.gridWidth, this.gridHeight, Camera.ZOOM_LEVELS[level],
+        maxViewWidth, maxViewHeight);
+    this.cellWidth = this.camera.cellSize;
+    this.cellHeight = this.camera.cellSize;
+    this.scene = null;
+  }
+
+  // move the camera by the given number of pixels
+  void pan(int dx, int dy) {
+    int originX = this.camera.originX;
+    int originY = this.camera.originY;
+    this.camera.pan(dx, dy);
+    if (this.camera.originX != originX || this.camera.originY != originY) {
+      this.scene = null;
+    }
+  }
+
+  // zoom the camera in by the given number of zoom levels, or out if it is
+  // negative
+  void zoom(int steps) {
+    if (this.camera.zoom(steps)) {
+      this.cellWidth = this.camera.cellSize;
+      this.cellHeight = this.camera.cellSize;
+      this.scene = null;
+    }
+  }
+
+  // method for a left click
+  void updateCell(int colIndex, int rowIndex) {
+    // you can only click on a hidden cell if it is not flagged
+    GameMetrics.METRICS.reveal.begin();
+    int numRevealed = this.game.reveal(colIndex, rowIndex);
+    GameMetrics.METRICS.reveal.end();
+    GameMetrics.METRICS.recordCascade(numRevealed);
+    markRevealed(numRevealed);
+  }
+
+  // method for a chord (middle click)
+  void updateCellChord(int colIndex, int rowIndex) {
+    GameMetrics.METRICS.reveal.begin();
+    int numRevealed = this.game.chord(colIndex, rowIndex);
+    GameMetrics.METRICS.reveal.end();
+    GameMetrics.METRICS.recordCascade(numRevealed);
+    markRevealed(numRevealed);
+  }
+
+  // method for a right click
+  void updateCellFlag(int colIndex, int rowIndex) {
+    // you can only place as many flags as there are mines
+    if (this.game.toggleFlag(colIndex, rowIndex)) {
+      this.dirtyCells.set(this.game.board.index(colIndex, rowIndex));
+    }
+  }
+
+  // mark the cells the last move of the game uncovered to be redrawn
+  void markRevealed(int numRevealed) {
+    int[] revealed = this.game.board.revealed;
+    for (int i = 0; i < numRevealed; i++) {
+      this.dirtyCells.set(revealed[i]);
+    }
+  }
+
+  // take back the last move made on the board
+  void undo() {
+    recordMove(MoveLog.UNDO, 0, 0);
+    syncHistory(this.game.undo());
+  }
+
+  // make the last move undone again
+  void redo() {
+    recordMove(MoveLog.REDO, 0, 0);
+    syncHistory(this.game.redo());
+  }
+
+  // mark the cells the last undo or redo changed to be redrawn, and pick the
+  // game back up if it is no longer over
+  void syncHistory(int numChanged) {
+    int[] changed = this.game.history.changed;
+    for (int i = 0; i < numChanged; i++) {
+      this.dirtyCells.set(changed[i]);
+    }
+    if (this.gameEnd && !this.game.isOver()) {
+      this.scheduler.startClock(this.timer);
+    }
+    this.gameEnd = this.game.isOver();
+  }
+
+  // get the number of flags placed on the board
+  int numFlags() {
+    return this.game.board.countFlags();
+  }
+
+  // the number of neighboring mines to a cell
+  int numNeighboringMines(Cell cell) {
+    return cell.countNeighboringMines();
+  }
+
+  // the number of neighboring mines to the cell at the given column and row,
+  // looked up in the table counted when the board was created
+  int numNeighboringMines(int colIndex, int rowIndex) {
+    return this.game.board.adjacentMines(this.game.board.index(colIndex, rowIndex));
+  }
+
+  // redefine the inherited onTick method
+  public void onTick() {
+    GameMetrics.METRICS.onTick.begin();
+    // the timer follows the game clock, with a tick recorded for each second
+    // that has passed so that replays keep the same time
+    if (!this.gameEnd) {
+      int seconds = this.scheduler.clockSeconds();
+      while (this.timer < seconds) {
+        this.timer += 1;
+        recordMove(MoveLog.TICK, 0, 0);
+      }
+    }
+    // whatever moves were held back, and a new time, get drawn by this tick
+    if (sceneChanged()) {
+      this.scheduler.requestFrame();
+    }
+    GameMetrics.METRICS.onTick.end();
+  }
+
+  // add a move to the log, if moves are being recorded
+  void recordMove(int type, int colIndex, int rowIndex) {
+    if (this.moveLog != null) {
+      this.moveLog.append(type, colIndex, rowIndex);
+    }
+  }
+
+  // method to update game based off mouse click
+  public void onMouseClicked(Posn posn, String key) {
+    // clicks on the timer and flag count, or past the edge of a board
+    // zoomed out smaller than the viewport, don't land on a cell
+    if (!this.camera.overBoard(posn.x, posn.y)) {
+      return;
+    }
+    int colIndex = this.camera.colAt(posn.x);
+    int rowIndex = this.camera.rowAt(posn.y);
+    GameMetrics.METRICS.onMouseClicked.begin();
+
+    if (!this.gameEnd) {
+      // if user clicks to uncover a cell's contents
+      if ("LeftButton".equals(key)) {
+        recordMove(MoveLog.REVEAL, colIndex, rowIndex);
+        updateCell(colIndex, rowIndex);
+      }
+      // if user clicks to uncover the neighbors of a cell whose mines are flagged
+      else if ("MiddleButton".equals(key)) {
+        recordMove(MoveLog.CHORD, colIndex, rowIndex);
+        updateCellChord(colIndex, rowIndex);
+      }
+      // if user clicks to mark a cell with a flag
+      else if ("RightButton".equals(key)) {
+        recordMove(MoveLog.FLAG, colIndex, rowIndex);
+        updateCellFlag(colIndex, rowIndex);
+      }
+      // end the game if the user uncovers a mine or all cells that aren't mines
+      this.gameEnd = this.game.isOver();
+    }
+    GameMetrics.METRICS.onMouseClicked.end();
+  }
+
+  // redefine the inherited onKeyEvent
+  // method to handle mine count
+  public void onKeyEvent(String key) {
+    // the arrow keys pan around a board bigger than the window, and + and -
+    // zoom in and out
+    if (key.equals("left")) {
+      pan(-this.camera.viewWidth / 4, 0);
+    }
+    else if (key.equals("right")) {
+      pan(this.camera.viewWidth / 4, 0);
+    }
+    else if (key.equals("up")) {
+      pan(0, -this.camera.viewHeight / 4);
+    }
+    else if (key.equals("down")) {
+      pan(0, this.camera.viewHeight / 4);
+    }
+    else if (key.equals("+") || key.equals("=")) {
+      zoom(1);
+    }
+    else if (key.equals("-")) {
+      zoom(-1);
+    }
+    // u takes back the last move, even the one that ended the game, and r
+    // makes it again
+    else if (key.equals("u")) {
+      undo();
+    }
+    else if (key.equals("r")) {
+      redo();
+    }
+    // the next game is started in this window rather than a new one
+    if (this.gameEnd) {
+      // if user presses "b", make the difficulty "beginner"
+      if (key.equals("b")) {
+        reset(0);
+      }
+      // if user presses "i", make the difficulty "intermediate"
+      else if (key.equals("i")) {
+        reset(1);
+      }
+      // if user presses "e", make the difficulty "expert"
+      else if (key.equals("e")) {
+        reset(2);
+      }
+    }
+  }
+
+  // call bigbang to render the javalib code
+  public void playMinesweeper() {
+    GameMetrics.METRICS.install();
+    this.windowWidth = this.camera.viewWidth;
+    this.windowHeight = this.camera.viewHeight + HUD_HEIGHT;
+    this.scheduler.frameNanos = FRAME_NANOS;
+    this.bigBang(this.windowWidth, this.windowHeight, FRAME_SECONDS);
+  }
+}
+
+// example and test for the board
+class ExamplesBoard {
+  Board board;
+  // the time on the clock of boards whose scheduler reads it
+  long now;
+  Cell safe1;
+  Cell safe2;
+  Cell safe3;
+  Cell safe4;
+  Cell safe5;
+  Cell safe6;
+  Cell safe7;
+  Cell mine1;
+  Cell mine2;
+  ArrayList<ArrayList<Cell>> cells;
+  ArrayList<Cell> cellRow1;
+  ArrayList<Cell> cellRow2;
+  ArrayList<Cell> cellRow3;
+
+  // initialize variables
+  void init() {
+    board = new Board(3, 3, 2, 9, true);
+    now = 0;
+
+    /*
+     * 
+     * when random seed = 9, the above legacy board looks like the following image:
+     * 
+     * X O O O O O O O X
+     * 
+     * (X = mine, O = safe cell)
+     * 
+     */
+
+    mine1 = new Cell(true, true);
+    safe1 = new Cell(true, false);
+    safe2 = new Cell(true, false);
+
+    safe3 = new Cell(true, false);
+    safe4 = new Cell(true, false);
+    safe5 = new Cell(true, false);
+
+    safe6 = new Cell(true, false);
+    safe7 = new Cell(true, false);
+    mine2 = new Cell(true, true);
+
+    safe1.updateNeighbors(mine1);
+    safe2.updateNeighbors(safe1);
+
+    safe4.updateNeighbors(safe3);
+    safe5.updateNeighbors(safe4);
+
+    safe3.updateNeighbors(mine1);
+    safe3.updateNeighbors(safe1);
+    safe4.updateNeighbors(safe1);
+    safe4.updateNeighbors(mine1);
+    safe4.updateNeighbors(safe2);
+    safe5.updateNeighbors(safe2);
+    safe5.updateNeighbors(safe1);
+
+    safe7.updateNeighbors(safe6);
+    mine2.updateNeighbors(safe7);
+
+    safe6.updateNeighbors(safe3);
+    safe6.updateNeighbors(safe4);
+    safe7.updateNeighbors(safe4);
+    safe7.updateNeighbors(safe3);
+    safe7.updateNeighbors(safe5);
+    mine2.updateNeighbors(safe5);
+    mine2.updateNeighbors(safe4);
+
+    cellRow1 = new ArrayList<>();
+    cellRow1.add(mine1);
+    cellRow1.add(safe1);
+    cellRow1.add(safe2);
+
+    cellRow2 = new ArrayList<>();
+    cellRow2.add(safe3);
+    cellRow2.add(safe4);
+    cellRow2.add(safe5);
+
+    cellRow3 = new ArrayList<>();
+    cellRow3.add(safe6);
+    cellRow3.add(safe7);
+    cellRow3.add(mine2);
+
+    cells = new ArrayList<>();
+    cells.add(cellRow1);
+    cells.add(cellRow2);
+    cells.add(cellRow3);
+  }
+
+  // test the checkSize method
+  void testCheckSize(Tester t) {
+    init();
+
+    t.checkException("construct a board with invalid grid width",
+        new IllegalArgumentException("grid dimensions are too small"), this.board, "checkSize", 1,
+        0);
+    // test explanation given in above check exception
+
+    t.checkException("construct a board with invalid grid height",
+        new IllegalArgumentException("grid dimensions are too small"), this.board, "checkSize", 0,
+        1);
+    // test explanation given in above check exception
+
+    t.checkException("construct a board with invalid grid width/height",
+        new IllegalArgumentException("grid dimensions are too small"), this.board, "checkSize", 0,
+        0);
+    // test explanation given in above check exception
+  }
+
+  // test the countHiddenCells method
+  void testCountHiddenCells(Tester t) {
+    init();
+
+    t.checkExpect(this.board.countHiddenCells(), 9);
+    // (before mutation) all cells are hidden
+
+    this.board.onMouseClicked(new Posn(0, 0), "LeftButton");
+    t.checkExpect(this.board.countHiddenCells(), 8);
+    // (after mutation)
+    // after the user clicks a cell, 1 cell isn't hidden
+  }
+
+  // test the onMouseClicked method
+  void testOnMouseClicked(Tester t) {
+    init();
+
+    t.checkExpect(board.foundAllMines(), false);
+    // (before mutation) you clearly haven't found all mines if you just initialized
+    // the game board
+
+    this.board.onMouseClicked(new Posn(0, 50), "LeftButton");
+    this.board.onMouseClicked(new Posn(0, 100), "LeftButton");
+    this.board.onMouseClicked(new Posn(50, 0), "LeftButton");
+    this.board.onMouseClicked(new Posn(50, 50), "LeftButton");
+    this.board.onMouseClicked(new Posn(50, 100), "LeftButton");
+    this.board.onMouseClicked(new Posn(100, 50), "LeftButton");
+    this.board.onMouseClicked(new Posn(100, 0), "LeftButton");
+    t.checkExpect(this.board.foundAllMines(), true);
+    // (after mutation) when you click all the
+    // safe cells, you have found all the mines
+
+    init();
+    this.board.onMouseClicked(new Posn(0, 50), "LeftButton");
+    this.board.onMouseClicked(new Posn(0, 100), "LeftButton");
+    this.board.onMouseClicked(new Posn(50, 0), "LeftButton");
+    this.board.onMouseClicked(new Posn(50, 50), "LeftButton");
+    this.board.onMouseClicked(new Posn(50, 100), "LeftButton");
+    this.board.onMouseClicked(new Posn(100, 50), "LeftButton");
+    this.board.onMouseClicked(new Posn(0, 0), "LeftButton");
+    t.checkExpect(this.board.countHiddenCells(), 2);
+    t.checkExpect(this.board.foundAllMines(), false);
+    // uncovering a mine loses the game, even when as many cells are left
+    // hidden as there are mines
+  }
+
+  // test the num flags method
+  void testNumFlags(Tester t) {
+    init();
+
+    t.checkExpect(this.board.numFlags(), 0);
+    // testing before mutation
+
+    this.board.onMouseClicked(new Posn(0, 50), "RightButton");
+    t.checkExpect(this.board.numFlags(), 1);
+    // testing after mutation (ie, after the user places a flag)
+  }
+
+  // test the updateCellFlag method
+  void testUpdateCellFlag(Tester t) {
+    init();
+
+    t.checkExpect(this.board.numFlags(), 0);
+    // testing before mutation
+
+    this.board.updateCellFlag(1, 1);
+    t.checkExpect(this.board.numFlags(), 1);
+    // testing after mutation
+
+    this.board.updateCellFlag(1, 1);
+    t.checkExpect(this.board.numFlags(), 0);
+    // testing after reversing the mutation (ie, un-flagging a cell)
+  }
+
+  // test the createBoard method
+  void testCreateBoard(Tester t) {
+    init();
+
+    t.checkExpect(this.board.cellGrid(), this.cells);
+    // test that the createBoard method creates an array
+    // list representation of the expected game board
+  }
+
+  // test a board whose mines are laid out on the first left click
+  void testDeferredMines(Tester t) {
+    Board deferred = new Board(new MineGenerator(1000, 1000, 200000, 6), true);
+    t.checkExpect(deferred.cellGrid().size(), 0);
+    t.checkExpect(deferred.game.minesPlaced(), false);
+    // a huge board builds no cells and lays out no mines up front
+
+    deferred.onMouseClicked(new Posn(5, 5), "RightButton");
+    deferred.onMouseClicked(new Posn(120, 80), "LeftButton");
+    t.checkExpect(deferred.gameEnd, false);
+    t.checkExpect(deferred.numNeighboringMines(2, 1), 0);
+    t.checkExpect(deferred.cellGrid.size(), 0);
+    // moves are made on the packed board alone, without building cells
+
+    t.checkExpect(deferred.cellGrid().size(), 1000);
+    t.checkExpect(deferred.cellGrid().get(1).get(2).hidden, false);
+    t.checkExpect(deferred.cellGrid().get(0).get(0).flag, true);
+    t.checkExpect(deferred.game.board.mines,
+        new MineGenerator(1000, 1000, 200000, 6).makeMineLayout(2, 1));
+    // the first click can't hit a mine, and the cells are built when they
+    // are asked for, with the flags placed before it
+  }
+
+  // testing the method that takes a cell as an
+  // argument and returns the number of neighboring mines
+  void testNumNeighboringMines(Tester t) {
+    init();
+
+    t.checkExpect(this.board.numNeighboringMines(this.mine1), 0);
+    // testing on a mine
+
+    t.checkExpect(this.board.numNeighboringMines(this.safe1), 1);
+    // testing on a safe cell with one neighboring mine
+
+    t.checkExpect(this.board.numNeighboringMines(this.safe2), 0);
+    // testing on a safe cell with no neighboring mines
+
+    t.checkExpect(this.board.numNeighboringMines(this.safe4), 2);
+    // testing on a safe cell with >1 neighboring mines
+
+    t.checkExpect(this.board.numNeighboringMines(0, 0), 0);
+    t.checkExpect(this.board.numNeighboringMines(1, 0), 1);
+    t.checkExpect(this.board.numNeighboringMines(2, 0), 0);
+    t.checkExpect(this.board.numNeighboringMines(1, 1), 2);
+    // the same cells looked up by position in the board's table
+  }
+
+  // test that makeScene only redraws what changed since the last frame
+  void testMakeScene(Tester t) {
+    init();
+
+    WorldScene first = this.board.makeScene();
+    t.checkExpect(this.board.makeScene() == first, true);
+    t.checkExpect(this.board.scenePatches, 0);
+    // nothing changed, so the same scene is reused without drawing anything
+
+    this.board.scheduler = new RedrawScheduler(() -> this.now);
+    this.board.onTick();
+    this.board.makeScene();
+    t.checkExpect(this.board.scenePatches, 0);
+    this.now += RedrawScheduler.NANOS_PER_SECOND;
+    this.board.onTick();
+    t.checkExpect(this.board.timer, 1);
+    this.board.makeScene();
+    t.checkExpect(this.board.scenePatches, 2);
+    // the timer follows the clock, and a new time only redraws the timer
+
+    this.board.onMouseClicked(new Posn(50, 50), "LeftButton");
+    this.board.onMouseClicked(new Posn(0, 50), "RightButton");
+    t.checkExpect(this.board.dirtyCells.cardinality(), 2);
+    t.checkExpect(this.board.makeScene() == first, true);
+    t.checkExpect(this.board.scenePatches, 8);
+    t.checkExpect(this.board.dirtyCells.isEmpty(), true);
+    // a reveal and a flag redraw their two cells and the flag count
+
+    this.board.onMouseClicked(new Posn(0, 0), "LeftButton");
+    t.checkExpect(this.board.makeScene() == first, false);
+    t.checkExpect(this.board.scenePatches, 0);
+    // clicking a mine ends the game, which redraws the scene from scratch
+
+    this.board.incrementalScene = false;
+    t.checkExpect(this.board.makeScene() == this.board.makeScene(), false);
+    // with incremental drawing off every frame is drawn from scratch
+  }
+
+  // test holding back frames asked for in a burst of moves
+  void testFramePacing(Tester t) {
+    init();
+    this.board.scheduler = new RedrawScheduler(() -> this.now);
+    this.board.scheduler.frameNanos = Board.FRAME_NANOS;
+
+    WorldScene first = this.board.makeScene();
+    this.board.onMouseClicked(new Posn(50, 50), "LeftButton");
+    this.board.onMouseClicked(new Posn(0, 50), "RightButton");
+    t.checkExpect(this.board.makeScene() == first, true);
+    t.checkExpect(this.board.dirtyCells.cardinality(), 2);
+    t.checkExpect(this.board.scheduler.framesCoalesced, 1);
+    // moves right after a frame are held back from the scene
+
+    this.board.onTick();
+    this.board.makeScene();
+    t.checkExpect(this.board.dirtyCells.isEmpty(), true);
+    t.checkExpect(this.board.scenePatches, 6);
+    // the next tick draws them together
+
+    this.board.onMouseClicked(new Posn(0, 50), "RightButton");
+    this.now += Board.FRAME_NANOS;
+    this.board.makeScene();
+    t.checkExpect(this.board.dirtyCells.isEmpty(), true);
+    // a move after a quiet spell is drawn right away
+
+    int patches = this.board.scenePatches;
+    WorldScene idle = this.board.makeScene();
+    this.board.onTick();
+    t.checkExpect(this.board.scheduler.frameRequested, false);
+    this.now += Board.FRAME_NANOS;
+    t.checkExpect(this.board.makeScene() == idle, true);
+    t.checkExpect(this.board.scenePatches, patches);
+    t.checkExpect(this.board.scheduler.framesCoalesced, 1);
+    // ticks with nothing to draw don't ask for a frame, and the last frame is
+    // shown again without patching anything
+
+    this.board.onMouseClicked(new Posn(0, 50), "RightButton");
+    this.board.makeScene();
+    this.board.onMouseClicked(new Posn(0, 50), "RightButton");
+    this.board.makeScene();
+    t.checkExpect(this.board.dirtyCells.isEmpty(), false);
+    this.board.onTick();
+    t.checkExpect(this.board.scheduler.frameRequested, true);
+    this.board.makeScene();
+    t.checkExpect(this.board.dirtyCells.isEmpty(), true);
+    // a tick after a move held back still asks for its frame
+  }
+
+  // test panning and zooming around a board bigger than the window
+  void testCamera(Tester t) {
+    Board large = new Board(new MineGenerator(200, 200, 4000, 3), true);
+    t.checkExpect(large.camera.viewWidth, Board.MAX_VIEW_WIDTH);
+    t.checkExpect(large.camera.viewHeight, Board.MAX_VIEW_HEIGHT);
+    // the window only shows part of a large board
+
+    large.onMouseClicked(new Posn(100, Board.MAX_VIEW_HEIGHT + 10), "RightButton");
+    t.checkExpect(large.numFlags(), 0);
+    // clicks on the timer and flag count don't land on a cell
+
+    WorldScene first = large.makeScene();
+    large.onKeyEvent("right");
+    large.onKeyEvent("down");
+    t.checkExpect(large.camera.originX, Board.MAX_VIEW_WIDTH / 4);
+    t.checkExpect(large.camera.originY, Board.MAX_VIEW_HEIGHT / 4);
+    t.checkExpect(large.makeScene() == first, false);
+    // panning moves the camera and draws the new view from scratch
+
+    large.onMouseClicked(new Posn(10, 10), "RightButton");
+    t.checkExpect(large.game.isFlagged(8, 4), true);
+    // clicks are mapped through the camera to the cell under them
+
+    large.onKeyEvent("-");
+    large.onKeyEvent("-");
+    large.onKeyEvent("-");
+    large.onKeyEvent("-");
+    large.onKeyEvent("-");
+    t.checkExpect(large.cellWidth, 16);
+    t.checkExpect(large.cellWidth < Board.DETAIL_CELL_SIZE, true);
+    t.checkExpect(large.overviewColor(large.game.board.index(8, 4)), Board.OVERVIEW_FLAG_COLOR);
+    t.checkExpect(large.overviewColor(large.game.board.index(9, 4)), Board.OVERVIEW_HIDDEN_COLOR);
+    large.makeScene();
+    // zoomed out, the cells are drawn as flat colors
+
+    large.onMouseClicked(new Posn(5, 5), "RightButton");
+    int col = large.camera.colAt(5);
+    int row = large.camera.rowAt(5);
+    t.checkExpect(large.game.isFlagged(col, row), true);
+    t.checkExpect(large.dirtyCells.get(large.game.board.index(col, row)), true);
+    large.makeScene();
+    t.checkExpect(large.dirtyCells.isEmpty(), true);
+    // moves made zoomed out are patched into the scene like any other
+  }
+
+  // test starting a new game in the same world
+  void testReset(Tester t) {
+    Board board = new Board(8, 8, 10, 3);
+    PackedBoard packed = board.game.board;
+    Cell corner = board.cellGrid().get(0).get(0);
+    board.onMouseClicked(new Posn(10, 10), "RightButton");
+    board.onTick();
+    board.gameEnd = true;
+    board.reset(8, 8, 10, 4);
+    t.checkExpect(board.game.board == packed, true);
+    t.checkExpect(board.cellGrid().get(0).get(0) == corner, true);
+    t.checkExpect(board.cellGrid(), new Board(8, 8, 10, 4).cellGrid());
+    t.checkExpect(board.game.board.mines, new MineGenerator(8, 8, 10, 4).makeMineLayout());
+    t.checkExpect(board.timer, 0);
+    t.checkExpect(board.gameEnd, false);
+    t.checkExpect(board.numFlags(), 0);
+    // a game of the same size reuses the board and its cells
+
+    MoveLog log = new MoveLog();
+    Board recorded = new Board(8, 8, 10, 1, log);
+    recorded.windowWidth = 400;
+    recorded.windowHeight = 400 + Board.HUD_HEIGHT;
+    recorded.onKeyEvent("e");
+    t.checkExpect(recorded.gridWidth, 8);
+    // a level can only be picked once the game is over
+
+    recorded.gameEnd = true;
+    recorded.onKeyEvent("e");
+    t.checkExpect(recorded.gridWidth, 30);
+    t.checkExpect(recorded.game.board.mines.cardinality(), 99);
+    t.checkExpect(recorded.cellGrid().size(), 16);
+    t.checkExpect(recorded.camera.cellSize, Board.DETAIL_CELL_SIZE);
+    t.checkExpect(recorded.camera.viewWidth, 400);
+    t.checkExpect(recorded.camera.viewHeight, 16 * Board.DETAIL_CELL_SIZE);
+    // the expert board is zoomed out to fit the beginner window as far as it
+    // can be while still drawn in detail, and panned around for the rest
+
+    GameReplay replay = new GameReplay(log);
+    replay.seekToEnd();
+    t.checkExpect(replay.game.board.mines, recorded.game.board.mines);
+    // the pooled board goes on being recorded with its seed
+  }
+
+  // test undoing and redoing moves on the board
+  void testUndo(Tester t) {
+    MoveLog log = new MoveLog();
+    Board board = new Board(16, 16, 40, 12, log);
+    int mine = board.game.board.mines.nextSetBit(0);
+    int safe = 0;
+    while (board.game.board.isMine(safe)) {
+      safe += 1;
+    }
+    int col = board.game.board.colOf(safe);
+    int row = board.game.board.rowOf(safe);
+    board.onMouseClicked(new Posn(col * 50 + 5, row * 50 + 5), "LeftButton");
+    board.onMouseClicked(new Posn(5, 5 + 50 * 15), "RightButton");
+    board.makeScene();
+    board.onKeyEvent("u");
+    board.onKeyEvent("u");
+    t.checkExpect(board.cellGrid().get(row).get(col).hidden, true);
+    t.checkExpect(board.game.board.countHidden(), 256);
+    t.checkExpect(board.numFlags(), 0);
+    t.checkExpect(board.dirtyCells.get(safe), true);
+    // undoing covers the cells and takes the flag off, in the cells too
+
+    board.onKeyEvent("r");
+    t.checkExpect(board.cellGrid().get(row).get(col).hidden, false);
+    board.onMouseClicked(new Posn(board.game.board.colOf(mine) * 50 + 5,
+        board.game.board.rowOf(mine) * 50 + 5), "LeftButton");
+    t.checkExpect(board.gameEnd, true);
+    board.onKeyEvent("u");
+    t.checkExpect(board.gameEnd, false);
+    t.checkExpect(board.game.board.isHidden(mine), true);
+    // the move that lost the game can be taken back, and the game goes on
+
+    GameReplay replay = new GameReplay(log, 2);
+    replay.seekToEnd();
+    t.checkExpect(replay.game.board.hidden, board.game.board.hidden);
+    t.checkExpect(replay.game.board.flags, board.game.board.flags);
+    t.checkExpect(replay.gameEnd, false);
+    replay.seek(3);
+    replay.seekToEnd();
+    t.checkExpect(replay.game.board.hidden, board.game.board.hidden);
+    // undos and redos are recorded, and replay the same from a snapshot
+  }
+
+  // test the makeScene method constructs the expected world scene during bigBang
+  void testPlayGame(Tester t) {
+    int gridWidth = 4;
+    int gridHeight = 4;
+    int numMines = 2;
+    // Note: unused t method argument exists to conform to tester.Main API
+    new Board(gridWidth, gridHeight, numMines).playMinesweeper();
+    // display the game board to ensure that it looks correct
+  }
+}
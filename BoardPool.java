@@ -0,0 +1,56 @@
+import tester.*;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+// mine layouts for one board size, generated in the background so that
+// starting a new game doesn't wait for one. layouts are the same as
+// MineGenerator gives for their seeds, so a game started from one is the
+// same as a board built with that seed
+class BoardPool extends LayoutPool {
+
+  // construct a pool that keeps up to 'capacity' layouts ready, generated on
+  // the given pool from seeds drawn from 'seeds'
+  BoardPool(int gridWidth, int gridHeight, int numMines, int capacity, Random seeds,
+      ForkJoinPool pool) {
+    super(seed -> new MineGenerator(gridWidth, gridHeight, numMines, seed).makeMineLayout(),
+        seeds::nextInt, capacity, pool);
+    if (gridWidth < 1 || gridHeight < 1) {
+      throw new IllegalArgumentException("grid dimensions are too small");
+    }
+    fill();
+  }
+
+  // construct a pool that generates on the common pool from random seeds
+  BoardPool(int gridWidth, int gridHeight, int numMines, int capacity) {
+    this(gridWidth, gridHeight, numMines, capacity, new Random(), ForkJoinPool.commonPool());
+  }
+}
+
+// examples for board pools
+class ExamplesBoardPool {
+
+  // test that pooled layouts are the ones their seeds give
+  void testTake(Tester t) {
+    BoardPool pool = new BoardPool(16, 16, 40, 3, new Random(5), ForkJoinPool.commonPool());
+    PooledLayout layout = pool.take();
+    t.checkExpect(layout.mines, new MineGenerator(16, 16, 40, layout.seed).makeMineLayout());
+    t.checkExpect(layout.mines.cardinality(), 40);
+    // a layout is the same as the board built from its seed
+
+    t.checkExpect(pool.take().seed == layout.seed, false);
+    // every layout has a seed of its own
+  }
+
+  // test that taking from an empty pool still gives a layout
+  void testTakeEmpty(Tester t) {
+    BoardPool pool = new BoardPool(8, 8, 10, 1, new Random(2), ForkJoinPool.commonPool());
+    pool.ready.clear();
+    PooledLayout layout = pool.take();
+    t.checkExpect(layout.mines, new MineGenerator(8, 8, 10, layout.seed).makeMineLayout());
+    // a layout is generated right away when none is ready
+
+    t.checkConstructorException("construct a pool for invalid grid dimensions",
+        new IllegalArgumentException("grid dimensions are too small"), "BoardPool", 0, 8, 10, 1);
+    // the pool can only be constructed for boards of a possible size
+  }
+}
@@ -0,0 +1,277 @@
+import tester.*;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import javalib.worldimages.*;
+
+// draws a board straight into a BufferedImage, for dumps of boards far too
+// big to draw as a scene. each kind of cell is drawn once with javalib into a
+// sprite, and the board is split into tiles that copy the sprites' pixels
+// into place in parallel. a cell image only reaches past its own cell with
+// the right and bottom edges of its outline, which the next cell draws over
+// with its own outline, so copying each cell's sprite into its cell gives the
+// same pixels as javalib drawing the cells one after another
+class BoardRasterizer {
+  // the sprites, in the order CellImages keeps its images
+  static final int HIDDEN = 0;
+  static final int HIDDEN_FLAG = 1;
+  static final int MINE = 2;
+  static final int SAFE = 3;
+  // the side of a tile, in cells
+  static final int TILE_CELLS = 32;
+
+  PackedBoard board;
+  int cellSize;
+  // the pixels of each sprite, row by row, drawn over the board's color
+  int[][] sprites;
+  ForkJoinPool pool;
+
+  // construct a rasterizer that draws the given board with the given images,
+  // on the given pool
+  BoardRasterizer(PackedBoard board, CellImages images, ForkJoinPool pool) {
+    if (images.cellWidth != images.cellHeight) {
+      throw new IllegalArgumentException("cells have to be square");
+    }
+    this.board = board;
+    this.cellSize = images.cellWidth;
+    this.pool = pool;
+    this.sprites = new int[SAFE + 9][];
+    this.sprites[HIDDEN] = drawSprite(images.hidden, this.cellSize);
+    this.sprites[HIDDEN_FLAG] = drawSprite(images.hiddenFlag, this.cellSize);
+    this.sprites[MINE] = drawSprite(images.mine, this.cellSize);
+    for (int numNeighboringMines = 0; numNeighboringMines <= 8; numNeighboringMines++) {
+      this.sprites[SAFE + numNeighboringMines] = drawSprite(images.safe[numNeighboringMines],
+          this.cellSize);
+    }
+  }
+
+  // construct a rasterizer that draws the given board's game at the board's
+  // cell size, on the common pool
+  BoardRasterizer(Board board) {
+    this(board.game.board, board.cellImages(), ForkJoinPool.commonPool());
+  }
+
+  // draw the given image the way javalib draws it in the middle of a cell,
+  // and return the cell's pixels
+  static int[] drawSprite(WorldImage image, int cellSize) {
+    BufferedImage sprite = new BufferedImage(cellSize, cellSize, BufferedImage.TYPE_INT_ARGB);
+    Graphics2D g = sprite.createGraphics();
+    setHints(g);
+    g.setColor(Board.BOARD_COLOR);
+    g.fillRect(0, 0, cellSize, cellSize);
+    g.translate(cellSize / 2, cellSize / 2);
+    image.draw(g);
+    g.dispose();
+    return ((DataBufferInt) sprite.getRaster().getDataBuffer()).getData();
+  }
+
+  // draw with the antialiasing javalib's canvas draws with
+  static void setHints(Graphics2D g) {
+    g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+  }
+
+  // the sprite of the cell at the given index, chosen the way CellImages.cell
+  // chooses its image
+  int spriteOf(int index) {
+    if (this.board.isHidden(index)) {
+      if (this.board.isFlagged(index)) {
+        return HIDDEN_FLAG;
+      }
+      else {
+        return HIDDEN;
+      }
+    }
+    else if (this.board.isMine(index) && !this.board.isFlagged(index)) {
+      return MINE;
+    }
+    else {
+      return SAFE + this.board.adjacentMines(index);
+    }
+  }
+
+  // draw the whole board
+  BufferedImage render() {
+    return render(0, 0, this.board.gridWidth, this.board.gridHeight);
+  }
+
+  // draw the 'numCols' by 'numRows' cells from the given column and row, so
+  // that a board too big for one image can be dumped in pieces
+  BufferedImage render(int firstCol, int firstRow, int numCols, int numRows) {
+    if (firstCol < 0 || firstRow < 0 || numCols < 1 || numRows < 1
+        || firstCol + numCols > this.board.gridWidth
+        || firstRow + numRows > this.board.gridHeight) {
+      throw new IllegalArgumentException("the cells aren't all on the board");
+    }
+    if ((long) numCols * numRows * this.cellSize * this.cellSize > Integer.MAX_VALUE - 8) {
+      throw new IllegalArgumentException("the image is too large");
+    }
+    BufferedImage image = new BufferedImage(numCols * this.cellSize, numRows * this.cellSize,
+        BufferedImage.TYPE_INT_ARGB);
+    int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+    int tileCols = (numCols + TILE_CELLS - 1) / TILE_CELLS;
+    int tileRows = (numRows + TILE_CELLS - 1) / TILE_CELLS;
+    this.pool.invoke(new RasterTask(this, pixels, firstCol, firstRow, numCols, numRows, tileCols,
+        0, tileCols * tileRows));
+    return image;
+  }
+
+  // copy the sprites of one tile's cells into 'pixels', the image of the
+  // 'numCols' by 'numRows' cells from 'firstCol' and 'firstRow'. tiles are
+  // numbered row by row, 'tileCols' to a row
+  void drawTile(int[] pixels, int firstCol, int firstRow, int numCols, int numRows, int tileCols,
+      int tile) {
+    int imageWidth = numCols * this.cellSize;
+    int fromCol = tile % tileCols * TILE_CELLS;
+    int fromRow = tile / tileCols * TILE_CELLS;
+    int toCol = Math.min(numCols, fromCol + TILE_CELLS);
+    int toRow = Math.min(numRows, fromRow + TILE_CELLS);
+    for (int row = fromRow; row < toRow; row++) {
+      for (int col = fromCol; col < toCol; col++) {
+        int[] sprite = this.sprites[spriteOf(this.board.index(firstCol + col, firstRow + row))];
+        int offset = row * this.cellSize * imageWidth + col * this.cellSize;
+        for (int y = 0; y < this.cellSize; y++) {
+          System.arraycopy(sprite, y * this.cellSize, pixels, offset + y * imageWidth,
+              this.cellSize);
+        }
+      }
+    }
+  }
+}
+
+// draws the tiles tiles[from] to tiles[to - 1] of a rasterizer's image,
+// splitting them in half until there are few enough to draw on one thread
+class RasterTask extends RecursiveAction {
+  private static final long serialVersionUID = 1L;
+  // the number of tiles a task draws without splitting
+  static final int CHUNK_TILES = 4;
+
+  BoardRasterizer rasterizer;
+  int[] pixels;
+  int firstCol;
+  int firstRow;
+  int numCols;
+  int numRows;
+  int tileCols;
+  int from;
+  int to;
+
+  // construct a task for part of the tiles of an image
+  RasterTask(BoardRasterizer rasterizer, int[] pixels, int firstCol, int firstRow, int numCols,
+      int numRows, int tileCols, int from, int to) {
+    this.rasterizer = rasterizer;
+    this.pixels = pixels;
+    this.firstCol = firstCol;
+    this.firstRow = firstRow;
+    this.numCols = numCols;
+    this.numRows = numRows;
+    this.tileCols = tileCols;
+    this.from = from;
+    this.to = to;
+  }
+
+  // draw the tiles
+  protected void compute() {
+    if (this.to - this.from <= CHUNK_TILES) {
+      for (int tile = this.from; tile < this.to; tile++) {
+        this.rasterizer.drawTile(this.pixels, this.firstCol, this.firstRow, this.numCols,
+            this.numRows, this.tileCols, tile);
+      }
+      return;
+    }
+    int middle = (this.from + this.to) >>> 1;
+    invokeAll(
+        new RasterTask(this.rasterizer, this.pixels, this.firstCol, this.firstRow, this.numCols,
+            this.numRows, this.tileCols, this.from, middle),
+        new RasterTask(this.rasterizer, this.pixels, this.firstCol, this.firstRow, this.numCols,
+            this.numRows, this.tileCols, middle, this.to));
+  }
+}
+
+// examples for drawing boards into images
+class ExamplesBoardRasterizer {
+
+  // draw the given cells of a board one image after another with javalib, the
+  // way a scene of the board is drawn
+  BufferedImage drawCells(Board board, int firstCol, int firstRow, int numCols, int numRows) {
+    BufferedImage image = new BufferedImage(numCols * board.cellWidth,
+        numRows * board.cellHeight, BufferedImage.TYPE_INT_ARGB);
+    Graphics2D g = image.createGraphics();
+    BoardRasterizer.setHints(g);
+    g.setColor(Board.BOARD_COLOR);
+    g.fillRect(0, 0, image.getWidth(), image.getHeight());
+    for (int row = 0; row < numRows; row++) {
+      for (int col = 0; col < numCols; col++) {
+        Graphics2D cell = (Graphics2D) g.create();
+        cell.translate(col * board.cellWidth + board.cellWidth / 2,
+            row * board.cellHeight + board.cellHeight / 2);
+        board.drawCell(firstCol + col, firstRow + row).draw(cell);
+        cell.dispose();
+      }
+    }
+    g.dispose();
+    return image;
+  }
+
+  // the pixels of an image
+  int[] pixels(BufferedImage image) {
+    return image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth());
+  }
+
+  // a board with every kind of cell on it
+  Board playedBoard() {
+    Board board = new Board(40, 37, 200, 8);
+    for (int i = 0; i < 40 * 37; i += 7) {
+      int col = i % 40;
+      int row = i / 40;
+      if (board.game.isMine(col, row)) {
+        board.updateCellFlag(col, row);
+      }
+      else {
+        board.updateCell(col, row);
+      }
+    }
+    board.game.board.hidden.clear(0);
+    board.game.board.flags.set(1);
+    return board;
+  }
+
+  // test that the image matches drawing the cells with javalib
+  void testRender(Tester t) {
+    Board board = playedBoard();
+    ForkJoinPool pool = new ForkJoinPool(3);
+    BoardRasterizer rasterizer = new BoardRasterizer(board.game.board, board.cellImages(), pool);
+    BufferedImage image = rasterizer.render();
+    t.checkExpect(image.getWidth(), 40 * 50);
+    t.checkExpect(image.getHeight(), 37 * 50);
+    t.checkExpect(pixels(image), pixels(drawCells(board, 0, 0, 40, 37)));
+    // the tiles, including the partial ones at the edges, draw the same
+    // pixels as javalib
+
+    t.checkExpect(pixels(rasterizer.render(5, 30, 33, 7)),
+        pixels(drawCells(board, 5, 30, 33, 7)));
+    pool.shutdown();
+    // part of the board can be drawn on its own
+  }
+
+  // test drawing zoomed out boards and bad arguments
+  void testRenderSmall(Tester t) {
+    Board board = playedBoard();
+    board.zoom(-4);
+    t.checkExpect(pixels(new BoardRasterizer(board).render()),
+        pixels(drawCells(board, 0, 0, 40, 37)));
+    // cells are drawn at the board's cell size
+
+    BoardRasterizer rasterizer = new BoardRasterizer(board);
+    t.checkException("draw cells past the edge of the board",
+        new IllegalArgumentException("the cells aren't all on the board"), rasterizer, "render",
+        30, 0, 11, 1);
+    BoardRasterizer huge = new BoardRasterizer(new PackedBoard(2000, 2000),
+        playedBoard().cellImages(), ForkJoinPool.commonPool());
+    t.checkException("draw a board too big for one image",
+        new IllegalArgumentException("the image is too large"), huge, "render");
+    // the cells have to be on the board and fit in one image
+  }
+}
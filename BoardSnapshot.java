@@ -0,0 +1,486 @@
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.zip.DataFormatException;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import javalib.worldimages.*;
+import tester.*;
+
+// a saved game, read back from a file.
+//
+// a save starts with a header page. all numbers are little-endian:
+//
+//   offset  size  field
+//   0       4     MAGIC
+//   4       4     VERSION
+//   8       4     options, COMPRESSED when the planes are compressed
+//   12      4     gridWidth
+//   16      4     gridHeight
+//   20      4     numMines
+//   24      4     timer
+//   28      1     gameEnd
+//   29      1     whether the mines are laid out yet
+//   32      8     the bytes in each plane, (cells + 7) / 8
+//   40      8     the bytes in the compressed section, or 0
+//   48      4     the seed the mines are laid out from, when they aren't yet
+//
+// the mine, hidden and flag planes follow, one bit per cell: cell i is bit
+// i % 8 of byte i / 8, the order BitSet.toByteArray uses. uncompressed, each
+// plane starts on a page boundary, so a save can rewrite single pages of it
+// and a load can map it straight from the file. compressed, the header page is
+// followed by one deflate stream holding the three planes back to back.
+class BoardSnapshot {
+  // "MSWP" read as a little-endian int
+  static final int MAGIC = 0x5057534D;
+  static final int VERSION = 1;
+  static final int COMPRESSED = 1;
+  static final int PAGE_BYTES = 4096;
+  static final int HEADER_BYTES = 52;
+
+  int gridWidth;
+  int gridHeight;
+  int numMines;
+  int timer;
+  boolean gameEnd;
+  boolean minesPlaced;
+  // the seed of the generator that lays the mines out on the first reveal,
+  // when they aren't laid out yet
+  int seed;
+  // the planes, mapped from the file when it isn't compressed
+  ByteBuffer minePlane;
+  ByteBuffer hiddenPlane;
+  ByteBuffer flagPlane;
+
+  // construct a snapshot of the given state
+  BoardSnapshot(int gridWidth, int gridHeight, int numMines, int timer, boolean gameEnd,
+      boolean minesPlaced, int seed, ByteBuffer minePlane, ByteBuffer hiddenPlane,
+      ByteBuffer flagPlane) {
+    this.gridWidth = gridWidth;
+    this.gridHeight = gridHeight;
+    this.numMines = numMines;
+    this.timer = timer;
+    this.gameEnd = gameEnd;
+    this.minesPlaced = minesPlaced;
+    this.seed = seed;
+    this.minePlane = minePlane;
+    this.hiddenPlane = hiddenPlane;
+    this.flagPlane = flagPlane;
+  }
+
+  // the bytes in one plane of a board with the given number of cells
+  static long planeBytes(long cells) {
+    return (cells + 7) / 8;
+  }
+
+  // the given number of bytes rounded up to whole pages
+  static long pageAlign(long bytes) {
+    return (bytes + PAGE_BYTES - 1) / PAGE_BYTES * PAGE_BYTES;
+  }
+
+  // where the given plane (0 for mines, 1 for hidden, 2 for flags) starts in
+  // an uncompressed save
+  static long planeOffset(int plane, long planeBytes) {
+    return PAGE_BYTES + plane * pageAlign(planeBytes);
+  }
+
+  // the length of an uncompressed save
+  static long fileBytes(long planeBytes) {
+    return planeOffset(3, planeBytes);
+  }
+
+  // write the header of a save of the given board. a game whose mines aren't
+  // laid out yet carries on from a new seed drawn from its generator, and the
+  // seed is saved, so the loaded game lays its mines out the same way
+  static void writeHeader(ByteBuffer out, Board board, int options, long compressedBytes) {
+    int seed = 0;
+    if (!board.game.minesPlaced()) {
+      seed = board.game.pendingMines.reseed();
+    }
+    out.order(ByteOrder.LITTLE_ENDIAN);
+    out.putInt(0, MAGIC);
+    out.putInt(4, VERSION);
+    out.putInt(8, options);
+    out.putInt(12, board.gridWidth);
+    out.putInt(16, board.gridHeight);
+    out.putInt(20, board.numMines);
+    out.putInt(24, board.timer);
+    out.put(28, (byte) (board.gameEnd ? 1 : 0));
+    out.put(29, (byte) (board.game.minesPlaced() ? 1 : 0));
+    out.putShort(30, (short) 0);
+    out.putLong(32, planeBytes(board.game.board.size()));
+    out.putLong(40, compressedBytes);
+    out.putInt(48, seed);
+  }
+
+  // read back the save at the given path. an uncompressed save is mapped
+  // rather than read, so the planes aren't copied onto the heap until the
+  // game is rebuilt from them. a save that doesn't hold what its header says
+  // it does throws an IOException
+  static BoardSnapshot load(Path path) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      if (channel.size() > Integer.MAX_VALUE) {
+        throw new IOException("the saved game is corrupt");
+      }
+      // a mapping stays valid once its channel is closed
+      MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      map.order(ByteOrder.LITTLE_ENDIAN);
+      if (map.capacity() < HEADER_BYTES || map.getInt(0) != MAGIC) {
+        throw new IOException("not a saved minesweeper game");
+      }
+      if (map.getInt(4) != VERSION) {
+        throw new IOException("unsupported save version " + map.getInt(4));
+      }
+      int options = map.getInt(8);
+      int gridWidth = map.getInt(12);
+      int gridHeight = map.getInt(16);
+      long planeBytes = map.getLong(32);
+      // cells are indexed by int, which also keeps every plane offset in range
+      if (gridWidth < 1 || gridHeight < 1
+          || (long) gridWidth * gridHeight > Integer.MAX_VALUE
+          || planeBytes != planeBytes((long) gridWidth * gridHeight)) {
+        throw new IOException("the saved game is corrupt");
+      }
+
+      ByteBuffer planes;
+      long[] offsets;
+      if ((options & COMPRESSED) != 0) {
+        long compressedBytes = map.getLong(40);
+        if (compressedBytes < 0 || map.capacity() < PAGE_BYTES + compressedBytes) {
+          throw new IOException("the saved game is corrupt");
+        }
+        planes = inflate(map.slice(PAGE_BYTES, (int) compressedBytes), 3 * planeBytes);
+        offsets = new long[] { 0, planeBytes, 2 * planeBytes };
+      }
+      else {
+        if (map.capacity() < fileBytes(planeBytes)) {
+          throw new IOException("the saved game is corrupt");
+        }
+        planes = map;
+        offsets = new long[] { planeOffset(0, planeBytes), planeOffset(1, planeBytes),
+            planeOffset(2, planeBytes) };
+      }
+      return new BoardSnapshot(gridWidth, gridHeight, map.getInt(20), map.getInt(24),
+          map.get(28) != 0, map.get(29) != 0, map.getInt(48),
+          planes.slice((int) offsets[0], (int) planeBytes),
+          planes.slice((int) offsets[1], (int) planeBytes),
+          planes.slice((int) offsets[2], (int) planeBytes));
+    }
+  }
+
+  // decompress the given deflate stream, which should hold 'length' bytes
+  static ByteBuffer inflate(ByteBuffer compressed, long length) throws IOException {
+    Inflater inflater = new Inflater();
+    inflater.setInput(compressed);
+    ByteBuffer out = ByteBuffer.allocate((int) length);
+    try {
+      while (out.hasRemaining() && !inflater.finished()) {
+        if (inflater.inflate(out) == 0 && inflater.needsInput()) {
+          break;
+        }
+      }
+    }
+    catch (DataFormatException e) {
+      throw new IOException("the saved game is corrupt", e);
+    }
+    finally {
+      inflater.end();
+    }
+    if (out.hasRemaining()) {
+      throw new IOException("the saved game is corrupt");
+    }
+    out.flip();
+    return out;
+  }
+
+  // save the given board to the given path with its planes compressed. a
+  // compressed save is smaller, but has to be written and read whole
+  static void saveCompressed(Board board, Path path) throws IOException {
+    PackedBoard packed = board.game.board;
+    int planeBytes = (int) planeBytes(packed.size());
+    ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+    try (DeflaterOutputStream out = new DeflaterOutputStream(compressed)) {
+      out.write(Arrays.copyOf(packed.mines.toByteArray(), planeBytes));
+      out.write(Arrays.copyOf(packed.hidden.toByteArray(), planeBytes));
+      out.write(Arrays.copyOf(packed.flags.toByteArray(), planeBytes));
+    }
+    ByteBuffer header = ByteBuffer.allocate(PAGE_BYTES);
+    writeHeader(header, board, COMPRESSED, compressed.size());
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      channel.write(header);
+      channel.write(ByteBuffer.wrap(compressed.toByteArray()));
+    }
+  }
+
+  // is the given bit of the given plane set?
+  static boolean bit(ByteBuffer plane, int index) {
+    return (plane.get(index >>> 3) >> (index & 7) & 1) == 1;
+  }
+
+  // is the given cell a mine?
+  boolean isMine(int index) {
+    return bit(this.minePlane, index);
+  }
+
+  // is the given cell hidden?
+  boolean isHidden(int index) {
+    return bit(this.hiddenPlane, index);
+  }
+
+  // is the given cell flagged?
+  boolean isFlagged(int index) {
+    return bit(this.flagPlane, index);
+  }
+
+  // rebuild the saved game
+  MinesweeperGame toGame() {
+    MineGenerator mineGen = new MineGenerator(this.gridWidth, this.gridHeight, this.numMines,
+        this.seed);
+    MinesweeperGame game = new MinesweeperGame(mineGen, true);
+    MineGenerator pendingMines = null;
+    if (!this.minesPlaced) {
+      pendingMines = mineGen;
+    }
+    game.restore(this.gridWidth, this.gridHeight, this.numMines, BitSet.valueOf(this.minePlane),
+        BitSet.valueOf(this.hiddenPlane), BitSet.valueOf(this.flagPlane), pendingMines);
+    return game;
+  }
+
+  // rebuild the saved board, timer and all
+  Board toBoard() {
+    Board board = new Board(
+        new MineGenerator(this.gridWidth, this.gridHeight, this.numMines, this.seed), true);
+    board.loadGame(toGame(), this.timer, this.gameEnd);
+    return board;
+  }
+}
+
+// examples for saving and loading games
+class ExamplesBoardSnapshot {
+
+  // a temporary file that is removed when the tests finish
+  Path tempFile() {
+    try {
+      Path path = Files.createTempFile("minesweeper", ".save");
+      path.toFile().deleteOnExit();
+      return path;
+    }
+    catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  // a board part way through a game, drawn in the comment below
+  Board midGame() {
+    Board board = new Board(3, 3, 2, 9, true);
+    board.onMouseClicked(new Posn(50, 0), "LeftButton");
+    board.onMouseClicked(new Posn(100, 100), "RightButton");
+    board.timer = 12;
+    return board;
+  }
+
+  // test saving a game and loading it back
+  void testRoundTrip(Tester t) throws IOException {
+    // X 1 ?
+    // ? ? ?
+    // ? ? F
+    //
+    // (X = mine, F = flagged mine, 1 = uncovered, ? = hidden)
+    Board board = midGame();
+    Path path = tempFile();
+    try (SnapshotFile file = new SnapshotFile(path)) {
+      file.save(board);
+    }
+    t.checkExpect(Files.size(path), 4L * BoardSnapshot.PAGE_BYTES);
+    // a header page and one page for each plane
+
+    BoardSnapshot snapshot = BoardSnapshot.load(path);
+    t.checkExpect(snapshot.gridWidth, 3);
+    t.checkExpect(snapshot.numMines, 2);
+    t.checkExpect(snapshot.timer, 12);
+    t.checkExpect(snapshot.isMine(0), true);
+    t.checkExpect(snapshot.isMine(1), false);
+    t.checkExpect(snapshot.isHidden(1), false);
+    t.checkExpect(snapshot.isHidden(2), true);
+    t.checkExpect(snapshot.isFlagged(8), true);
+    // cells are read straight from the mapped file
+
+    Board loaded = snapshot.toBoard();
+    t.checkExpect(loaded.game.board.mines, board.game.board.mines);
+    t.checkExpect(loaded.game.board.hidden, board.game.board.hidden);
+    t.checkExpect(loaded.game.board.flags, board.game.board.flags);
+    t.checkExpect(loaded.game.board.adjacent, board.game.board.adjacent);
+    t.checkExpect(loaded.cellGrid(), board.cellGrid());
+    t.checkExpect(loaded.timer, 12);
+    t.checkExpect(loaded.gameEnd, false);
+    t.checkExpect(loaded.numFlags(), 1);
+    loaded.game.board.checkCounts();
+    // the rebuilt board matches the saved one, counts included
+  }
+
+  // test that a save only rewrites the pages that changed
+  void testIncrementalSave(Tester t) throws IOException {
+    Board board = new Board(new MineGenerator(512, 512, 40000, 3), true);
+    board.updateCell(256, 256);
+    Path path = tempFile();
+    try (SnapshotFile file = new SnapshotFile(path)) {
+      file.save(board);
+      t.checkExpect(file.pagesWritten, 17);
+      // each plane takes 8 pages: the header, the mines and the hidden cells
+      // are written, and the empty flag plane already matches the new file
+
+      file.save(board);
+      t.checkExpect(file.pagesWritten, 0);
+      // nothing changed
+
+      board.updateCellFlag(0, 0);
+      file.save(board);
+      t.checkExpect(file.pagesWritten, 1);
+      // one flag touches one page
+
+      board.timer = 5;
+      file.save(board);
+      t.checkExpect(file.pagesWritten, 1);
+      // the timer lives in the header
+
+      PackedBoard packed = board.game.board;
+      int index = packed.index(0, 300);
+      while (packed.isMine(index) || packed.adjacentMines(index) == 0) {
+        index += 1;
+      }
+      board.updateCell(packed.colOf(index), 300);
+      board.updateCellFlag(511, 511);
+      t.checkExpect(packed.dirtyPages[PackedBoard.HIDDEN], BitSet.valueOf(new long[] { 16L }));
+      t.checkExpect(packed.dirtyPages[PackedBoard.FLAGS], BitSet.valueOf(new long[] { 128L }));
+      file.save(board);
+      t.checkExpect(file.pagesWritten, 2);
+      t.checkExpect(packed.dirtyPages[PackedBoard.HIDDEN].isEmpty(), true);
+      // a cell on row 300 and a flag in the last corner mark their pages, 4
+      // and 7, and a save writes just those and forgets them
+    }
+    Board loaded = BoardSnapshot.load(path).toBoard();
+    t.checkExpect(loaded.game.board.hidden, board.game.board.hidden);
+    t.checkExpect(loaded.game.board.flags, board.game.board.flags);
+    t.checkExpect(loaded.timer, 5);
+  }
+
+  // test saving one board to two files in turn
+  void testTwoFiles(Tester t) throws IOException {
+    Board board = midGame();
+    Path first = tempFile();
+    Path second = tempFile();
+    try (SnapshotFile a = new SnapshotFile(first); SnapshotFile b = new SnapshotFile(second)) {
+      a.save(board);
+      board.onMouseClicked(new Posn(100, 0), "LeftButton");
+      b.save(board);
+      board.onMouseClicked(new Posn(50, 100), "RightButton");
+      a.save(board);
+      t.checkExpect(a.pagesWritten, 2);
+    }
+    Board loaded = BoardSnapshot.load(first).toBoard();
+    t.checkExpect(loaded.game.board.hidden, board.game.board.hidden);
+    t.checkExpect(loaded.game.board.flags, board.game.board.flags);
+    // the second file took the changes the first one missed, so the first one
+    // compares the board with its pages instead
+  }
+
+  // test saving with the planes compressed
+  void testCompressed(Tester t) throws IOException {
+    Board board = new Board(new MineGenerator(256, 256, 4000, 3), true);
+    board.updateCell(10, 10);
+    Path compressed = tempFile();
+    Path plain = tempFile();
+    BoardSnapshot.saveCompressed(board, compressed);
+    try (SnapshotFile file = new SnapshotFile(plain)) {
+      file.save(board);
+    }
+    t.checkExpect(Files.size(compressed) < Files.size(plain), true);
+    Board loaded = BoardSnapshot.load(compressed).toBoard();
+    t.checkExpect(loaded.game.board.mines, board.game.board.mines);
+    t.checkExpect(loaded.game.board.hidden, board.game.board.hidden);
+    t.checkExpect(loaded.game.isLost(), false);
+  }
+
+  // test saving a game whose mines aren't laid out yet
+  void testDeferredMines(Tester t) throws IOException {
+    Board board = new Board(new MineGenerator(9, 9, 10, 3), true);
+    Path path = tempFile();
+    try (SnapshotFile file = new SnapshotFile(path)) {
+      file.save(board);
+    }
+    Board loaded = BoardSnapshot.load(path).toBoard();
+    t.checkExpect(loaded.game.minesPlaced(), false);
+    loaded.updateCell(4, 4);
+    t.checkExpect(loaded.game.board.numMines, 10);
+    t.checkExpect(loaded.game.isLost(), false);
+    // the loaded game still lays its mines out on the first click
+
+    board.updateCell(4, 4);
+    t.checkExpect(loaded.game.board.mines, board.game.board.mines);
+    // and lays them out where the saved game does, from the saved seed
+  }
+
+  // test loading a file that isn't a save
+  void testBadFile(Tester t) throws IOException {
+    Path path = tempFile();
+    Files.write(path, "hello".getBytes());
+    String message = "";
+    try {
+      BoardSnapshot.load(path);
+    }
+    catch (IOException e) {
+      message = e.getMessage();
+    }
+    t.checkExpect(message, "not a saved minesweeper game");
+  }
+
+  // the message of the IOException loading the given bytes throws, or "" if
+  // they load
+  String loadError(ByteBuffer bytes) throws IOException {
+    Path path = tempFile();
+    Files.write(path, bytes.array());
+    try {
+      BoardSnapshot.load(path);
+      return "";
+    }
+    catch (IOException e) {
+      return e.getMessage();
+    }
+  }
+
+  // test loading saves whose headers don't match what they hold
+  void testCorruptFile(Tester t) throws IOException {
+    Path path = tempFile();
+    BoardSnapshot.saveCompressed(midGame(), path);
+    ByteBuffer save = ByteBuffer.wrap(Files.readAllBytes(path)).order(ByteOrder.LITTLE_ENDIAN);
+    t.checkExpect(loadError(save), "");
+    save.putLong(40, 1L << 40);
+    t.checkExpect(loadError(save), "the saved game is corrupt");
+    save.putLong(40, -1);
+    t.checkExpect(loadError(save), "the saved game is corrupt");
+    // the compressed section has to fit in the file
+
+    save.putInt(12, 65536);
+    save.putInt(16, 65536);
+    save.putLong(32, BoardSnapshot.planeBytes(65536L * 65536));
+    t.checkExpect(loadError(save), "the saved game is corrupt");
+    // so does the number of cells, even when the plane size agrees with it
+
+    try (SnapshotFile file = new SnapshotFile(path)) {
+      file.save(midGame());
+    }
+    byte[] plain = Files.readAllBytes(path);
+    t.checkExpect(loadError(ByteBuffer.wrap(Arrays.copyOf(plain, plain.length - 1))),
+        "the saved game is corrupt");
+    // and an uncompressed save has to hold all three planes
+  }
+}
@@ -0,0 +1,282 @@
+import tester.*;
+
+// the part of a board that is on screen. the viewport is 'viewWidth' by
+// 'viewHeight' pixels, cells are 'cellSize' pixels square, and the top left
+// corner of the viewport is at 'originX', 'originY' on the board drawn at that
+// cell size. boards that fit in the largest viewport are shown whole, with the
+// viewport sized to them; larger boards are panned and zoomed around in it.
+// a camera on a board with no edges pans anywhere, with cell (0, 0) at pixel
+// (0, 0) and negative columns and rows to its left and above it
+class Camera {
+  // the cell sizes the camera zooms between, from closest to farthest
+  static final int[] ZOOM_LEVELS = { 50, 40, 32, 25, 20, 16, 12, 10, 8, 6, 5, 4 };
+  // how far from (0, 0) a camera on a board with no edges can pan, in pixels,
+  // so that positions on the board still fit in an int
+  static final int MAX_ORIGIN = Integer.MAX_VALUE / 2;
+
+  // does the board have edges? 'gridWidth' and 'gridHeight' are only used
+  // when it does
+  boolean bounded;
+  int gridWidth;
+  int gridHeight;
+  int viewWidth;
+  int viewHeight;
+  int cellSize;
+  int originX;
+  int originY;
+
+  // construct a camera on the top left corner of a board, with a viewport no
+  // bigger than the given size
+  Camera(int gridWidth, int gridHeight, int cellSize, int maxViewWidth, int maxViewHeight) {
+    this.bounded = true;
+    this.gridWidth = gridWidth;
+    this.gridHeight = gridHeight;
+    this.cellSize = cellSize;
+    this.viewWidth = (int) Math.min((long) gridWidth * cellSize, maxViewWidth);
+    this.viewHeight = (int) Math.min((long) gridHeight * cellSize, maxViewHeight);
+    this.originX = 0;
+    this.originY = 0;
+  }
+
+  // construct a camera on a board with no edges, with a viewport of the given
+  // size centered on cell (0, 0)
+  Camera(int cellSize, int viewWidth, int viewHeight) {
+    this.bounded = false;
+    this.cellSize = cellSize;
+    this.viewWidth = viewWidth;
+    this.viewHeight = viewHeight;
+    this.originX = cellSize / 2 - viewWidth / 2;
+    this.originY = cellSize / 2 - viewHeight / 2;
+  }
+
+  // the column under the given x position in the viewport
+  int colAt(int x) {
+    return Math.floorDiv(x + this.originX, this.cellSize);
+  }
+
+  // the row under the given y position in the viewport
+  int rowAt(int y) {
+    return Math.floorDiv(y + this.originY, this.cellSize);
+  }
+
+  // is the given position in the viewport over a cell of the board?
+  boolean overBoard(int x, int y) {
+    return x >= 0 && y >= 0 && x < this.viewWidth && y < this.viewHeight
+        && (!this.bounded || colAt(x) < this.gridWidth && rowAt(y) < this.gridHeight);
+  }
+
+  // the x position in the viewport of the center of the given column
+  int centerX(int colIndex) {
+    return colIndex * this.cellSize + this.cellSize / 2 - this.originX;
+  }
+
+  // the y position in the viewport of the center of the given row
+  int centerY(int rowIndex) {
+    return rowIndex * this.cellSize + this.cellSize / 2 - this.originY;
+  }
+
+  // the first column that is at least partly in the viewport
+  int firstCol() {
+    return Math.floorDiv(this.originX, this.cellSize);
+  }
+
+  // the last column that is at least partly in the viewport
+  int lastCol() {
+    int col = Math.floorDiv(this.originX + this.viewWidth - 1, this.cellSize);
+    if (this.bounded) {
+      return Math.min(this.gridWidth - 1, col);
+    }
+    return col;
+  }
+
+  // the first row that is at least partly in the viewport
+  int firstRow() {
+    return Math.floorDiv(this.originY, this.cellSize);
+  }
+
+  // the last row that is at least partly in the viewport
+  int lastRow() {
+    int row = Math.floorDiv(this.originY + this.viewHeight - 1, this.cellSize);
+    if (this.bounded) {
+      return Math.min(this.gridHeight - 1, row);
+    }
+    return row;
+  }
+
+  // is the given cell at least partly in the viewport?
+  boolean shows(int colIndex, int rowIndex) {
+    return colIndex >= firstCol() && colIndex <= lastCol() && rowIndex >= firstRow()
+        && rowIndex <= lastRow();
+  }
+
+  // the number of cells at least partly in the viewport
+  int visibleCells() {
+    return (lastCol() - firstCol() + 1) * (lastRow() - firstRow() + 1);
+  }
+
+  // move the viewport by the given number of pixels, keeping it on the board
+  void pan(int dx, int dy) {
+    moveTo((long) this.originX + dx, (long) this.originY + dy);
+  }
+
+  // put the top left corner of the viewport at the given position, or as
+  // close to it as keeps the viewport on the board
+  void moveTo(long originX, long originY) {
+    if (this.bounded) {
+      this.originX = clamp(originX, 0, (long) this.gridWidth * this.cellSize - this.viewWidth);
+      this.originY = clamp(originY, 0, (long) this.gridHeight * this.cellSize - this.viewHeight);
+    }
+    else {
+      this.originX = clamp(originX, -MAX_ORIGIN, MAX_ORIGIN);
+      this.originY = clamp(originY, -MAX_ORIGIN, MAX_ORIGIN);
+    }
+  }
+
+  // keep an origin between the given smallest and largest origins, or at the
+  // smallest if the largest is smaller
+  static int clamp(long origin, long minOrigin, long maxOrigin) {
+    return (int) Math.max(minOrigin, Math.min(origin, maxOrigin));
+  }
+
+  // change the cell size, keeping the point of the board under the given
+  // position in the viewport where it is
+  void zoomTo(int cellSize, int focusX, int focusY) {
+    long boardX = Math.floorDiv(((long) this.originX + focusX) * cellSize, this.cellSize);
+    long boardY = Math.floorDiv(((long) this.originY + focusY) * cellSize, this.cellSize);
+    this.cellSize = cellSize;
+    moveTo(boardX - focusX, boardY - focusY);
+  }
+
+  // zoom in or out by the given number of zoom levels about the center of
+  // the viewport. returns whether the cell size changed
+  boolean zoom(int steps) {
+    int level = 0;
+    while (level < ZOOM_LEVELS.length - 1 && ZOOM_LEVELS[level] > this.cellSize) {
+      level += 1;
+    }
+    level = Math.max(0, Math.min(ZOOM_LEVELS.length - 1, level - steps));
+    if (ZOOM_LEVELS[level] == this.cellSize) {
+      return false;
+    }
+    zoomTo(ZOOM_LEVELS[level], this.viewWidth / 2, this.viewHeight / 2);
+    return true;
+  }
+}
+
+// examples for cameras
+class ExamplesCamera {
+  Camera small;
+  Camera large;
+
+  // initialize variables
+  void init() {
+    small = new Camera(8, 8, 50, 1600, 900);
+    large = new Camera(1000, 1000, 50, 1600, 900);
+  }
+
+  // test the size of the viewport
+  void testConstructor(Tester t) {
+    init();
+
+    t.checkExpect(small.viewWidth, 400);
+    t.checkExpect(small.viewHeight, 400);
+    // a small board is shown whole
+
+    t.checkExpect(large.viewWidth, 1600);
+    t.checkExpect(large.viewHeight, 900);
+    t.checkExpect(large.visibleCells(), 32 * 18);
+    // a large board only shows the cells that fit in the viewport
+  }
+
+  // test mapping positions in the viewport to cells
+  void testColAt(Tester t) {
+    init();
+
+    t.checkExpect(small.colAt(0), 0);
+    t.checkExpect(small.colAt(49), 0);
+    t.checkExpect(small.rowAt(50), 1);
+    t.checkExpect(small.overBoard(399, 399), true);
+    t.checkExpect(small.overBoard(100, 400), false);
+    // without panning, cells are 50 pixels apart from the top left corner
+
+    large.pan(125, 1000);
+    t.checkExpect(large.colAt(0), 2);
+    t.checkExpect(large.colAt(25), 3);
+    t.checkExpect(large.rowAt(0), 20);
+    t.checkExpect(large.centerX(3), 50);
+    t.checkExpect(large.centerY(20), 25);
+    t.checkExpect(large.firstCol(), 2);
+    t.checkExpect(large.lastCol(), 34);
+    // positions are mapped through the pan, and back again for drawing
+  }
+
+  // test panning
+  void testPan(Tester t) {
+    init();
+
+    small.pan(100, 100);
+    t.checkExpect(small.originX, 0);
+    t.checkExpect(small.originY, 0);
+    // a board shown whole can't be panned
+
+    large.pan(-10, 100000000);
+    t.checkExpect(large.originX, 0);
+    t.checkExpect(large.originY, 50000 - 900);
+    t.checkExpect(large.lastRow(), 999);
+    // the viewport stays on the board
+  }
+
+  // test zooming
+  void testZoom(Tester t) {
+    init();
+
+    large.pan(1000, 1000);
+    int col = large.colAt(800);
+    int row = large.rowAt(450);
+    t.checkExpect(large.zoom(3), false);
+    t.checkExpect(large.zoom(-3), true);
+    t.checkExpect(large.cellSize, 25);
+    t.checkExpect(large.colAt(800), col);
+    t.checkExpect(large.rowAt(450), row);
+    // zooming out keeps the cell at the center of the viewport where it is
+
+    t.checkExpect(large.zoom(-100), true);
+    t.checkExpect(large.cellSize, 4);
+    t.checkExpect(large.visibleCells() <= 401 * 226, true);
+    // the farthest zoom level still shows a bounded number of cells
+
+    small.zoom(-1);
+    t.checkExpect(small.cellSize, 40);
+    t.checkExpect(small.overBoard(350, 10), false);
+    // zooming out on a small board leaves part of the viewport empty
+  }
+
+  // test a camera on a board with no edges
+  void testUnbounded(Tester t) {
+    Camera camera = new Camera(50, 1600, 900);
+    t.checkExpect(camera.colAt(800), 0);
+    t.checkExpect(camera.rowAt(450), 0);
+    t.checkExpect(camera.firstCol(), -16);
+    t.checkExpect(camera.lastCol(), 16);
+    t.checkExpect(camera.firstRow(), -9);
+    t.checkExpect(camera.overBoard(0, 0), true);
+    t.checkExpect(camera.centerX(-16), 800 - 16 * 50);
+    // the viewport starts centered on (0, 0), with cells on every side of it
+
+    camera.pan(-1000000, 100000);
+    t.checkExpect(camera.originX, -775 - 1000000);
+    t.checkExpect(camera.firstCol(), -20016);
+    t.checkExpect(camera.visibleCells(), 33 * 19);
+    camera.pan(Integer.MIN_VALUE, 0);
+    t.checkExpect(camera.originX, -Camera.MAX_ORIGIN);
+    // it pans as far as it is asked, up to where pixel positions would
+    // overflow
+
+    camera.moveTo(-775, -425);
+    camera.zoom(-2);
+    t.checkExpect(camera.cellSize, 32);
+    t.checkExpect(camera.colAt(800), 0);
+    t.checkExpect(camera.rowAt(450), 0);
+    // zooming keeps the cell at the center where it is
+  }
+}
@@ -0,0 +1,169 @@
+import java.util.ArrayList;
+import tester.*;
+
+// represent a minesweeper cell object
+class Cell {
+  boolean hidden;
+  boolean mine;
+  ArrayList<Cell> neighbors;
+  boolean flag;
+
+  // construct an instance of a cell object
+  Cell(boolean hidden, boolean mine, ArrayList<Cell> neighbors) {
+    this.hidden = hidden;
+    this.mine = mine;
+    this.neighbors = neighbors;
+    this.flag = false;
+  }
+
+  // construct a cell with an empty list of neighbors
+  Cell(boolean hidden, boolean mine) {
+    this(hidden, mine, new ArrayList<>());
+  }
+
+  // update the 'neighbors' field of this cell to include some other cell.
+  // furthermore, update the neighboring cell's 'neighbors' field to include this
+  // cell.
+  void updateNeighbors(Cell neighbor) {
+    this.updateNeighborsHelp(neighbor);
+    neighbor.updateNeighborsHelp(this);
+  }
+
+  // helper method for update neighbors.
+  // this allows us to update both cells' 'neighbors' fields to include each other
+  void updateNeighborsHelp(Cell neighbor) {
+    this.neighbors.add(neighbor);
+  }
+
+  // count the number of mines that neighbor this cell
+  int countNeighboringMines() {
+    int numNeighboringMines = 0;
+    for (Cell neighbor : this.neighbors) {
+      if (neighbor.mine) {
+        numNeighboringMines += 1;
+      }
+    }
+    return numNeighboringMines;
+  }
+
+  // make this cell visible if it is hidden. if it has no neighboring mines,
+  // also make visible every neighbor that has no neighboring mines, and so on.
+  // the cascade uses a work list rather than recursion so that large empty
+  // regions cannot overflow the stack
+  void makeVisible() {
+    if (this.hidden) {
+      this.hidden = false;
+      ArrayList<Cell> workList = new ArrayList<>();
+      workList.add(this);
+      while (!workList.isEmpty()) {
+        Cell cell = workList.remove(workList.size() - 1);
+        if (cell.countNeighboringMines() == 0) {
+          for (Cell neighbor : cell.neighbors) {
+            if (neighbor.hidden && neighbor.countNeighboringMines() == 0) {
+              neighbor.hidden = false;
+              workList.add(neighbor);
+            }
+          }
+        }
+      }
+    }
+  }
+}
+
+// Examples for Cells
+class ExamplesCell {
+  Cell safe;
+  Cell safe2;
+  Cell mine;
+  Cell mine2;
+  ArrayList<Cell> mineNeighbor;
+  ArrayList<Cell> safeNeighbor;
+  ArrayList<Cell> mineAndSafeNeighbors;
+
+  // initialize variables
+  void init() {
+    safe = new Cell(true, false);
+    safe2 = new Cell(false, false);
+    mine = new Cell(true, true);
+    mine2 = new Cell(false, true);
+
+    safeNeighbor = new ArrayList<>();
+    safeNeighbor.add(safe);
+
+    mineNeighbor = new ArrayList<>();
+    mineNeighbor.add(mine);
+
+    mineAndSafeNeighbors = new ArrayList<>();
+    mineAndSafeNeighbors.add(mine);
+    mineAndSafeNeighbors.add(safe2);
+    mineAndSafeNeighbors.add(mine2);
+  }
+
+  // test the updateNeighbors method
+  void testUpdateNeighbors(Tester t) {
+    init();
+
+    t.checkExpect(safe.neighbors, new ArrayList<Cell>());
+    // testing on a cell with no neighbors
+
+    safe.updateNeighbors(mine);
+    t.checkExpect(safe.neighbors, mineNeighbor);
+    t.checkExpect(mine.neighbors, safeNeighbor);
+    // updating the safe cell's list of neighbors to include the mine cell should
+    // also update the mine's list of neighbors to include the safe cell
+
+    safe.updateNeighbors(safe2);
+    safe.updateNeighbors(mine2);
+    t.checkExpect(safe.neighbors, mineAndSafeNeighbors);
+    // testing on a cell with multiple neighbors.
+    // this test incorporates all 4 types of cells:
+    // visible safe, hidden safe, visible mine, and hidden mine
+  }
+
+  void testCountNeighboringMines(Tester t) {
+    init();
+
+    t.checkExpect(safe.countNeighboringMines(), 0);
+    // testing on a safe cell with no neighbors
+
+    safe.updateNeighbors(mine);
+    t.checkExpect(safe.countNeighboringMines(), 1);
+    // testing on a safe cell that borders a mine
+
+    safe.updateNeighbors(safe2);
+    safe.updateNeighbors(mine2);
+    t.checkExpect(safe.countNeighboringMines(), 2);
+    // testing on a safe cell with multiple neighboring mines.
+    // this test incorporates all 4 types of cells:
+    // visible safe, hidden safe, visible mine, and hidden mine
+
+    t.checkExpect(mine.countNeighboringMines(), 0);
+    // testing on a mine with no neighboring mines
+
+    mine.updateNeighbors(mine2);
+    t.checkExpect(mine.countNeighboringMines(), 1);
+    // testing on a mine with a neighboring mines
+  }
+
+  // test the makeVisible method
+  void testMakeVisible(Tester t) {
+    init();
+
+    safe.updateNeighbors(mine);
+    safe.makeVisible();
+    t.checkExpect(safe.hidden, false);
+    t.checkExpect(mine.hidden, true);
+    // a cell that borders a mine only uncovers itself
+
+    Cell first = new Cell(true, false);
+    Cell last = first;
+    for (int i = 0; i < 100000; i++) {
+      Cell next = new Cell(true, false);
+      last.updateNeighbors(next);
+      last = next;
+    }
+    first.makeVisible();
+    t.checkExpect(last.hidden, false);
+    // a long chain of empty cells is uncovered without overflowing the stack
+  }
+}
@@ -0,0 +1,231 @@
+import java.awt.Color;
+import javalib.worldimages.*;
+import tester.*;
+
+// the images of every way a cell can look at one cell size: hidden, hidden
+// with a flag, a mine, and a safe cell with 0 to 8 neighboring mines, plus the
+// flag used by the flag count. javalib images never change once they are
+// made, so every cell that looks the same can be drawn with the same image
+class CellImages {
+  int cellWidth;
+  int cellHeight;
+  WorldImage hidden;
+  WorldImage hiddenFlag;
+  WorldImage mine;
+  WorldImage[] safe;
+  WorldImage flag;
+
+  // draw each cell image once at the given cell size
+  CellImages(int cellWidth, int cellHeight) {
+    this.cellWidth = cellWidth;
+    this.cellHeight = cellHeight;
+    this.hidden = drawHiddenCell(false);
+    this.hiddenFlag = drawHiddenCell(true);
+    this.mine = drawMine();
+    this.safe = new WorldImage[9];
+    for (int numNeighboringMines = 0; numNeighboringMines <= 8; numNeighboringMines++) {
+      this.safe[numNeighboringMines] = drawSafe(numNeighboringMines);
+    }
+    this.flag = drawFlag();
+  }
+
+  // draw a cell with its number of neighboring mines displayed
+  OverlayImage drawSafe(int numNeighboringMines) {
+    String countMines = "";
+    Color textColor;
+    // ******EXTRA CREDIT*****
+    if (numNeighboringMines > 0) {
+      countMines = Integer.toString(numNeighboringMines);
+    }
+
+    if (numNeighboringMines == 1) {
+      textColor = new Color(19, 37, 235);
+    }
+    else if (numNeighboringMines == 2) {
+      textColor = new Color(38, 145, 16);
+    }
+    else if (numNeighboringMines == 3) {
+      textColor = new Color(240, 17, 17);
+    }
+    else if (numNeighboringMines == 4) {
+      textColor = new Color(7, 14, 97);
+    }
+    else if (numNeighboringMines == 5) {
+      textColor = new Color(110, 9, 9);
+    }
+    else if (numNeighboringMines == 6) {
+      textColor = new Color(21, 130, 121);
+    }
+    else if (numNeighboringMines == 7) {
+      textColor = Color.BLACK;
+    }
+    else {
+      textColor = Color.GRAY;
+    }
+
+    // the numbers shrink with the cells when the board is zoomed out
+    TextImage numMinesText = new TextImage(countMines, Math.min(30, 3 * this.cellHeight / 5),
+        FontStyle.BOLD, textColor);
+    RectangleImage cellOutline = new RectangleImage(this.cellWidth, this.cellHeight,
+        OutlineMode.OUTLINE, Color.BLACK);
+    return new OverlayImage(cellOutline, numMinesText);
+  }
+
+  // method to draw the mine
+  OverlayImage drawMine() {
+    // this mine is composed of different shapes to enhance game graphics
+    // ******EXTRA CREDIT*****
+    CircleImage bombBody = new CircleImage(this.cellWidth / 3, OutlineMode.SOLID, Color.DARK_GRAY);
+
+    StarImage fireOut = new StarImage((this.cellWidth / 8.0) + 2, 8, 2, OutlineMode.OUTLINE,
+        Color.red);
+
+    OverlayImage fire = new OverlayImage(fireOut,
+        new StarImage(this.cellWidth / 8.0, 8, 2, OutlineMode.SOLID, Color.ORANGE));
+
+    OverlayOffsetAlign bomb = new OverlayOffsetAlign(AlignModeX.RIGHT, AlignModeY.TOP, fire,
+        this.cellWidth / 3.0, this.cellWidth / 6.0, bombBody);
+
+    RectangleImage cellOutline = new RectangleImage(this.cellWidth, this.cellHeight,
+        OutlineMode.OUTLINE, Color.BLACK);
+
+    // Combine the bomb image and the outline
+    return new OverlayImage(cellOutline, bomb);
+  }
+
+  // drawing a hidden cell (not clicked)
+  WorldImage drawHiddenCell(boolean isFlag) {
+    // these different components of the hidden cell image are purely aesthetic.
+    // ******EXTRA CREDIT*****
+    RectangleImage cellShine = new RectangleImage(this.cellWidth, this.cellHeight,
+        OutlineMode.SOLID, new Color(100, 100, 100));
+    RectangleImage cellFace = new RectangleImage(4 * this.cellWidth / 5, 4 * this.cellHeight / 5,
+        OutlineMode.SOLID, Color.LIGHT_GRAY);
+    RectangleImage cellOutline = new RectangleImage(this.cellWidth, this.cellHeight,
+        OutlineMode.OUTLINE, Color.BLACK);
+    WorldImage cellImage;
+    cellImage = new OverlayImage(cellOutline, cellShine);
+    cellImage = new OverlayImage(drawCellShadow(), cellImage);
+    cellImage = new OverlayImage(cellFace, cellImage);
+    if (isFlag) {
+      return new OverlayImage(drawFlag(), cellImage);
+    }
+    else {
+      return cellImage;
+    }
+  }
+
+  // ******EXTRA CREDIT*****
+  // draw the cell's shadow
+  WorldImage drawCellShadow() {
+    Posn v1 = new Posn(0, 0);
+    Posn v2 = new Posn(0, this.cellHeight);
+    Posn v3 = new Posn(this.cellWidth, 0);
+    return new TriangleImage(v1, v2, v3, OutlineMode.SOLID, new Color(255, 255, 255));
+  }
+
+  // flag graphics
+  WorldImage drawFlag() {
+    // draw the flag pole
+    RectangleImage pole = new RectangleImage(this.cellWidth / 10, this.cellHeight / 2,
+        OutlineMode.SOLID, Color.BLACK);
+    RectangleImage base1 = new RectangleImage(this.cellWidth / 2, this.cellHeight / 10,
+        OutlineMode.SOLID, Color.BLACK);
+    RectangleImage base2 = new RectangleImage(2 * this.cellWidth / 7, this.cellHeight / 12,
+        OutlineMode.SOLID, Color.BLACK);
+    WorldImage base = new OverlayOffsetImage(base2, 0, this.cellHeight / 10.0, base1);
+    WorldImage flagpole = new OverlayOffsetImage(pole, 0, this.cellHeight / 4.0, base);
+
+    // draw the flag
+    Posn v1 = new Posn(0, -this.cellHeight / 3);
+    Posn v2 = new Posn(-this.cellWidth / 3, -this.cellHeight / 2);
+    Posn v3 = new Posn(0, -2 * this.cellHeight / 3);
+    TriangleImage flagShape = new TriangleImage(v1, v2, v3, OutlineMode.SOLID, Color.RED);
+
+    // overlay the flag onto the flagpole
+    return new OverlayOffsetImage(flagShape, this.cellWidth / 9.0, this.cellHeight / 5.0, flagpole);
+  }
+
+  // were these images drawn for the given cell size?
+  boolean hasSize(int cellWidth, int cellHeight) {
+    return this.cellWidth == cellWidth && this.cellHeight == cellHeight;
+  }
+
+  // the image of a cell, chosen the same way as Board.drawVisibleCell
+  // chooses what to draw for an uncovered cell
+  WorldImage cell(boolean isHidden, boolean isMine, int numNeighboringMines, boolean isFlag) {
+    if (isHidden) {
+      if (isFlag) {
+        return this.hiddenFlag;
+      }
+      else {
+        return this.hidden;
+      }
+    }
+    else if (isMine && !isFlag) {
+      return this.mine;
+    }
+    else {
+      return this.safe[numNeighboringMines];
+    }
+  }
+}
+
+// examples for cell images
+class ExamplesCellImages {
+  Board board;
+  CellImages images;
+
+  // initialize variables
+  void init() {
+    board = new Board(3, 3, 2, 9, true);
+    images = board.cellImages();
+  }
+
+  // test the cell method
+  void testCell(Tester t) {
+    init();
+
+    t.checkExpect(images.cell(true, false, 0, false), images.drawHiddenCell(false));
+    t.checkExpect(images.cell(true, true, 0, true), images.drawHiddenCell(true));
+    t.checkExpect(images.cell(false, true, 0, false), images.drawMine());
+    t.checkExpect(images.cell(false, true, 2, true), images.drawSafe(2));
+    t.checkExpect(images.cell(false, false, 3, false), images.drawSafe(3));
+    // every cell looks the same as when it is drawn on its own
+
+    t.checkExpect(board.drawHiddenCell(true), images.hiddenFlag);
+    t.checkExpect(board.drawSafe(4) == images.safe[4], true);
+    // the board draws its cells with the images for its cell size
+
+    t.checkExpect(images.cell(false, false, 3, false) == images.cell(false, false, 3, true),
+        true);
+    t.checkExpect(images.cell(true, false, 0, false) == images.cell(true, true, 5, false), true);
+    // cells that look the same share one image
+  }
+
+  // test that the board keeps one set of images per cell size
+  void testCellImages(Tester t) {
+    init();
+
+    t.checkExpect(board.cellImages() == images, true);
+    // the images are only drawn once for a cell size
+
+    board.cellWidth = 20;
+    board.cellHeight = 20;
+    CellImages small = board.cellImages();
+    t.checkExpect(small == images, false);
+    t.checkExpect(small.hasSize(20, 20), true);
+    // a new cell size gets its own images
+
+    board.cellWidth = 50;
+    board.cellHeight = 50;
+    t.checkExpect(board.cellImages() == images, true);
+    t.checkExpect(board.cellImageCache.size(), 2);
+    // going back to the first size reuses its images
+
+    CellImages alone = new CellImages(20, 20);
+    t.checkExpect(alone.hasSize(20, 20), true);
+    t.checkExpect(alone.mine, small.mine);
+    // images can be drawn at a cell size without a board
+  }
+}
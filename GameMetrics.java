@@ -0,0 +1,529 @@
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.InvalidAttributeValueException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javalib.worldimages.*;
+import tester.*;
+
+// a histogram of non-negative values with one bucket per power of two, so
+// recording a value is a few arithmetic operations on a fixed array and never
+// allocates. bucket k holds the values that take k bits, so bucket 0 holds 0
+// and bucket k holds 2^(k-1) to 2^k - 1. the histogram is written by the game
+// loop and read by the metrics dump without locking, so a dump taken while a
+// value is being recorded may be off by that value
+class Histogram {
+  long[] buckets;
+  long count;
+  long sum;
+  long max;
+
+  // construct an empty histogram
+  Histogram() {
+    this.buckets = new long[65];
+  }
+
+  // add a value to the histogram
+  void record(long value) {
+    this.buckets[64 - Long.numberOfLeadingZeros(value)] += 1;
+    this.count += 1;
+    this.sum += value;
+    if (value > this.max) {
+      this.max = value;
+    }
+  }
+
+  // the mean of the values recorded
+  double mean() {
+    if (this.count == 0) {
+      return 0;
+    }
+    return (double) this.sum / this.count;
+  }
+
+  // an upper bound on the value below which the given fraction of the values
+  // fall: the top of the bucket that value is in, or the largest value if
+  // that is smaller
+  long percentile(double fraction) {
+    long rank = (long) Math.ceil(fraction * this.count);
+    long seen = 0;
+    for (int bucket = 0; bucket < this.buckets.length; bucket++) {
+      seen += this.buckets[bucket];
+      if (seen >= rank && seen > 0) {
+        if (bucket == 64) {
+          return this.max;
+        }
+        return Math.min(this.max, (1L << bucket) - 1);
+      }
+    }
+    return 0;
+  }
+
+  // forget every value recorded
+  void reset() {
+    Arrays.fill(this.buckets, 0);
+    this.count = 0;
+    this.sum = 0;
+    this.max = 0;
+  }
+
+  // a one-line summary of the histogram with the given unit
+  String summary(String unit) {
+    return String.format("count=%d mean=%.1f%s p50=%d%s p99=%d%s max=%d%s", this.count, mean(),
+        unit, percentile(0.5), unit, percentile(0.99), unit, this.max, unit);
+  }
+}
+
+// the latency and allocation of one instrumented operation of the game loop.
+// the game loop runs on one thread, so the start of the call being measured
+// is kept here rather than passed around
+class OperationMetrics {
+  String name;
+  GameMetrics metrics;
+  Histogram latency;
+  Histogram allocation;
+  long startNanos;
+  long startBytes;
+  boolean started;
+
+  // construct the metrics of the named operation
+  OperationMetrics(String name, GameMetrics metrics) {
+    this.name = name;
+    this.metrics = metrics;
+    this.latency = new Histogram();
+    this.allocation = new Histogram();
+  }
+
+  // mark the start of a call, if metrics are turned on
+  void begin() {
+    if (this.metrics.enabled) {
+      this.started = true;
+      this.startBytes = this.metrics.allocatedBytes();
+      this.startNanos = System.nanoTime();
+    }
+  }
+
+  // mark the end of the call started by begin and record how long it took
+  // and how many bytes it allocated
+  void end() {
+    if (this.started) {
+      this.latency.record(System.nanoTime() - this.startNanos);
+      this.allocation.record(Math.max(0, this.metrics.allocatedBytes() - this.startBytes));
+      this.started = false;
+    }
+  }
+
+  // forget every call recorded
+  void reset() {
+    this.latency.reset();
+    this.allocation.reset();
+  }
+}
+
+// the metrics of the game loop: latency and allocation histograms for the
+// event handlers, the frame builds and the reveals, and the distribution of
+// cascade sizes. metrics are off unless the game runs with
+// -Dminesweeper.metrics=true, and can be turned on and off while it runs
+// through JMX. when they are off every instrumented call costs one field
+// read. -Dminesweeper.metrics.dump=N prints a summary every N seconds
+class GameMetrics implements DynamicMBean {
+  // the metrics every board reports to
+  static final GameMetrics METRICS = new GameMetrics(Boolean.getBoolean("minesweeper.metrics"));
+
+  volatile boolean enabled;
+  OperationMetrics onTick;
+  OperationMetrics onMouseClicked;
+  OperationMetrics makeScene;
+  OperationMetrics drawFullScene;
+  OperationMetrics reveal;
+  Histogram cascadeSizes;
+  ArrayList<OperationMetrics> operations;
+  ThreadMXBean threads;
+  boolean countsAllocation;
+  boolean registered;
+  ScheduledExecutorService dumper;
+
+  // construct metrics that are on or off to begin with
+  GameMetrics(boolean enabled) {
+    this.enabled = enabled;
+    this.operations = new ArrayList<>();
+    this.onTick = operation("onTick");
+    this.onMouseClicked = operation("onMouseClicked");
+    this.makeScene = operation("makeScene");
+    this.drawFullScene = operation("drawFullScene");
+    this.reveal = operation("reveal");
+    this.cascadeSizes = new Histogram();
+    this.threads = ManagementFactory.getThreadMXBean();
+    this.countsAllocation = this.threads instanceof com.sun.management.ThreadMXBean
+        && ((com.sun.management.ThreadMXBean) this.threads).isThreadAllocatedMemorySupported();
+  }
+
+  // add an instrumented operation with the given name
+  OperationMetrics operation(String name) {
+    OperationMetrics operation = new OperationMetrics(name, this);
+    this.operations.add(operation);
+    return operation;
+  }
+
+  // the bytes allocated by the current thread so far, or 0 on JVMs that
+  // don't count them
+  long allocatedBytes() {
+    if (this.countsAllocation) {
+      return ((com.sun.management.ThreadMXBean) this.threads).getCurrentThreadAllocatedBytes();
+    }
+    return 0;
+  }
+
+  // record the number of cells a move uncovered
+  void recordCascade(int numRevealed) {
+    if (this.enabled && numRevealed > 0) {
+      this.cascadeSizes.record(numRevealed);
+    }
+  }
+
+  // forget everything recorded
+  void reset() {
+    for (OperationMetrics operation : this.operations) {
+      operation.reset();
+    }
+    this.cascadeSizes.reset();
+  }
+
+  // a text summary of everything recorded
+  String dump() {
+    StringBuilder text = new StringBuilder("minesweeper metrics");
+    if (!this.enabled) {
+      text.append(" (off)");
+    }
+    text.append("\n");
+    for (OperationMetrics operation : this.operations) {
+      text.append(String.format("  %-15s %s%n", operation.name, operation.latency.summary("ns")));
+      text.append(String.format("  %-15s %s%n", "", operation.allocation.summary("B")));
+    }
+    text.append(String.format("  %-15s %s%n", "cascade", this.cascadeSizes.summary("")));
+    return text.toString();
+  }
+
+  // register the metrics with the platform MBean server, and start the
+  // periodic dump if it was asked for. does nothing after the first call
+  synchronized void install() {
+    if (this.registered) {
+      return;
+    }
+    this.registered = true;
+    try {
+      MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+      server.registerMBean(this, new ObjectName("minesweeper:type=GameMetrics"));
+    }
+    catch (Exception e) {
+      System.err.println("could not register the game metrics with JMX: " + e);
+    }
+    int dumpSeconds = Integer.getInteger("minesweeper.metrics.dump", 0);
+    if (dumpSeconds > 0) {
+      startDump(System.err, dumpSeconds);
+    }
+  }
+
+  // print a summary to the given stream every 'periodSeconds' seconds, from a
+  // daemon thread so it never keeps the game running
+  synchronized void startDump(PrintStream out, long periodSeconds) {
+    stopDump();
+    this.dumper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "minesweeper-metrics");
+      thread.setDaemon(true);
+      return thread;
+    });
+    this.dumper.scheduleAtFixedRate(() -> out.print(dump()), periodSeconds, periodSeconds,
+        TimeUnit.SECONDS);
+  }
+
+  // stop printing summaries
+  synchronized void stopDump() {
+    if (this.dumper != null) {
+      this.dumper.shutdownNow();
+      this.dumper = null;
+    }
+  }
+
+  // the value of a JMX attribute. 'Enabled' turns the metrics on and off;
+  // the rest are read-only and named after the operation and statistic, like
+  // 'makeScene.p99Nanos' or 'cascade.count'
+  public Object getAttribute(String attribute) throws AttributeNotFoundException {
+    if (attribute.equals("Enabled")) {
+      return this.enabled;
+    }
+    int dot = attribute.indexOf('.');
+    if (dot < 0) {
+      throw new AttributeNotFoundException("no metric named " + attribute);
+    }
+    String name = attribute.substring(0, dot);
+    String statistic = attribute.substring(dot + 1);
+    if (name.equals("cascade")) {
+      return statistic(this.cascadeSizes, statistic, "");
+    }
+    for (OperationMetrics operation : this.operations) {
+      if (operation.name.equals(name)) {
+        if (statistic.endsWith("Bytes")) {
+          return statistic(operation.allocation, statistic, "Bytes");
+        }
+        return statistic(operation.latency, statistic, "Nanos");
+      }
+    }
+    throw new AttributeNotFoundException("no metric named " + attribute);
+  }
+
+  // a statistic of a histogram named the way getAttribute names them
+  static Object statistic(Histogram histogram, String statistic, String unit)
+      throws AttributeNotFoundException {
+    if (statistic.equals("count")) {
+      return histogram.count;
+    }
+    else if (statistic.equals("mean" + unit)) {
+      return histogram.mean();
+    }
+    else if (statistic.equals("p50" + unit)) {
+      return histogram.percentile(0.5);
+    }
+    else if (statistic.equals("p99" + unit)) {
+      return histogram.percentile(0.99);
+    }
+    else if (statistic.equals("max" + unit)) {
+      return histogram.max;
+    }
+    throw new AttributeNotFoundException("no statistic named " + statistic);
+  }
+
+  // turn the metrics on or off through JMX
+  public void setAttribute(Attribute attribute)
+      throws AttributeNotFoundException, InvalidAttributeValueException {
+    if (!attribute.getName().equals("Enabled")) {
+      throw new AttributeNotFoundException(attribute.getName() + " can't be set");
+    }
+    if (!(attribute.getValue() instanceof Boolean)) {
+      throw new InvalidAttributeValueException("Enabled has to be a Boolean");
+    }
+    this.enabled = (Boolean) attribute.getValue();
+  }
+
+  // the values of several JMX attributes, leaving out the ones that don't
+  // exist
+  public AttributeList getAttributes(String[] attributes) {
+    AttributeList list = new AttributeList();
+    for (String attribute : attributes) {
+      try {
+        list.add(new Attribute(attribute, getAttribute(attribute)));
+      }
+      catch (AttributeNotFoundException e) {
+        // JMX reports only the attributes it could read
+      }
+    }
+    return list;
+  }
+
+  // set several JMX attributes, and return the ones that were set
+  public AttributeList setAttributes(AttributeList attributes) {
+    AttributeList set = new AttributeList();
+    for (Attribute attribute : attributes.asList()) {
+      try {
+        setAttribute(attribute);
+        set.add(attribute);
+      }
+      catch (AttributeNotFoundException | InvalidAttributeValueException e) {
+        // JMX reports only the attributes it could set
+      }
+    }
+    return set;
+  }
+
+  // run a JMX operation: 'dump' returns the text summary and 'reset' forgets
+  // everything recorded
+  public Object invoke(String actionName, Object[] params, String[] signature) {
+    if (actionName.equals("dump")) {
+      return dump();
+    }
+    else if (actionName.equals("reset")) {
+      reset();
+      return null;
+    }
+    throw new IllegalArgumentException("no operation named " + actionName);
+  }
+
+  // describe the attributes and operations to JMX clients
+  public MBeanInfo getMBeanInfo() {
+    ArrayList<MBeanAttributeInfo> attributes = new ArrayList<>();
+    attributes.add(new MBeanAttributeInfo("Enabled", "boolean", "whether metrics are recorded",
+        true, true, false));
+    for (OperationMetrics operation : this.operations) {
+      addStatistics(attributes, operation.name, "Nanos");
+      addStatistics(attributes, operation.name, "Bytes");
+    }
+    addStatistics(attributes, "cascade", "");
+    MBeanOperationInfo[] operations = {
+        new MBeanOperationInfo("dump", "a text summary of the metrics", null, "java.lang.String",
+            MBeanOperationInfo.INFO),
+        new MBeanOperationInfo("reset", "forget everything recorded", null, "void",
+            MBeanOperationInfo.ACTION) };
+    return new MBeanInfo(GameMetrics.class.getName(), "minesweeper game loop metrics",
+        attributes.toArray(new MBeanAttributeInfo[0]), null, operations, null);
+  }
+
+  // describe the statistics of one histogram
+  static void addStatistics(ArrayList<MBeanAttributeInfo> attributes, String name, String unit) {
+    if (!unit.equals("Bytes")) {
+      attributes.add(new MBeanAttributeInfo(name + ".count", "long", "calls recorded", true,
+          false, false));
+    }
+    attributes.add(new MBeanAttributeInfo(name + ".mean" + unit, "double", "mean", true, false,
+        false));
+    attributes.add(new MBeanAttributeInfo(name + ".p50" + unit, "long",
+        "median, rounded up to a power of two", true, false, false));
+    attributes.add(new MBeanAttributeInfo(name + ".p99" + unit, "long",
+        "99th percentile, rounded up to a power of two", true, false, false));
+    attributes.add(new MBeanAttributeInfo(name + ".max" + unit, "long", "largest", true, false,
+        false));
+  }
+}
+
+// examples for game metrics
+class ExamplesGameMetrics {
+  Histogram histogram;
+  GameMetrics metrics;
+
+  // initialize variables
+  void init() {
+    histogram = new Histogram();
+    metrics = new GameMetrics(true);
+  }
+
+  // test recording values in a histogram
+  void testHistogram(Tester t) {
+    init();
+
+    t.checkExpect(histogram.percentile(0.5), 0L);
+    t.checkExpect(histogram.mean(), 0.0);
+    // an empty histogram has no values
+
+    for (int value = 1; value <= 100; value++) {
+      histogram.record(value);
+    }
+    t.checkExpect(histogram.count, 100L);
+    t.checkExpect(histogram.mean(), 50.5);
+    t.checkExpect(histogram.percentile(0.5), 63L);
+    t.checkExpect(histogram.percentile(0.99), 100L);
+    t.checkExpect(histogram.buckets[7], 37L);
+    // percentiles are rounded up to the top of their power-of-two bucket,
+    // but never past the largest value
+
+    histogram.record(0);
+    histogram.record(Long.MAX_VALUE);
+    t.checkExpect(histogram.buckets[0], 1L);
+    t.checkExpect(histogram.percentile(1.0), Long.MAX_VALUE);
+    // zero and the largest long have buckets of their own
+  }
+
+  // test that metrics are only recorded when they are on
+  void testEnabled(Tester t) throws AttributeNotFoundException, InvalidAttributeValueException {
+    init();
+
+    metrics.onTick.begin();
+    metrics.onTick.end();
+    metrics.recordCascade(12);
+    t.checkExpect(metrics.onTick.latency.count, 1L);
+    t.checkExpect(metrics.cascadeSizes.max, 12L);
+
+    metrics.enabled = false;
+    metrics.onTick.begin();
+    metrics.onTick.end();
+    metrics.recordCascade(40);
+    t.checkExpect(metrics.onTick.latency.count, 1L);
+    t.checkExpect(metrics.cascadeSizes.count, 1L);
+    // turned off, nothing is recorded
+
+    metrics.setAttribute(new Attribute("Enabled", true));
+    t.checkExpect(metrics.getAttribute("Enabled"), true);
+    t.checkExpect(metrics.getAttribute("onTick.count"), 1L);
+    t.checkExpect(metrics.getAttribute("cascade.max"), 12L);
+    t.checkExpect(metrics.getMBeanInfo().getAttributes().length, 1 + 5 * 9 + 5);
+    // JMX turns the metrics back on and reads them
+
+    t.checkException("read a metric that doesn't exist",
+        new AttributeNotFoundException("no metric named nothing"), metrics, "getAttribute",
+        "nothing");
+    t.checkException("read a statistic that doesn't exist",
+        new AttributeNotFoundException("no statistic named p42Nanos"), metrics, "getAttribute",
+        "onTick.p42Nanos");
+    t.checkException("set a read-only metric",
+        new AttributeNotFoundException("onTick.count can't be set"), metrics, "setAttribute",
+        new Attribute("onTick.count", 3L));
+    t.checkException("turn the metrics on with a string",
+        new InvalidAttributeValueException("Enabled has to be a Boolean"), metrics,
+        "setAttribute", new Attribute("Enabled", "yes"));
+    t.checkExpect(metrics.enabled, true);
+    // unknown and read-only attributes, and values of the wrong type, are
+    // refused with the exceptions JMX clients expect
+
+    t.checkExpect(metrics.getAttributes(new String[] { "Enabled", "nothing" }).size(), 1);
+    AttributeList list = new AttributeList();
+    list.add(new Attribute("Enabled", false));
+    list.add(new Attribute("Enabled", 1));
+    t.checkExpect(metrics.setAttributes(list).size(), 1);
+    t.checkExpect(metrics.enabled, false);
+    // when setting several at once, the ones that can't be read or set are
+    // left out
+  }
+
+  // test that recording doesn't allocate once it is warmed up
+  void testNoAllocation(Tester t) {
+    init();
+    if (!metrics.countsAllocation) {
+      return;
+    }
+    for (int i = 0; i < 20000; i++) {
+      metrics.reveal.begin();
+      metrics.reveal.end();
+      metrics.recordCascade(i);
+    }
+    long before = metrics.allocatedBytes();
+    for (int i = 0; i < 20000; i++) {
+      metrics.reveal.begin();
+      metrics.reveal.end();
+      metrics.recordCascade(i);
+    }
+    t.checkExpect(metrics.allocatedBytes() - before < 1024, true);
+    t.checkExpect(metrics.reveal.allocation.max < 1024, true);
+    // thousands of recorded calls allocate next to nothing
+  }
+
+  // test that the board reports to the metrics
+  void testBoard(Tester t) {
+    GameMetrics.METRICS.reset();
+    boolean wasEnabled = GameMetrics.METRICS.enabled;
+    GameMetrics.METRICS.enabled = true;
+    Board board = new Board(9, 9, 10, 4);
+    board.onTick();
+    board.makeScene();
+    board.onMouseClicked(new Posn(200, 200), "LeftButton");
+    board.makeScene();
+    GameMetrics.METRICS.enabled = wasEnabled;
+    t.checkExpect(GameMetrics.METRICS.onTick.latency.count, 1L);
+    t.checkExpect(GameMetrics.METRICS.makeScene.latency.count, 2L);
+    t.checkExpect(GameMetrics.METRICS.drawFullScene.latency.count >= 1, true);
+    t.checkExpect(GameMetrics.METRICS.onMouseClicked.latency.count, 1L);
+    t.checkExpect(GameMetrics.METRICS.cascadeSizes.count, 1L);
+    t.checkExpect(GameMetrics.METRICS.dump().contains("cascade"), true);
+    // every instrumented path of a board records its calls
+  }
+}
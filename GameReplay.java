@@ -0,0 +1,178 @@
+import java.util.ArrayList;
+import java.util.BitSet;
+
+// the state of a replay after some number of events
+class ReplaySnapshot {
+  int position;
+  int gridWidth;
+  int gridHeight;
+  int numMines;
+  int timer;
+  boolean gameEnd;
+  BitSet mines;
+  BitSet hidden;
+  BitSet flags;
+  MoveHistory history;
+
+  // construct a snapshot of the given replay
+  ReplaySnapshot(GameReplay replay) {
+    PackedBoard board = replay.game.board;
+    this.position = replay.position;
+    this.gridWidth = board.gridWidth;
+    this.gridHeight = board.gridHeight;
+    this.numMines = replay.game.numMines;
+    this.timer = replay.timer;
+    this.gameEnd = replay.gameEnd;
+    this.mines = (BitSet) board.mines.clone();
+    this.hidden = (BitSet) board.hidden.clone();
+    this.flags = (BitSet) board.flags.clone();
+    this.history = replay.game.history.copy();
+  }
+}
+
+// plays the games of a move log again without drawing them, following the
+// same rules as Board's event handlers, so any point of a recorded game can be
+// looked at. a snapshot is kept every 'snapshotInterval' events, so seeking
+// only replays the events since the snapshot before the target
+class GameReplay {
+  MoveLog log;
+  int snapshotInterval;
+  // the number of events replayed so far
+  int position;
+  MinesweeperGame game;
+  int timer;
+  boolean gameEnd;
+  // snapshots.get(k) is the state after (k + 1) * snapshotInterval events
+  ArrayList<ReplaySnapshot> snapshots;
+  // the events applied since the replay was made, for checking that seeking
+  // skips the events it should
+  long eventsApplied;
+  int[] args;
+
+  // construct a replay of the given log, at its start
+  GameReplay(MoveLog log, int snapshotInterval) {
+    this.log = log;
+    this.snapshotInterval = snapshotInterval;
+    this.position = 0;
+    this.snapshots = new ArrayList<>();
+    this.args = new int[4];
+  }
+
+  // construct a replay that keeps a snapshot every 256 events
+  GameReplay(MoveLog log) {
+    this(log, 256);
+  }
+
+  // move the replay to just after the first 'target' events
+  void seek(int target) {
+    if (target < 0 || target > this.log.size()) {
+      throw new IllegalArgumentException("the log has no event " + target);
+    }
+    int snapshot = Math.min(target / this.snapshotInterval, this.snapshots.size());
+    if (target < this.position || snapshot * this.snapshotInterval > this.position) {
+      if (snapshot == 0) {
+        this.position = 0;
+        this.game = null;
+      }
+      else {
+        restore(this.snapshots.get(snapshot - 1));
+      }
+    }
+    while (this.position < target) {
+      apply(this.position);
+      this.position += 1;
+      this.eventsApplied += 1;
+      if (this.position % this.snapshotInterval == 0
+          && this.position / this.snapshotInterval == this.snapshots.size() + 1) {
+        this.snapshots.add(new ReplaySnapshot(this));
+      }
+    }
+  }
+
+  // move the replay to the end of the log
+  void seekToEnd() {
+    seek(this.log.size());
+  }
+
+  // go back to the given snapshot
+  void restore(ReplaySnapshot snapshot) {
+    if (this.game == null) {
+      this.game = new MinesweeperGame(
+          new MineGenerator(snapshot.gridWidth, snapshot.gridHeight, snapshot.numMines), true);
+    }
+    this.game.restore(snapshot.gridWidth, snapshot.gridHeight, snapshot.numMines,
+        snapshot.mines, snapshot.hidden, snapshot.flags, null);
+    this.game.history = snapshot.history.copy();
+    this.timer = snapshot.timer;
+    this.gameEnd = snapshot.gameEnd;
+    this.position = snapshot.position;
+  }
+
+  // apply the given event the way Board's event handlers do
+  void apply(int event) {
+    int type = this.log.read(event, this.args);
+    if (type == MoveLog.NEW_GAME) {
+      MineGenerator mineGen = new MineGenerator(this.args[0], this.args[1], this.args[2],
+          this.args[3]);
+      if (this.game == null) {
+        this.game = new MinesweeperGame(mineGen);
+        this.game.keepHistory();
+      }
+      else {
+        this.game.restart(mineGen);
+      }
+      this.timer = 0;
+      this.gameEnd = false;
+      return;
+    }
+    if (this.game == null) {
+      throw new IllegalStateException("a move log has to start with a new game");
+    }
+    // a move can be undone or redone even once the game is over
+    if (type == MoveLog.UNDO || type == MoveLog.REDO) {
+      if (type == MoveLog.UNDO) {
+        this.game.undo();
+      }
+      else {
+        this.game.redo();
+      }
+      this.gameEnd = this.game.isOver();
+      return;
+    }
+    if (this.gameEnd) {
+      return;
+    }
+    if (type == MoveLog.TICK) {
+      this.timer += 1;
+      return;
+    }
+    if (type == MoveLog.REVEAL) {
+      this.game.reveal(this.args[0], this.args[1]);
+    }
+    else if (type == MoveLog.CHORD) {
+      this.game.chord(this.args[0], this.args[1]);
+    }
+    else {
+      this.game.toggleFlag(this.args[0], this.args[1]);
+    }
+    this.gameEnd = this.game.isOver();
+  }
+
+  // a board showing the replay where it is now, for looking at a reported bug.
+  // playing on it doesn't change the replay
+  Board toBoard() {
+    if (this.game == null) {
+      throw new IllegalStateException("no game has been replayed yet");
+    }
+    ReplaySnapshot snapshot = new ReplaySnapshot(this);
+    MinesweeperGame copy = new MinesweeperGame(
+        new MineGenerator(snapshot.gridWidth, snapshot.gridHeight, snapshot.numMines), true);
+    copy.restore(snapshot.gridWidth, snapshot.gridHeight, snapshot.numMines, snapshot.mines,
+        snapshot.hidden, snapshot.flags, null);
+    copy.history = snapshot.history;
+    Board board = new Board(
+        new MineGenerator(snapshot.gridWidth, snapshot.gridHeight, snapshot.numMines), true);
+    board.loadGame(copy, this.timer, this.gameEnd);
+    return board;
+  }
+}
@@ -0,0 +1,219 @@
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Consumer;
+import tester.*;
+
+// plays many seeded games of one size in parallel on a ForkJoinPool. each
+// worker thread keeps one game whose board is reused for every game it plays
+class GameSimulator {
+  int gridWidth;
+  int gridHeight;
+  int numMines;
+  GameStrategy strategy;
+  ForkJoinPool pool;
+  // the number of seeds a task plays before it reports progress
+  int chunkSize;
+  ThreadLocal<MinesweeperGame> workerGames;
+  ThreadLocal<Random> workerRandoms;
+
+  // construct a simulator that runs on the given pool
+  GameSimulator(int gridWidth, int gridHeight, int numMines, GameStrategy strategy,
+      ForkJoinPool pool) {
+    if (gridWidth < 1 || gridHeight < 1) {
+      throw new IllegalArgumentException("grid dimensions are too small");
+    }
+    this.gridWidth = gridWidth;
+    this.gridHeight = gridHeight;
+    this.numMines = numMines;
+    this.strategy = strategy;
+    this.pool = pool;
+    this.chunkSize = 256;
+    this.workerGames = new ThreadLocal<>();
+    this.workerRandoms = new ThreadLocal<>();
+  }
+
+  // construct a simulator that runs on the common pool
+  GameSimulator(int gridWidth, int gridHeight, int numMines, GameStrategy strategy) {
+    this(gridWidth, gridHeight, numMines, strategy, ForkJoinPool.commonPool());
+  }
+
+  // play one game for every seed and return the totals. 'progress', if it
+  // isn't null, is given the running totals every time a chunk of seeds is
+  // done; it may be called from any worker thread, but never by two at once
+  SimulationStats simulate(int[] seeds, Consumer<SimulationStats> progress) {
+    SimulationStats running = new SimulationStats();
+    return this.pool.invoke(new SimulationTask(this, seeds, 0, seeds.length, progress, running));
+  }
+
+  // play one game for each of 'numGames' consecutive seeds starting at
+  // 'firstSeed'
+  SimulationStats simulate(int firstSeed, int numGames, Consumer<SimulationStats> progress) {
+    int[] seeds = new int[numGames];
+    for (int i = 0; i < numGames; i++) {
+      seeds[i] = firstSeed + i;
+    }
+    return simulate(seeds, progress);
+  }
+
+  // play the game with the given seed to the end on this thread's game
+  void play(int seed, SimulationStats stats) {
+    long start = System.nanoTime();
+    MinesweeperGame game = this.workerGames.get();
+    MineGenerator mineGen = new MineGenerator(this.gridWidth, this.gridHeight, this.numMines,
+        seed);
+    if (game == null) {
+      game = new MinesweeperGame(mineGen);
+      this.workerGames.set(game);
+    }
+    else {
+      game.restart(mineGen);
+    }
+    Random rand = this.workerRandoms.get();
+    if (rand == null) {
+      rand = new Random();
+      this.workerRandoms.set(rand);
+    }
+    // the strategy's random numbers must not follow the mine generator's
+    rand.setSeed(seed * 0x9E3779B97F4A7C15L);
+
+    this.strategy.startGame(game);
+
+    // a strategy that stops making progress still ends after enough moves
+    int maxClicks = 4 * game.board.size();
+    int clicks = 0;
+    while (!game.isOver() && clicks < maxClicks) {
+      this.strategy.move(game, rand);
+      clicks += 1;
+      if (game.numRevealed > 0) {
+        stats.recordCascade(game.numRevealed);
+      }
+    }
+    stats.recordGame(game, clicks, System.nanoTime() - start);
+  }
+}
+
+// plays the seeds seeds[from] to seeds[to - 1], splitting them in half until
+// there are at most a chunk's worth
+class SimulationTask extends RecursiveTask<SimulationStats> {
+  private static final long serialVersionUID = 1L;
+
+  GameSimulator simulator;
+  int[] seeds;
+  int from;
+  int to;
+  Consumer<SimulationStats> progress;
+  SimulationStats running;
+
+  // construct a task for part of the seeds. 'running' is shared by every task
+  // of a simulation and holds the totals of the chunks done so far
+  SimulationTask(GameSimulator simulator, int[] seeds, int from, int to,
+      Consumer<SimulationStats> progress, SimulationStats running) {
+    this.simulator = simulator;
+    this.seeds = seeds;
+    this.from = from;
+    this.to = to;
+    this.progress = progress;
+    this.running = running;
+  }
+
+  // play the games and return their totals
+  protected SimulationStats compute() {
+    if (this.to - this.from <= this.simulator.chunkSize) {
+      SimulationStats stats = new SimulationStats();
+      for (int i = this.from; i < this.to; i++) {
+        this.simulator.play(this.seeds[i], stats);
+      }
+      if (this.progress != null) {
+        synchronized (this.running) {
+          this.running.merge(stats);
+          this.progress.accept(this.running.copy());
+        }
+      }
+      return stats;
+    }
+    int middle = (this.from + this.to) >>> 1;
+    SimulationTask left = new SimulationTask(this.simulator, this.seeds, this.from, middle,
+        this.progress, this.running);
+    SimulationTask right = new SimulationTask(this.simulator, this.seeds, middle, this.to,
+        this.progress, this.running);
+    left.fork();
+    SimulationStats stats = right.compute();
+    stats.merge(left.join());
+    return stats;
+  }
+}
+
+// examples for the game simulator
+class ExamplesGameSimulator {
+
+  // test the recordCascade method
+  void testRecordCascade(Tester t) {
+    SimulationStats stats = new SimulationStats();
+    stats.recordCascade(1);
+    stats.recordCascade(5);
+    stats.recordCascade(7);
+    stats.recordCascade(64);
+    t.checkExpect(stats.cascades, 4L);
+    t.checkExpect(stats.cascadeCells, 77L);
+    t.checkExpect(stats.cascadeSizes[0], 1L);
+    t.checkExpect(stats.cascadeSizes[2], 2L);
+    t.checkExpect(stats.cascadeSizes[6], 1L);
+    // cascades are counted in power of two buckets
+  }
+
+  // test the merge method
+  void testMerge(Tester t) {
+    SimulationStats a = new SimulationStats();
+    a.recordCascade(3);
+    a.games = 2;
+    a.wins = 1;
+    a.maxNanos = 10;
+    SimulationStats b = new SimulationStats();
+    b.recordCascade(3);
+    b.games = 1;
+    b.maxNanos = 20;
+    a.merge(b);
+    t.checkExpect(a.games, 3L);
+    t.checkExpect(a.wins, 1L);
+    t.checkExpect(a.cascadeSizes[1], 2L);
+    t.checkExpect(a.maxNanos, 20L);
+    t.checkInexact(a.winRate(), 1.0 / 3, 0.0001);
+    // merging adds the counts and keeps the slowest game
+  }
+
+  // test that the results don't depend on the number of threads
+  void testSimulateDeterministic(Tester t) {
+    ForkJoinPool onePool = new ForkJoinPool(1);
+    ForkJoinPool threePool = new ForkJoinPool(3);
+    GameSimulator oneThread = new GameSimulator(16, 16, 40, new RandomClickStrategy(), onePool);
+    GameSimulator threeThreads = new GameSimulator(16, 16, 40, new RandomClickStrategy(),
+        threePool);
+    threeThreads.chunkSize = 7;
+    SimulationStats expected = oneThread.simulate(100, 500, null);
+    SimulationStats actual = threeThreads.simulate(100, 500, null);
+    onePool.shutdown();
+    threePool.shutdown();
+    t.checkExpect(expected.games, 500L);
+    t.checkExpect(expected.wins + expected.losses, 500L);
+    t.checkExpect(actual.sameOutcomes(expected), true);
+    // the same seeds give the same totals however they are split up
+  }
+
+  // test that progress is reported until every game is counted
+  void testSimulateProgress(Tester t) {
+    ForkJoinPool pool = new ForkJoinPool(2);
+    GameSimulator simulator = new GameSimulator(8, 8, 10, new RandomClickStrategy(), pool);
+    simulator.chunkSize = 10;
+    SimulationStats[] last = new SimulationStats[1];
+    int[] reports = new int[1];
+    SimulationStats total = simulator.simulate(0, 95, stats -> {
+      last[0] = stats;
+      reports[0] += 1;
+    });
+    pool.shutdown();
+    t.checkExpect(reports[0], 16);
+    t.checkExpect(last[0].sameOutcomes(total), true);
+    // 95 seeds are split into 16 chunks, and the last report has every game
+  }
+}
@@ -0,0 +1,14 @@
+import java.util.Random;
+
+// a way of playing minesweeper. every call of move makes exactly one move on
+// the game, using 'rand' for any random choices so that a game played with
+// the same seed always goes the same way. a strategy may be used by several
+// threads at once, so anything it remembers during a game must be kept per
+// thread
+interface GameStrategy {
+  // get ready to play a new game on this thread
+  void startGame(MinesweeperGame game);
+
+  // make the next move on the given game, which is not over
+  void move(MinesweeperGame game, Random rand);
+}
@@ -0,0 +1,856 @@
+import java.awt.Color;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import javalib.impworld.*;
+import javalib.worldimages.*;
+import tester.*;
+
+// one square piece of an infinite board, Chunk.SIZE cells on a side. each
+// plane has one long per row, with the cell in column c at bit c
+class Chunk {
+  static final int SIZE = 64;
+  int chunkX;
+  int chunkY;
+  long[] mines;
+  long[] hidden;
+  long[] flags;
+  // the number of neighboring mines of each cell, row * SIZE + col, counted
+  // the first time a reveal needs it
+  byte[] adjacent;
+  // has a reveal or a flag changed this chunk since it was generated?
+  boolean touched;
+
+  // construct a chunk with the given mines where every cell is hidden
+  Chunk(int chunkX, int chunkY, long[] mines) {
+    this.chunkX = chunkX;
+    this.chunkY = chunkY;
+    this.mines = mines;
+    this.hidden = new long[SIZE];
+    Arrays.fill(this.hidden, -1L);
+    this.flags = new long[SIZE];
+    this.touched = false;
+  }
+
+  // is the given bit of the given plane set?
+  static boolean get(long[] plane, int col, int row) {
+    return (plane[row] >>> col & 1) == 1;
+  }
+
+  // is the cell at the given column and row of this chunk a mine?
+  boolean isMine(int col, int row) {
+    return get(this.mines, col, row);
+  }
+
+  // is the cell at the given column and row of this chunk hidden?
+  boolean isHidden(int col, int row) {
+    return get(this.hidden, col, row);
+  }
+
+  // is the cell at the given column and row of this chunk flagged?
+  boolean isFlagged(int col, int row) {
+    return get(this.flags, col, row);
+  }
+
+  // uncover the cell at the given column and row
+  void uncover(int col, int row) {
+    this.hidden[row] &= ~(1L << col);
+    this.touched = true;
+  }
+
+  // put a flag on the given cell or take it off
+  void toggleFlag(int col, int row) {
+    this.flags[row] ^= 1L << col;
+    this.touched = true;
+  }
+}
+
+// a board with no edges. the cells are split into chunks, and a chunk's mines
+// are generated from the seed and the chunk's coordinates the first time a
+// move or a query touches it, so every chunk comes out the same whatever order
+// the board is explored in. the cell at (0, 0) and its neighbors are never
+// mines, so the game can always start there.
+//
+// at most 'maxLiveChunks' chunks are kept whole, in least recently used order.
+// when one more is needed the oldest is let go: one nobody has played in is
+// simply dropped, since it can be generated again, and otherwise its hidden
+// and flag planes are kept compressed until it is needed again. the mines of
+// up to 'maxLiveChunks' chunks that aren't live are kept as well, since
+// counting the neighbors of a chunk needs the mines of the chunks around it.
+// so the memory used is bounded by the live chunks, as many mine planes, and
+// a few compressed bytes for each chunk that has been played in.
+//
+// reveals behave like PackedBoard.reveal. the cascade works on board
+// coordinates, so it crosses chunk edges and pulls chunks in as it goes. with
+// few enough mines a cascade could go on forever, so a reveal uncovers at most
+// 'maxCascade' cells and leaves the rest of the cascade for continueCascade.
+class InfiniteBoard {
+  long seed;
+  int minesPerChunk;
+  int maxLiveChunks;
+  int maxCascade;
+  LinkedHashMap<Long, Chunk> live;
+  // the hidden and flag planes of chunks that were let go after being played
+  // in, compressed
+  HashMap<Long, byte[]> stored;
+  // the mines of chunks that aren't live, in least recently used order
+  LinkedHashMap<Long, long[]> spareMines;
+  boolean lost;
+  long cellsRevealed;
+  long numFlags;
+  // the cascade: zeros whose neighbors still have to be uncovered
+  long[] queue;
+  int head;
+  int tail;
+  // the chunk found by the last lookup, which the next one usually wants too
+  Chunk lastChunk;
+  // how often mines were laid out, and chunks were generated, dropped, stored
+  // and restored
+  long layoutsGenerated;
+  long chunksGenerated;
+  long chunksDropped;
+  long chunksStored;
+  long chunksRestored;
+
+  // construct an infinite board with the given number of mines in every chunk
+  InfiniteBoard(long seed, int minesPerChunk, int maxLiveChunks) {
+    if (minesPerChunk < 0 || minesPerChunk > Chunk.SIZE * Chunk.SIZE - 9) {
+      throw new IllegalArgumentException("a chunk can't hold that many mines");
+    }
+    // a cell and the chunks around it have to stay live while it is revealed
+    if (maxLiveChunks < 16) {
+      throw new IllegalArgumentException("at least 16 chunks have to be kept live");
+    }
+    this.seed = seed;
+    this.minesPerChunk = minesPerChunk;
+    this.maxLiveChunks = maxLiveChunks;
+    this.maxCascade = 1 << 20;
+    this.live = new LinkedHashMap<Long, Chunk>(16, 0.75f, true) {
+      protected boolean removeEldestEntry(Map.Entry<Long, Chunk> eldest) {
+        if (size() > InfiniteBoard.this.maxLiveChunks) {
+          letGo(eldest.getKey(), eldest.getValue());
+          return true;
+        }
+        return false;
+      }
+    };
+    this.stored = new HashMap<>();
+    this.spareMines = new LinkedHashMap<Long, long[]>(16, 0.75f, true) {
+      protected boolean removeEldestEntry(Map.Entry<Long, long[]> eldest) {
+        return size() > InfiniteBoard.this.maxLiveChunks;
+      }
+    };
+    this.queue = new long[64];
+  }
+
+  // pack two ints into one long, for chunk keys and queued cells
+  static long pack(int x, int y) {
+    return (long) x << 32 | (y & 0xFFFFFFFFL);
+  }
+
+  // the first int packed into the given long
+  static int unpackX(long packed) {
+    return (int) (packed >> 32);
+  }
+
+  // the second int packed into the given long
+  static int unpackY(long packed) {
+    return (int) packed;
+  }
+
+  // scramble the bits of the given number, so that nearby inputs give
+  // unrelated outputs
+  static long mix(long z) {
+    z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+    z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+    return z ^ (z >>> 31);
+  }
+
+  // the seed of the mine generator for the given chunk
+  int chunkSeed(int chunkX, int chunkY) {
+    long h = mix(this.seed * 0x9E3779B97F4A7C15L + chunkX);
+    h = mix(h * 0x9E3779B97F4A7C15L + chunkY);
+    return (int) (h ^ (h >>> 32));
+  }
+
+  // the mines of the given chunk, one long per row
+  long[] generateMines(int chunkX, int chunkY) {
+    this.layoutsGenerated += 1;
+    BitSet layout = new MineGenerator(Chunk.SIZE, Chunk.SIZE, this.minesPerChunk,
+        chunkSeed(chunkX, chunkY)).makeMineLayout();
+    // keep (0, 0) and its neighbors clear
+    for (int y = -1; y <= 1; y++) {
+      for (int x = -1; x <= 1; x++) {
+        if (Math.floorDiv(x, Chunk.SIZE) == chunkX && Math.floorDiv(y, Chunk.SIZE) == chunkY) {
+          layout.clear(Math.floorMod(y, Chunk.SIZE) * Chunk.SIZE + Math.floorMod(x, Chunk.SIZE));
+        }
+      }
+    }
+    return Arrays.copyOf(layout.toLongArray(), Chunk.SIZE);
+  }
+
+  // the mines of the given chunk, without making it live if it isn't
+  long[] minesOf(int chunkX, int chunkY) {
+    long key = pack(chunkX, chunkY);
+    Chunk chunk = this.live.get(key);
+    if (chunk != null) {
+      // the lookup moved the chunk ahead of the last chunk found, so that one
+      // has to be looked up again to stay ahead of the chunks let go
+      this.lastChunk = null;
+      return chunk.mines;
+    }
+    long[] mines = this.spareMines.get(key);
+    if (mines == null) {
+      mines = generateMines(chunkX, chunkY);
+      this.spareMines.put(key, mines);
+    }
+    return mines;
+  }
+
+  // the chunk holding the cell at the given coordinates, generating or
+  // restoring it if it isn't live
+  Chunk chunkAt(int x, int y) {
+    int chunkX = Math.floorDiv(x, Chunk.SIZE);
+    int chunkY = Math.floorDiv(y, Chunk.SIZE);
+    if (this.lastChunk != null && this.lastChunk.chunkX == chunkX
+        && this.lastChunk.chunkY == chunkY) {
+      return this.lastChunk;
+    }
+    long key = pack(chunkX, chunkY);
+    Chunk chunk = this.live.get(key);
+    if (chunk == null) {
+      long[] mines = this.spareMines.remove(key);
+      if (mines == null) {
+        mines = generateMines(chunkX, chunkY);
+      }
+      chunk = new Chunk(chunkX, chunkY, mines);
+      this.chunksGenerated += 1;
+      byte[] compressed = this.stored.remove(key);
+      if (compressed != null) {
+        restore(chunk, compressed);
+        this.chunksRestored += 1;
+      }
+      this.live.put(key, chunk);
+    }
+    this.lastChunk = chunk;
+    return chunk;
+  }
+
+  // stop keeping the given chunk live
+  void letGo(long key, Chunk chunk) {
+    if (this.lastChunk == chunk) {
+      this.lastChunk = null;
+    }
+    this.spareMines.put(key, chunk.mines);
+    if (chunk.touched) {
+      this.stored.put(key, compress(chunk));
+      this.chunksStored += 1;
+    }
+    else {
+      this.chunksDropped += 1;
+    }
+  }
+
+  // the hidden and flag planes of the given chunk, compressed
+  static byte[] compress(Chunk chunk) {
+    ByteBuffer planes = ByteBuffer.allocate(2 * Chunk.SIZE * 8);
+    planes.asLongBuffer().put(chunk.hidden).put(chunk.flags);
+    Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+    deflater.setInput(planes);
+    deflater.finish();
+    byte[] out = new byte[planes.capacity() + 64];
+    int length = deflater.deflate(out);
+    deflater.end();
+    return Arrays.copyOf(out, length);
+  }
+
+  // put back the hidden and flag planes compressed from the given chunk
+  static void restore(Chunk chunk, byte[] compressed) {
+    ByteBuffer planes = ByteBuffer.allocate(2 * Chunk.SIZE * 8);
+    Inflater inflater = new Inflater();
+    inflater.setInput(compressed);
+    try {
+      inflater.inflate(planes);
+    }
+    catch (DataFormatException e) {
+      throw new IllegalStateException("a stored chunk is corrupt", e);
+    }
+    finally {
+      inflater.end();
+    }
+    planes.flip();
+    planes.asLongBuffer().get(chunk.hidden).get(chunk.flags);
+    chunk.touched = true;
+  }
+
+  // count the neighboring mines of every cell of the given chunk, using the
+  // mines of the chunks around it for the cells on its edges
+  void countAdjacent(Chunk chunk) {
+    int border = Chunk.SIZE + 2;
+    // the chunk's mines with a border one cell wide taken from its neighbors
+    byte[] grid = new byte[border * border];
+    for (int dy = -1; dy <= 1; dy++) {
+      for (int dx = -1; dx <= 1; dx++) {
+        long[] mines;
+        if (dx == 0 && dy == 0) {
+          mines = chunk.mines;
+        }
+        else {
+          mines = minesOf(chunk.chunkX + dx, chunk.chunkY + dy);
+        }
+        for (int row = 0; row < Chunk.SIZE; row++) {
+          int gridRow = row + dy * Chunk.SIZE + 1;
+          if (0 <= gridRow && gridRow < border && mines[row] != 0) {
+            for (int col = 0; col < Chunk.SIZE; col++) {
+              int gridCol = col + dx * Chunk.SIZE + 1;
+              if (0 <= gridCol && gridCol < border && Chunk.get(mines, col, row)) {
+                grid[gridRow * border + gridCol] = 1;
+              }
+            }
+          }
+        }
+      }
+    }
+    chunk.adjacent = new byte[Chunk.SIZE * Chunk.SIZE];
+    for (int row = 0; row < Chunk.SIZE; row++) {
+      for (int col = 0; col < Chunk.SIZE; col++) {
+        int count = 0;
+        for (int y = row; y <= row + 2; y++) {
+          for (int x = col; x <= col + 2; x++) {
+            count += grid[y * border + x];
+          }
+        }
+        chunk.adjacent[row * Chunk.SIZE + col] = (byte) (count - grid[(row + 1) * border
+            + col + 1]);
+      }
+    }
+  }
+
+  // the number of neighboring mines of the given cell of the given chunk
+  int adjacentMines(Chunk chunk, int col, int row) {
+    if (chunk.adjacent == null) {
+      countAdjacent(chunk);
+    }
+    return chunk.adjacent[row * Chunk.SIZE + col];
+  }
+
+  // the number of mines next to the cell at the given coordinates
+  int adjacentMines(int x, int y) {
+    return adjacentMines(chunkAt(x, y), Math.floorMod(x, Chunk.SIZE),
+        Math.floorMod(y, Chunk.SIZE));
+  }
+
+  // is the cell at the given coordinates a mine?
+  boolean isMine(int x, int y) {
+    return chunkAt(x, y).isMine(Math.floorMod(x, Chunk.SIZE), Math.floorMod(y, Chunk.SIZE));
+  }
+
+  // is the cell at the given coordinates hidden?
+  boolean isHidden(int x, int y) {
+    return chunkAt(x, y).isHidden(Math.floorMod(x, Chunk.SIZE), Math.floorMod(y, Chunk.SIZE));
+  }
+
+  // is the cell at the given coordinates flagged?
+  boolean isFlagged(int x, int y) {
+    return chunkAt(x, y).isFlagged(Math.floorMod(x, Chunk.SIZE), Math.floorMod(y, Chunk.SIZE));
+  }
+
+  // has a mine been uncovered?
+  boolean isLost() {
+    return this.lost;
+  }
+
+  // is a cascade waiting for continueCascade?
+  boolean cascading() {
+    return this.head < this.tail;
+  }
+
+  // the number of chunks kept whole
+  int liveChunks() {
+    return this.live.size();
+  }
+
+  // the number of chunks kept compressed
+  int storedChunks() {
+    return this.stored.size();
+  }
+
+  // put a flag on the given hidden cell or take it off, unless a mine has been
+  // uncovered. return whether the flag changed
+  boolean toggleFlag(int x, int y) {
+    Chunk chunk = chunkAt(x, y);
+    int col = Math.floorMod(x, Chunk.SIZE);
+    int row = Math.floorMod(y, Chunk.SIZE);
+    if (this.lost || !chunk.isHidden(col, row)) {
+      return false;
+    }
+    chunk.toggleFlag(col, row);
+    if (chunk.isFlagged(col, row)) {
+      this.numFlags += 1;
+    }
+    else {
+      this.numFlags -= 1;
+    }
+    return true;
+  }
+
+  // uncover the given cell, unless it is flagged or a mine has been
+  // uncovered, and cascade through the cells around it without neighboring
+  // mines. return the number of cells uncovered
+  int reveal(int x, int y) {
+    Chunk chunk = chunkAt(x, y);
+    int col = Math.floorMod(x, Chunk.SIZE);
+    int row = Math.floorMod(y, Chunk.SIZE);
+    if (this.lost || !chunk.isHidden(col, row) || chunk.isFlagged(col, row)) {
+      return 0;
+    }
+    chunk.uncover(col, row);
+    this.cellsRevealed += 1;
+    if (chunk.isMine(col, row)) {
+      this.lost = true;
+      return 1;
+    }
+    if (adjacentMines(chunk, col, row) == 0) {
+      enqueue(x, y);
+    }
+    return 1 + continueCascade();
+  }
+
+  // go on with the cascade of the last reveal, uncovering at most
+  // 'maxCascade' more cells, and return the number of cells uncovered
+  int continueCascade() {
+    int count = 0;
+    while (this.head < this.tail && count < this.maxCascade) {
+      long cell = this.queue[this.head];
+      this.head += 1;
+      int x = unpackX(cell);
+      int y = unpackY(cell);
+      for (int dy = -1; dy <= 1; dy++) {
+        for (int dx = -1; dx <= 1; dx++) {
+          Chunk chunk = chunkAt(x + dx, y + dy);
+          int col = Math.floorMod(x + dx, Chunk.SIZE);
+          int row = Math.floorMod(y + dy, Chunk.SIZE);
+          if (chunk.isHidden(col, row) && adjacentMines(chunk, col, row) == 0) {
+            chunk.uncover(col, row);
+            enqueue(x + dx, y + dy);
+            count += 1;
+          }
+        }
+      }
+    }
+    if (this.head == this.tail) {
+      this.head = 0;
+      this.tail = 0;
+    }
+    this.cellsRevealed += count;
+    return count;
+  }
+
+  // add the given cell to the end of the cascade
+  void enqueue(int x, int y) {
+    if (this.tail == this.queue.length) {
+      if (this.head > 0) {
+        System.arraycopy(this.queue, this.head, this.queue, 0, this.tail - this.head);
+        this.tail -= this.head;
+        this.head = 0;
+      }
+      else {
+        this.queue = Arrays.copyOf(this.queue, 2 * this.queue.length);
+      }
+    }
+    this.queue[this.tail] = pack(x, y);
+    this.tail += 1;
+  }
+}
+
+// plays an infinite board in a window, through a camera that starts centered
+// on (0, 0), where the game starts, and pans and zooms with the same keys as
+// Board. only the cells in the viewport are looked at, so chunks are generated
+// as they come into view. a reveal uncovers at most CASCADE_CELLS cells at
+// once, and the ticks after it carry on with the rest of the cascade, so a
+// cascade across a sparse board spreads over the screen instead of stalling it
+class InfiniteWorld extends World {
+  static final int CASCADE_CELLS = 20000;
+
+  InfiniteBoard board;
+  Camera camera;
+  // the cell images for each cell size the camera has shown
+  ArrayList<CellImages> cellImageCache;
+  // the scene makeScene drew last, or null once anything on screen changed
+  WorldScene scene;
+
+  // construct a world that plays the given board
+  InfiniteWorld(InfiniteBoard board) {
+    this.board = board;
+    this.board.maxCascade = CASCADE_CELLS;
+    this.camera = new Camera(Camera.ZOOM_LEVELS[0], Board.MAX_VIEW_WIDTH, Board.MAX_VIEW_HEIGHT);
+    this.cellImageCache = new ArrayList<>();
+    this.scene = null;
+  }
+
+  // the cell images at the camera's cell size, drawn the first time it is
+  // shown, the way Board.cellImages keeps them
+  CellImages cellImages() {
+    for (CellImages images : this.cellImageCache) {
+      if (images.hasSize(this.camera.cellSize, this.camera.cellSize)) {
+        return images;
+      }
+    }
+    CellImages images = new CellImages(this.camera.cellSize, this.camera.cellSize);
+    this.cellImageCache.add(images);
+    return images;
+  }
+
+  // draw the cell at the given column and row
+  WorldImage drawCell(int col, int row) {
+    boolean hidden = this.board.isHidden(col, row);
+    int numNeighboringMines = 0;
+    if (!hidden) {
+      numNeighboringMines = this.board.adjacentMines(col, row);
+    }
+    return cellImages().cell(hidden, this.board.isMine(col, row), numNeighboringMines,
+        this.board.isFlagged(col, row));
+  }
+
+  // draw the cells in the viewport and the count of cells uncovered and flags
+  // below them, or reuse the last scene if nothing has changed
+  public WorldScene makeScene() {
+    if (this.scene != null) {
+      return this.scene;
+    }
+    WorldScene world = new WorldScene(this.camera.viewWidth,
+        this.camera.viewHeight + Board.HUD_HEIGHT);
+    world.placeImageXY(new RectangleImage(this.camera.viewWidth, this.camera.viewHeight,
+        OutlineMode.SOLID, Board.BOARD_COLOR), this.camera.viewWidth / 2,
+        this.camera.viewHeight / 2);
+    for (int row = this.camera.firstRow(); row <= this.camera.lastRow(); row++) {
+      for (int col = this.camera.firstCol(); col <= this.camera.lastCol(); col++) {
+        world.placeImageXY(drawCell(col, row), this.camera.centerX(col),
+            this.camera.centerY(row));
+      }
+    }
+    String status = "Uncovered: " + this.board.cellsRevealed;
+    if (this.board.isLost()) {
+      status = "Game Over! " + status;
+    }
+    world.placeImageXY(new TextImage(status, 20, Color.BLACK), this.camera.viewWidth / 4,
+        this.camera.viewHeight + Board.HUD_HEIGHT / 2);
+    world.placeImageXY(new TextImage("Flags: " + this.board.numFlags, 20, Color.BLACK),
+        3 * this.camera.viewWidth / 4, this.camera.viewHeight + Board.HUD_HEIGHT / 2);
+    this.scene = world;
+    return world;
+  }
+
+  // a left click uncovers a cell and a right click flags it
+  public void onMouseClicked(Posn posn, String key) {
+    if (!this.camera.overBoard(posn.x, posn.y)) {
+      return;
+    }
+    int col = this.camera.colAt(posn.x);
+    int row = this.camera.rowAt(posn.y);
+    if ("LeftButton".equals(key) && this.board.reveal(col, row) > 0) {
+      this.scene = null;
+    }
+    else if ("RightButton".equals(key) && this.board.toggleFlag(col, row)) {
+      this.scene = null;
+    }
+  }
+
+  // the arrow keys pan, and + and - zoom in and out. the camera doesn't zoom
+  // out past the cell size at which cells are drawn as images, since that
+  // would bring more chunks into view than are kept live
+  public void onKeyEvent(String key) {
+    int originX = this.camera.originX;
+    int originY = this.camera.originY;
+    int cellSize = this.camera.cellSize;
+    if (key.equals("left")) {
+      this.camera.pan(-this.camera.viewWidth / 4, 0);
+    }
+    else if (key.equals("right")) {
+      this.camera.pan(this.camera.viewWidth / 4, 0);
+    }
+    else if (key.equals("up")) {
+      this.camera.pan(0, -this.camera.viewHeight / 4);
+    }
+    else if (key.equals("down")) {
+      this.camera.pan(0, this.camera.viewHeight / 4);
+    }
+    else if (key.equals("+") || key.equals("=")) {
+      this.camera.zoom(1);
+    }
+    else if (key.equals("-") && this.camera.cellSize > Board.DETAIL_CELL_SIZE) {
+      this.camera.zoom(-1);
+    }
+    if (this.camera.originX != originX || this.camera.originY != originY
+        || this.camera.cellSize != cellSize) {
+      this.scene = null;
+    }
+  }
+
+  // carry on with a cascade the last reveal left unfinished
+  public void onTick() {
+    if (this.board.cascading() && this.board.continueCascade() > 0) {
+      this.scene = null;
+    }
+  }
+
+  // open the window and play
+  void play() {
+    this.bigBang(this.camera.viewWidth, this.camera.viewHeight + Board.HUD_HEIGHT,
+        Board.FRAME_SECONDS);
+  }
+}
+
+// examples for infinite boards
+class ExamplesInfiniteBoard {
+
+  // a packed board covering the chunks from -3 to 3 on each axis of the given
+  // infinite board, with the same mines. cell (x, y) of the infinite board is
+  // cell (x + 192, y + 192) of the packed board
+  PackedBoard window(InfiniteBoard infinite) {
+    PackedBoard board = new PackedBoard(448, 448);
+    for (int y = -192; y < 256; y++) {
+      for (int x = -192; x < 256; x++) {
+        if (infinite.isMine(x, y)) {
+          board.placeMine(board.index(x + 192, y + 192));
+        }
+      }
+    }
+    return board;
+  }
+
+  // test that chunks come out the same whatever order they are generated in
+  void testDeterministic(Tester t) {
+    InfiniteBoard a = new InfiniteBoard(7, 600, 16);
+    InfiniteBoard b = new InfiniteBoard(7, 600, 16);
+    b.isMine(100000, -5000);
+    boolean same = true;
+    for (int y = -70; y < 70; y += 3) {
+      for (int x = -70; x < 70; x += 5) {
+        same = same && a.isMine(x, y) == b.isMine(x, y);
+      }
+    }
+    t.checkExpect(same, true);
+    t.checkExpect(a.isMine(100000, -5000), b.isMine(100000, -5000));
+    t.checkExpect(new InfiniteBoard(8, 600, 16).generateMines(0, 0).equals(a.generateMines(0,
+        0)), false);
+    // the same seed gives the same chunks, and another seed other chunks
+
+    int mines = 0;
+    for (long row : a.generateMines(3, -2)) {
+      mines += Long.bitCount(row);
+    }
+    t.checkExpect(mines, 600);
+    t.checkExpect(a.isMine(0, 0) || a.isMine(-1, -1) || a.isMine(1, -1) || a.isMine(-1, 1),
+        false);
+    // every chunk has its mines, except around (0, 0)
+  }
+
+  // test that reveals match a packed board with the same mines, across chunks
+  void testRevealMatchesPackedBoard(Tester t) {
+    InfiniteBoard infinite = new InfiniteBoard(3, 500, 64);
+    PackedBoard packed = window(infinite);
+    int[] xs = new int[] { 0, 60, -70, 130, 10 };
+    int[] ys = new int[] { 0, 65, 20, -100, -64 };
+    boolean sameCounts = true;
+    for (int i = 0; i < xs.length; i++) {
+      int index = packed.index(xs[i] + 192, ys[i] + 192);
+      if (!packed.isMine(index) && packed.isHidden(index)) {
+        sameCounts = sameCounts && packed.reveal(index) == infinite.reveal(xs[i], ys[i]);
+      }
+    }
+    boolean sameCells = true;
+    boolean awayFromEdge = true;
+    for (int y = -192; y < 256; y++) {
+      for (int x = -192; x < 256; x++) {
+        boolean hidden = packed.isHidden(packed.index(x + 192, y + 192));
+        sameCells = sameCells && hidden == infinite.isHidden(x, y);
+        if (!hidden && (x < -190 || x > 253 || y < -190 || y > 253)) {
+          awayFromEdge = false;
+        }
+      }
+    }
+    t.checkExpect(awayFromEdge, true);
+    t.checkExpect(sameCounts, true);
+    t.checkExpect(sameCells, true);
+    t.checkExpect(infinite.adjacentMines(5, 5), packed.adjacentMines(packed.index(197, 197)));
+    // cascades uncover the same cells as on a packed board, even where they
+    // cross from one chunk into another
+  }
+
+  // test that idle chunks are let go and come back the way they were
+  void testEviction(Tester t) {
+    InfiniteBoard small = new InfiniteBoard(5, 700, 16);
+    InfiniteBoard large = new InfiniteBoard(5, 700, 100000);
+    for (int x = 0; x < 3000; x += 50) {
+      small.toggleFlag(x, 7);
+      large.toggleFlag(x, 7);
+      if (!small.isMine(x, 20)) {
+        small.reveal(x, 20);
+        large.reveal(x, 20);
+      }
+    }
+    t.checkExpect(small.liveChunks() <= 16, true);
+    t.checkExpect(small.storedChunks() > 0, true);
+    t.checkExpect(small.cellsRevealed, large.cellsRevealed);
+    // only a few chunks are kept whole, the rest are stored compressed
+
+    boolean same = true;
+    for (int x = 0; x < 3000; x += 1) {
+      same = same && small.isHidden(x, 20) == large.isHidden(x, 20)
+          && small.isFlagged(x, 7) == large.isFlagged(x, 7);
+    }
+    t.checkExpect(same, true);
+    t.checkExpect(small.chunksRestored > 0, true);
+    // chunks read back from storage have the same cells uncovered and flagged
+
+    InfiniteBoard untouched = new InfiniteBoard(5, 700, 16);
+    for (int x = 0; x < 3000; x += 64) {
+      untouched.isMine(x, 0);
+    }
+    t.checkExpect(untouched.storedChunks(), 0);
+    t.checkExpect(untouched.chunksDropped > 0, true);
+    // chunks nobody has played in are dropped rather than stored
+
+    InfiniteBoard working = new InfiniteBoard(5, 700, 16);
+    for (int i = 1; i < 16; i++) {
+      working.isMine(i * Chunk.SIZE, 0);
+    }
+    working.isMine(0, 0);
+    for (int i = 1; i < 16; i++) {
+      working.minesOf(i, 0);
+    }
+    working.isMine(0, 0);
+    working.isMine(16 * Chunk.SIZE, 0);
+    t.checkExpect(working.live.containsKey(InfiniteBoard.pack(0, 0)), true);
+    t.checkExpect(working.live.containsKey(InfiniteBoard.pack(1, 0)), false);
+    // a chunk in use stays live when the chunks around it are looked up
+    // for their mines, and the one used longest ago is let go instead
+  }
+
+  // test that counting neighbors doesn't lay out the same mines again
+  void testSpareMines(Tester t) {
+    InfiniteBoard board = new InfiniteBoard(5, 700, 16);
+    board.adjacentMines(0, 0);
+    t.checkExpect(board.layoutsGenerated, 9L);
+    // one chunk and its eight neighbors
+
+    board.adjacentMines(Chunk.SIZE, 0);
+    t.checkExpect(board.layoutsGenerated, 12L);
+    // the chunk next to it needs only the three chunks past it, and becomes
+    // live with the mines counted for its neighbor
+
+    for (int x = 0; x < 40 * Chunk.SIZE; x += Chunk.SIZE) {
+      board.isMine(x, 0);
+    }
+    t.checkExpect(board.spareMines.size(), 16);
+    // the spare mines are bounded like the live chunks
+  }
+
+  // test that a cascade can be spread over several calls
+  void testContinueCascade(Tester t) {
+    InfiniteBoard whole = new InfiniteBoard(1, 500, 64);
+    InfiniteBoard steps = new InfiniteBoard(1, 500, 64);
+    steps.maxCascade = 50;
+    int total = whole.reveal(0, 0);
+    int revealed = steps.reveal(0, 0);
+    t.checkExpect(steps.cascading(), true);
+    while (steps.cascading()) {
+      revealed += steps.continueCascade();
+    }
+    t.checkExpect(revealed, total);
+    t.checkExpect(total > 50, true);
+    // a capped cascade picks up where it stopped
+  }
+
+  // test flags and losing
+  void testFlagsAndLosing(Tester t) {
+    InfiniteBoard board = new InfiniteBoard(2, 800, 16);
+    int x = 10;
+    while (!board.isMine(x, 10)) {
+      x += 1;
+    }
+    t.checkExpect(board.toggleFlag(x, 10), true);
+    t.checkExpect(board.reveal(x, 10), 0);
+    t.checkExpect(board.numFlags, 1L);
+    // a flagged mine can't be uncovered
+
+    board.toggleFlag(x, 10);
+    t.checkExpect(board.reveal(x, 10), 1);
+    t.checkExpect(board.isLost(), true);
+    t.checkExpect(board.reveal(0, 0), 0);
+    t.checkExpect(board.toggleFlag(0, 0), false);
+    // nothing changes once a mine is uncovered
+  }
+
+  // test playing an infinite board through a camera
+  void testWorld(Tester t) {
+    InfiniteWorld world = new InfiniteWorld(new InfiniteBoard(4, 500, 64));
+    WorldScene first = world.makeScene();
+    t.checkExpect(world.makeScene() == first, true);
+    t.checkExpect(world.drawCell(-3, 2), world.cellImages().hidden);
+    // the scene is drawn once and reused until something changes
+
+    world.onMouseClicked(new Posn(800, 450), "LeftButton");
+    t.checkExpect(world.board.isHidden(0, 0), false);
+    t.checkExpect(world.makeScene() == first, false);
+    t.checkExpect(world.drawCell(0, 0), world.cellImages().safe[0]);
+    // the middle of the window is (0, 0), where the game starts
+
+    for (int i = 0; i < 400; i++) {
+      world.onKeyEvent("left");
+    }
+    t.checkExpect(world.camera.firstCol() < -3200, true);
+    int col = world.camera.colAt(800);
+    int row = world.camera.rowAt(450);
+    world.onMouseClicked(new Posn(800, 450), "RightButton");
+    t.checkExpect(world.board.isFlagged(col, row), true);
+    // the camera pans as far as it is asked, and clicks land on the cells
+    // under them
+
+    for (int i = 0; i < 10; i++) {
+      world.onKeyEvent("-");
+    }
+    t.checkExpect(world.camera.cellSize, Board.DETAIL_CELL_SIZE);
+    t.checkExpect(world.drawCell(col, row), world.cellImages().hiddenFlag);
+    // zooming out stops where cells are still drawn as images
+  }
+
+  // test that ticks carry on with a long cascade
+  void testWorldCascade(Tester t) {
+    InfiniteWorld world = new InfiniteWorld(new InfiniteBoard(1, 500, 64));
+    world.board.maxCascade = 50;
+    world.onMouseClicked(new Posn(800, 450), "LeftButton");
+    t.checkExpect(world.board.cascading(), true);
+    long revealed = world.board.cellsRevealed;
+    WorldScene scene = world.makeScene();
+    world.onTick();
+    t.checkExpect(world.board.cellsRevealed > revealed, true);
+    t.checkExpect(world.makeScene() == scene, false);
+    while (world.board.cascading()) {
+      world.onTick();
+    }
+    scene = world.makeScene();
+    world.onTick();
+    t.checkExpect(world.makeScene() == scene, true);
+    // each tick uncovers more of the cascade, and once it is done ticks
+    // leave the scene alone
+  }
+
+  // test that impossible boards are rejected
+  void testErrors(Tester t) {
+    t.checkConstructorException("a chunk with too many mines",
+        new IllegalArgumentException("a chunk can't hold that many mines"), "InfiniteBoard", 1L,
+        4090, 16);
+    t.checkConstructorException("too few live chunks",
+        new IllegalArgumentException("at least 16 chunks have to be kept live"), "InfiniteBoard",
+        1L, 10, 4);
+  }
+}
@@ -0,0 +1,124 @@
+import tester.*;
+import java.util.BitSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+import java.util.function.IntSupplier;
+
+// mine layouts generated on a pool in the background, so that taking one
+// doesn't wait. each layout is laid out from a seed by 'generator', so a
+// layout is the same whether it was generated ahead of time or right away
+class LayoutPool {
+  IntFunction<BitSet> generator;
+  // where the seeds of new layouts come from
+  IntSupplier seeds;
+  ForkJoinPool pool;
+  // the layouts that are ready. the queue has room for every layout that is
+  // ready or being generated, so adding one never has to wait
+  ArrayBlockingQueue<PooledLayout> ready;
+
+  // construct a pool that keeps up to 'capacity' layouts ready, generated on
+  // the given pool. nothing is generated until fill is called, so that the
+  // arguments the generator uses can be checked first
+  LayoutPool(IntFunction<BitSet> generator, IntSupplier seeds, int capacity, ForkJoinPool pool) {
+    this.generator = generator;
+    this.seeds = seeds;
+    this.pool = pool;
+    this.ready = new ArrayBlockingQueue<>(capacity);
+  }
+
+  // start generating a layout for every free place in the pool
+  void fill() {
+    for (int i = this.ready.remainingCapacity(); i > 0; i--) {
+      refill();
+    }
+  }
+
+  // generate one more layout in the background
+  void refill() {
+    int seed = this.seeds.getAsInt();
+    this.pool.execute(() -> {
+      try {
+        this.ready.add(generate(seed));
+      }
+      catch (IllegalStateException e) {
+        // the generator found no layout for the seed. the pool stays short,
+        // and take() generates one itself, which throws
+      }
+    });
+  }
+
+  // lay out the board for the given seed
+  PooledLayout generate(int seed) {
+    return new PooledLayout(seed, this.generator.apply(seed));
+  }
+
+  // take a layout, generating one right away if none is ready yet, and start
+  // generating its replacement
+  PooledLayout take() {
+    PooledLayout layout = this.ready.poll();
+    if (layout == null) {
+      return generate(this.seeds.getAsInt());
+    }
+    refill();
+    return layout;
+  }
+
+  // the number of layouts ready to be taken
+  int available() {
+    return this.ready.size();
+  }
+}
+
+// examples for layout pools
+class ExamplesLayoutPool {
+
+  // a layout with just the mine at the seed's cell
+  BitSet single(int seed) {
+    BitSet layout = new BitSet();
+    layout.set(seed);
+    return layout;
+  }
+
+  // test that a pool fills up in the background and refills as it is taken
+  void testTake(Tester t) {
+    ForkJoinPool threads = new ForkJoinPool(2);
+    LayoutPool pool = new LayoutPool(this::single, new AtomicInteger(10)::getAndIncrement, 3,
+        threads);
+    t.checkExpect(pool.available(), 0);
+    pool.fill();
+    threads.awaitQuiescence(10, TimeUnit.SECONDS);
+    t.checkExpect(pool.available(), 3);
+    // nothing is generated until the pool is filled
+
+    PooledLayout layout = pool.take();
+    t.checkExpect(layout.mines, single(layout.seed));
+    t.checkExpect(layout.seed >= 10 && layout.seed < 13, true);
+    threads.awaitQuiescence(10, TimeUnit.SECONDS);
+    t.checkExpect(pool.available(), 3);
+    // a layout comes with its seed, and taking it starts generating another
+
+    pool.ready.clear();
+    t.checkExpect(pool.take().seed, 14);
+    threads.shutdown();
+    // taking from an empty pool generates a layout right away
+  }
+
+  // test a generator that finds no layout
+  void testFailingGenerator(Tester t) {
+    ForkJoinPool threads = new ForkJoinPool(1);
+    LayoutPool pool = new LayoutPool(seed -> {
+      throw new IllegalStateException("no layout");
+    }, () -> 0, 2, threads);
+    pool.fill();
+    threads.awaitQuiescence(10, TimeUnit.SECONDS);
+    t.checkExpect(pool.available(), 0);
+    t.checkException("take from a pool whose generator fails",
+        new IllegalStateException("no layout"), pool, "take");
+    threads.shutdown();
+    // failures in the background leave the pool empty, and taking from it
+    // fails instead of waiting
+  }
+}
@@ -0,0 +1,247 @@
+import java.util.BitSet;
+import java.util.Random;
+import tester.*;
+
+// represent a random mine generator
+class MineGenerator {
+  Random rand;
+  int gridWidth;
+  int gridHeight;
+  int numMines;
+  // lay the mines out cell by cell with nextMine, the way they were laid out
+  // before makeMineLayout existed, so that old seeds give the same boards
+  boolean legacyLayout;
+  // the number of cells and mines that nextMine has not handed out yet
+  int cellsLeft;
+  int minesLeft;
+
+  // construct an instance of a random mine generator
+  MineGenerator(int gridWidth, int gridHeight, int numMines) {
+    this.rand = new Random();
+    this.gridWidth = gridWidth;
+    this.gridHeight = gridHeight;
+    this.numMines = numMines;
+    this.legacyLayout = false;
+    this.cellsLeft = gridWidth * gridHeight;
+    this.minesLeft = Math.max(0, Math.min(numMines, this.cellsLeft));
+  }
+
+  // constructor with random seed argument
+  MineGenerator(int gridWidth, int gridHeight, int numMines, int seed) {
+    this(gridWidth, gridHeight, numMines);
+    this.rand = new Random(seed);
+  }
+
+  // constructor with random seed argument that can opt into the legacy layout
+  MineGenerator(int gridWidth, int gridHeight, int numMines, int seed, boolean legacyLayout) {
+    this(gridWidth, gridHeight, numMines, seed);
+    this.legacyLayout = legacyLayout;
+  }
+
+  // draw a new seed from this generator and carry on from it, so that a
+  // generator made with the seed lays out the same mines as this one from now
+  // on
+  int reseed() {
+    int seed = this.rand.nextInt();
+    this.rand.setSeed(seed);
+    return seed;
+  }
+
+  // decide whether the next cell is a mine.
+  // this used to pick and remove a random element of a list holding all the
+  // mines followed by all the safe cells. removing keeps that list in order,
+  // so the picked element is a mine exactly when the random index is below the
+  // number of mines left. counting instead of keeping the list draws the same
+  // random numbers, so seeded layouts stay the same.
+  boolean nextMine() {
+    int randomIndex = rand.nextInt(this.cellsLeft);
+    boolean createMine = randomIndex < this.minesLeft;
+    this.cellsLeft -= 1;
+    if (createMine) {
+      this.minesLeft -= 1;
+    }
+    return createMine;
+  }
+
+  // choose the cells that hold mines. a cell's index in the result is
+  // row * gridWidth + col
+  BitSet makeMineLayout() {
+    int numCells = this.gridWidth * this.gridHeight;
+    BitSet layout = new BitSet(numCells);
+    if (this.legacyLayout) {
+      for (int index = 0; index < numCells; index++) {
+        if (nextMine()) {
+          layout.set(index);
+        }
+      }
+    }
+    else {
+      // Floyd's sampling: each step picks a cell among the first j + 1 and
+      // takes cell j itself if the pick is already a mine. this takes one
+      // random number per mine and every set of mines is equally likely
+      for (int j = numCells - this.minesLeft; j < numCells; j++) {
+        int candidate = this.rand.nextInt(j + 1);
+        if (layout.get(candidate)) {
+          layout.set(j);
+        }
+        else {
+          layout.set(candidate);
+        }
+      }
+      this.cellsLeft = 0;
+      this.minesLeft = 0;
+    }
+    return layout;
+  }
+
+  // choose the cells that hold mines once the first click is known, keeping
+  // the clicked cell and its neighbors clear. when there are too many mines
+  // for that, only the clicked cell is kept clear. every such layout is equally
+  // likely, and the legacy layout doesn't apply
+  BitSet makeMineLayout(int firstCol, int firstRow) {
+    int numCells = this.gridWidth * this.gridHeight;
+    BitSet clear = new BitSet(numCells);
+    for (int row = Math.max(0, firstRow - 1); row <= Math.min(this.gridHeight - 1,
+        firstRow + 1); row++) {
+      for (int col = Math.max(0, firstCol - 1); col <= Math.min(this.gridWidth - 1,
+          firstCol + 1); col++) {
+        clear.set(row * this.gridWidth + col);
+      }
+    }
+    if (numCells - clear.cardinality() < this.numMines) {
+      clear.clear();
+      clear.set(firstRow * this.gridWidth + firstCol);
+    }
+    int[] allowed = new int[numCells - clear.cardinality()];
+    int numAllowed = 0;
+    for (int index = clear.nextClearBit(0); index < numCells; index = clear
+        .nextClearBit(index + 1)) {
+      allowed[numAllowed] = index;
+      numAllowed += 1;
+    }
+    // Floyd's sampling over the allowed cells
+    int mines = Math.max(0, Math.min(this.numMines, numAllowed));
+    BitSet picked = new BitSet(numAllowed);
+    for (int j = numAllowed - mines; j < numAllowed; j++) {
+      int candidate = this.rand.nextInt(j + 1);
+      if (picked.get(candidate)) {
+        picked.set(j);
+      }
+      else {
+        picked.set(candidate);
+      }
+    }
+    BitSet layout = new BitSet(numCells);
+    for (int i = picked.nextSetBit(0); i >= 0; i = picked.nextSetBit(i + 1)) {
+      layout.set(allowed[i]);
+    }
+    this.cellsLeft = 0;
+    this.minesLeft = 0;
+    return layout;
+  }
+}
+
+// examples for mineGenerator
+class ExamplesMineGenerator {
+  MineGenerator mg;
+  BitSet legacyLayout;
+
+  // initialize variables
+  void init() {
+    mg = new MineGenerator(3, 3, 2, 9, true);
+    legacyLayout = new BitSet(9);
+
+    legacyLayout.set(0);
+    legacyLayout.set(8);
+  }
+
+  // test the nextMine method
+  void testNextMine(Tester t) {
+    init();
+    t.checkExpect(mg.nextMine(), true);
+    t.checkExpect(mg.nextMine(), false);
+    t.checkExpect(mg.nextMine(), false);
+
+    t.checkExpect(mg.nextMine(), false);
+    t.checkExpect(mg.nextMine(), false);
+    t.checkExpect(mg.nextMine(), false);
+
+    t.checkExpect(mg.nextMine(), false);
+    t.checkExpect(mg.nextMine(), false);
+    t.checkExpect(mg.nextMine(), true);
+
+    t.checkException("calling next mine when the mine arraylist is empty",
+        new IllegalArgumentException("bound must be positive"), mg, "nextMine");
+    /*
+     * these checkExpects test that game board will look like the following:
+     * 
+     * X O O O O O O O X
+     * 
+     * (X = mine, O = safe)
+     */
+  }
+
+  // test the counts of cells and mines left to hand out
+  boolean testMinesLeft(Tester t) {
+    init();
+    return t.checkExpect(mg.cellsLeft, 9)
+        && t.checkExpect(mg.minesLeft, 2)
+        && t.checkExpect(new MineGenerator(2, 2, 7).minesLeft, 4)
+        && t.checkExpect(new MineGenerator(2, 2, -1).minesLeft, 0);
+    // there can't be more mines than cells or fewer than none
+  }
+
+  // test the makeMineLayout method
+  void testMakeMineLayout(Tester t) {
+    init();
+    t.checkExpect(mg.makeMineLayout(), legacyLayout);
+    // the legacy layout for seed 9 looks like the following:
+    //
+    // X O O O O O O O X
+    //
+    // (X = mine, O = safe)
+
+    t.checkExpect(new MineGenerator(30, 16, 99, 9).makeMineLayout().cardinality(), 99);
+    t.checkExpect(new MineGenerator(4, 4, 16, 9).makeMineLayout().cardinality(), 16);
+    t.checkExpect(new MineGenerator(4, 4, 0, 9).makeMineLayout().cardinality(), 0);
+    // the sampled layout has exactly the requested number of mines
+
+    t.checkExpect(new MineGenerator(30, 16, 99, 3).makeMineLayout(),
+        new MineGenerator(30, 16, 99, 3).makeMineLayout());
+    // the same seed always gives the same layout
+
+    t.checkExpect(new MineGenerator(2000, 2000, 800000, 3).makeMineLayout().cardinality(), 800000);
+    // large boards are laid out in time proportional to the number of mines
+  }
+
+  // test the makeMineLayout method that keeps the first click clear
+  void testMakeMineLayoutFirstClick(Tester t) {
+    BitSet layout = new MineGenerator(5, 5, 16, 9).makeMineLayout(2, 2);
+    BitSet expected = new BitSet();
+    expected.set(0, 25);
+    expected.clear(6, 9);
+    expected.clear(11, 14);
+    expected.clear(16, 19);
+    t.checkExpect(layout, expected);
+    // the 16 mines fill every cell around the 3x3 square in the middle
+
+    layout = new MineGenerator(3, 3, 8, 9).makeMineLayout(1, 1);
+    t.checkExpect(layout.cardinality(), 8);
+    t.checkExpect(layout.get(4), false);
+    // with too many mines to keep the neighbors clear, only the click is
+
+    t.checkExpect(new MineGenerator(30, 16, 99, 3).makeMineLayout(4, 7),
+        new MineGenerator(30, 16, 99, 3).makeMineLayout(4, 7));
+    // the same seed and first click always give the same layout
+  }
+
+  // test carrying on from a new seed
+  void testReseed(Tester t) {
+    MineGenerator generator = new MineGenerator(30, 16, 99);
+    int seed = generator.reseed();
+    t.checkExpect(generator.makeMineLayout(4, 7),
+        new MineGenerator(30, 16, 99, seed).makeMineLayout(4, 7));
+    // even an unseeded generator lays out the mines a seeded one does from
+    // the seed it hands out
+  }
+}
@@ -0,0 +1,644 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import tester.*;
+
+// the constraints of one connected part of the frontier, written as a flat
+// array so it can be used as a cache key: for each constraint, the number of
+// mines it needs, the number of cells it covers and then those cells
+class ComponentKey {
+  int[] constraints;
+  int hash;
+
+  // construct a key for the given encoded constraints
+  ComponentKey(int[] constraints) {
+    this.constraints = constraints;
+    this.hash = Arrays.hashCode(constraints);
+  }
+
+  // is this key the same as the other object?
+  public boolean equals(Object other) {
+    return other instanceof ComponentKey
+        && Arrays.equals(this.constraints, ((ComponentKey) other).constraints);
+  }
+
+  // the hash of the encoded constraints
+  public int hashCode() {
+    return this.hash;
+  }
+}
+
+// the ways the mines of one part of the frontier can be laid out.
+// solutions[k] is the number of layouts with k mines, and cellMines[i][k] is
+// the number of those layouts where cells[i] is a mine. both are divided by
+// the same amount to keep them in range, which doesn't change any probability
+class ComponentCounts {
+  int[] cells;
+  double[] solutions;
+  double[][] cellMines;
+
+  // construct empty counts for the given cells
+  ComponentCounts(int[] cells) {
+    this.cells = cells;
+    this.solutions = new double[cells.length + 1];
+    this.cellMines = new double[cells.length][cells.length + 1];
+  }
+}
+
+// computes the exact probability that each hidden cell of a game is a mine,
+// given what a player can see and the number of mines on the board.
+//
+// the hidden cells next to uncovered numbers (the frontier) are split into
+// parts that share no number. the layouts of each part are counted by
+// backtracking, separately for every number of mines the part can hold. the
+// parts are then combined, weighting every way of splitting the mines between
+// the parts by the number of ways to put the rest of the mines in the hidden
+// cells away from the frontier. counts for a part are cached by its
+// constraints, so after a move only the parts it changed are counted again.
+class MineProbabilities {
+  PackedBoard board;
+  // the probability that each cell is a mine. uncovered cells are 0
+  double[] probabilities;
+  // the probability that a hidden cell away from the frontier is a mine
+  double interiorProbability;
+  LinkedHashMap<ComponentKey, ComponentCounts> cache;
+  int cacheHits;
+  int cacheMisses;
+  // scratch state for counting one part
+  int[] groupSize;
+  int[][] groupConstraints;
+  int[] groupValue;
+  int[] constraintMines;
+  int[] constraintUnassigned;
+  int[] constraintRequired;
+  double[] solutions;
+  double[][] groupMines;
+
+  // BINOMIALS[n][k] is the number of ways to choose k of n cells, for as many
+  // cells as one group can hold
+  static final double[][] BINOMIALS = new double[9][9];
+
+  static {
+    for (int n = 0; n < 9; n++) {
+      BINOMIALS[n][0] = 1;
+      for (int k = 1; k <= n; k++) {
+        BINOMIALS[n][k] = BINOMIALS[n - 1][k - 1] + BINOMIALS[n - 1][k];
+      }
+    }
+  }
+
+  // construct an engine whose cache holds the counts of up to 'cacheSize' parts
+  MineProbabilities(int cacheSize) {
+    this.cache = new LinkedHashMap<ComponentKey, ComponentCounts>(16, 0.75f, true) {
+      protected boolean removeEldestEntry(Map.Entry<ComponentKey, ComponentCounts> eldest) {
+        return size() > cacheSize;
+      }
+    };
+  }
+
+  // construct an engine with room in its cache for a few thousand parts
+  MineProbabilities() {
+    this(4096);
+  }
+
+  // compute the probabilities for the given game. cells in 'knownMines' and
+  // 'knownSafe' (either may be null) are taken as settled, which must follow
+  // from what the player can see, like the cells a MineSolver settles
+  void compute(MinesweeperGame game, BitSet knownMines, BitSet knownSafe) {
+    this.board = game.board;
+    int size = this.board.size();
+    if (this.probabilities == null || this.probabilities.length != size) {
+      this.probabilities = new double[size];
+    }
+    Arrays.fill(this.probabilities, 0);
+
+    // the hidden cells that aren't settled yet
+    BitSet unknown = (BitSet) this.board.hidden.clone();
+    int minesLeft = game.numMines;
+    if (knownMines != null) {
+      unknown.andNot(knownMines);
+      for (int index = knownMines.nextSetBit(0); index >= 0; index = knownMines
+          .nextSetBit(index + 1)) {
+        this.probabilities[index] = 1;
+        minesLeft -= 1;
+      }
+    }
+    if (knownSafe != null) {
+      unknown.andNot(knownSafe);
+    }
+
+    // every uncovered cell next to an unknown cell is a constraint
+    int[] neighbors = new int[8];
+    ArrayList<int[]> constraints = new ArrayList<>();
+    int[] parent = new int[size];
+    Arrays.fill(parent, -1);
+    BitSet frontier = new BitSet(size);
+    for (int index = this.board.hidden.nextClearBit(0); index < size; index = this.board.hidden
+        .nextClearBit(index + 1)) {
+      if (this.board.isMine(index)) {
+        continue;
+      }
+      int numNeighbors = this.board.neighbors(index, neighbors);
+      int required = this.board.adjacentMines(index);
+      int numCells = 0;
+      int[] cells = new int[numNeighbors];
+      for (int i = 0; i < numNeighbors; i++) {
+        if (unknown.get(neighbors[i])) {
+          cells[numCells] = neighbors[i];
+          numCells += 1;
+        }
+        else if (knownMines != null && knownMines.get(neighbors[i])) {
+          required -= 1;
+        }
+      }
+      if (numCells > 0) {
+        int[] constraint = new int[numCells + 1];
+        constraint[0] = required;
+        System.arraycopy(cells, 0, constraint, 1, numCells);
+        constraints.add(constraint);
+        for (int i = 0; i < numCells; i++) {
+          frontier.set(cells[i]);
+          if (parent[cells[i]] < 0) {
+            parent[cells[i]] = cells[i];
+          }
+          union(parent, cells[0], cells[i]);
+        }
+      }
+    }
+
+    // group the constraints into parts by the root of their first cell
+    LinkedHashMap<Integer, ArrayList<int[]>> parts = new LinkedHashMap<>();
+    for (int[] constraint : constraints) {
+      int root = find(parent, constraint[1]);
+      ArrayList<int[]> part = parts.get(root);
+      if (part == null) {
+        part = new ArrayList<>();
+        parts.put(root, part);
+      }
+      part.add(constraint);
+    }
+    ArrayList<ComponentCounts> counts = new ArrayList<>();
+    for (ArrayList<int[]> part : parts.values()) {
+      counts.add(countPart(part));
+    }
+
+    BitSet interior = (BitSet) unknown.clone();
+    interior.andNot(frontier);
+    combine(counts, interior.cardinality(), minesLeft);
+    for (int index = interior.nextSetBit(0); index >= 0; index = interior.nextSetBit(index + 1)) {
+      this.probabilities[index] = this.interiorProbability;
+    }
+  }
+
+  // the root of the given cell's group
+  int find(int[] parent, int cell) {
+    while (parent[cell] != cell) {
+      parent[cell] = parent[parent[cell]];
+      cell = parent[cell];
+    }
+    return cell;
+  }
+
+  // put the groups of the two cells together
+  void union(int[] parent, int a, int b) {
+    int rootA = find(parent, a);
+    int rootB = find(parent, b);
+    if (rootA != rootB) {
+      parent[Math.max(rootA, rootB)] = Math.min(rootA, rootB);
+    }
+  }
+
+  // the layouts of one part, from the cache if its constraints were counted
+  // before
+  ComponentCounts countPart(ArrayList<int[]> part) {
+    int length = 0;
+    for (int[] constraint : part) {
+      length += constraint.length + 1;
+    }
+    int[] encoded = new int[length];
+    int at = 0;
+    for (int[] constraint : part) {
+      encoded[at] = constraint[0];
+      encoded[at + 1] = constraint.length - 1;
+      System.arraycopy(constraint, 1, encoded, at + 2, constraint.length - 1);
+      at += constraint.length + 1;
+    }
+    ComponentKey key = new ComponentKey(encoded);
+    ComponentCounts cached = this.cache.get(key);
+    if (cached != null) {
+      this.cacheHits += 1;
+      return cached;
+    }
+    this.cacheMisses += 1;
+    ComponentCounts counts = enumerate(part);
+    this.cache.put(key, counts);
+    return counts;
+  }
+
+  // count the layouts of one part by backtracking. cells that are in exactly
+  // the same constraints can't be told apart, so they are put in one group and
+  // the backtracking only decides how many mines each group holds
+  ComponentCounts enumerate(ArrayList<int[]> part) {
+    int numConstraints = part.size();
+    HashMap<Integer, ArrayList<Integer>> constraintsOf = new HashMap<>();
+    for (int c = 0; c < numConstraints; c++) {
+      int[] constraint = part.get(c);
+      for (int i = 1; i < constraint.length; i++) {
+        ArrayList<Integer> list = constraintsOf.get(constraint[i]);
+        if (list == null) {
+          list = new ArrayList<>();
+          constraintsOf.put(constraint[i], list);
+        }
+        list.add(c);
+      }
+    }
+
+    // visit the cells breadth first along the frontier, so that the groups of
+    // each constraint are decided close together and a layout that can't work
+    // is given up early
+    ArrayList<Integer> order = new ArrayList<>();
+    HashSet<Integer> visited = new HashSet<>();
+    order.add(part.get(0)[1]);
+    visited.add(part.get(0)[1]);
+    for (int next = 0; next < order.size(); next++) {
+      for (int c : constraintsOf.get(order.get(next))) {
+        int[] constraint = part.get(c);
+        for (int i = 1; i < constraint.length; i++) {
+          if (visited.add(constraint[i])) {
+            order.add(constraint[i]);
+          }
+        }
+      }
+    }
+
+    HashMap<ArrayList<Integer>, Integer> groupOf = new HashMap<>();
+    ArrayList<ArrayList<Integer>> groups = new ArrayList<>();
+    int[] cells = new int[order.size()];
+    int[] cellGroup = new int[order.size()];
+    for (int i = 0; i < order.size(); i++) {
+      cells[i] = order.get(i);
+      ArrayList<Integer> memberOf = constraintsOf.get(cells[i]);
+      Integer group = groupOf.get(memberOf);
+      if (group == null) {
+        group = groups.size();
+        groupOf.put(memberOf, group);
+        groups.add(memberOf);
+      }
+      cellGroup[i] = group;
+    }
+
+    int numGroups = groups.size();
+    this.groupSize = new int[numGroups];
+    for (int i = 0; i < cells.length; i++) {
+      this.groupSize[cellGroup[i]] += 1;
+    }
+    this.groupConstraints = new int[numGroups][];
+    for (int g = 0; g < numGroups; g++) {
+      ArrayList<Integer> memberOf = groups.get(g);
+      this.groupConstraints[g] = new int[memberOf.size()];
+      for (int i = 0; i < memberOf.size(); i++) {
+        this.groupConstraints[g][i] = memberOf.get(i);
+      }
+    }
+    this.constraintRequired = new int[numConstraints];
+    this.constraintMines = new int[numConstraints];
+    this.constraintUnassigned = new int[numConstraints];
+    for (int c = 0; c < numConstraints; c++) {
+      this.constraintRequired[c] = part.get(c)[0];
+      this.constraintUnassigned[c] = part.get(c).length - 1;
+    }
+    this.groupValue = new int[numGroups];
+    this.solutions = new double[cells.length + 1];
+    this.groupMines = new double[numGroups][cells.length + 1];
+    backtrack(0, 0, 1);
+
+    // spread each group's mines evenly over its cells, and scale the counts
+    // down so that large parts don't overflow when combined
+    double largest = 0;
+    for (double solutions : this.solutions) {
+      largest = Math.max(largest, solutions);
+    }
+    ComponentCounts counts = new ComponentCounts(cells);
+    for (int k = 0; k <= cells.length; k++) {
+      counts.solutions[k] = this.solutions[k] / largest;
+      for (int i = 0; i < cells.length; i++) {
+        counts.cellMines[i][k] = this.groupMines[cellGroup[i]][k] / largest
+            / this.groupSize[cellGroup[i]];
+      }
+    }
+    return counts;
+  }
+
+  // decide the groups from 'group' on, given that the groups before it hold
+  // 'mines' mines and can be laid out in 'ways' ways
+  void backtrack(int group, int mines, double ways) {
+    if (group == this.groupValue.length) {
+      this.solutions[mines] += ways;
+      for (int g = 0; g < this.groupValue.length; g++) {
+        this.groupMines[g][mines] += ways * this.groupValue[g];
+      }
+      return;
+    }
+    int size = this.groupSize[group];
+    for (int value = 0; value <= size; value++) {
+      this.groupValue[group] = value;
+      boolean possible = true;
+      for (int c : this.groupConstraints[group]) {
+        this.constraintMines[c] += value;
+        this.constraintUnassigned[c] -= size;
+        if (this.constraintMines[c] > this.constraintRequired[c]
+            || this.constraintMines[c] + this.constraintUnassigned[c]
+                < this.constraintRequired[c]) {
+          possible = false;
+        }
+      }
+      if (possible) {
+        backtrack(group + 1, mines + value, ways * BINOMIALS[size][value]);
+      }
+      for (int c : this.groupConstraints[group]) {
+        this.constraintMines[c] -= value;
+        this.constraintUnassigned[c] += size;
+      }
+    }
+  }
+
+  // the layouts of several parts together: result[m] counts the ways for the
+  // parts to hold m mines between them
+  static double[] convolve(double[] a, double[] b) {
+    double[] result = new double[a.length + b.length - 1];
+    for (int i = 0; i < a.length; i++) {
+      if (a[i] != 0) {
+        for (int j = 0; j < b.length; j++) {
+          result[i + j] += a[i] * b[j];
+        }
+      }
+    }
+    return result;
+  }
+
+  // work out every frontier cell's probability from the counts of its part and
+  // the interior probability, given the number of hidden cells away from the
+  // frontier and the number of mines not yet settled
+  void combine(ArrayList<ComponentCounts> counts, int interior, int minesLeft) {
+    int numParts = counts.size();
+    // prefix[j] combines parts 0 to j - 1 and suffix[j] parts j to the end
+    double[][] prefix = new double[numParts + 1][];
+    double[][] suffix = new double[numParts + 1][];
+    prefix[0] = new double[] { 1 };
+    suffix[numParts] = new double[] { 1 };
+    for (int j = 0; j < numParts; j++) {
+      prefix[j + 1] = convolve(prefix[j], counts.get(j).solutions);
+    }
+    for (int j = numParts - 1; j >= 0; j--) {
+      suffix[j] = convolve(counts.get(j).solutions, suffix[j + 1]);
+    }
+    double[] all = prefix[numParts];
+
+    // ways[x] is the number of ways to put x mines in the interior, divided by
+    // the largest such number that can come up, so that it stays in range
+    double[] logFactorials = new double[interior + 1];
+    for (int i = 1; i <= interior; i++) {
+      logFactorials[i] = logFactorials[i - 1] + Math.log(i);
+    }
+    double[] ways = new double[all.length];
+    double largestLog = Double.NEGATIVE_INFINITY;
+    for (int m = 0; m < all.length; m++) {
+      int x = minesLeft - m;
+      if (0 <= x && x <= interior) {
+        largestLog = Math.max(largestLog,
+            logFactorials[interior] - logFactorials[x] - logFactorials[interior - x]);
+      }
+    }
+    for (int m = 0; m < all.length; m++) {
+      int x = minesLeft - m;
+      if (0 <= x && x <= interior) {
+        ways[m] = Math.exp(
+            logFactorials[interior] - logFactorials[x] - logFactorials[interior - x] - largestLog);
+      }
+    }
+
+    double total = 0;
+    double interiorMines = 0;
+    for (int m = 0; m < all.length; m++) {
+      total += all[m] * ways[m];
+      if (interior > 0) {
+        interiorMines += all[m] * ways[m] * (minesLeft - m) / interior;
+      }
+    }
+    if (total == 0) {
+      // what the board shows can't happen with this many mines
+      this.interiorProbability = Double.NaN;
+      return;
+    }
+    this.interiorProbability = interiorMines / total;
+
+    for (int j = 0; j < numParts; j++) {
+      ComponentCounts part = counts.get(j);
+      double[] others = convolve(prefix[j], suffix[j + 1]);
+      // weights[k] is the weight of every layout of this part with k mines
+      double[] weights = new double[part.solutions.length];
+      for (int k = 0; k < weights.length; k++) {
+        for (int m = 0; m < others.length && k + m < ways.length; m++) {
+          weights[k] += others[m] * ways[k + m];
+        }
+      }
+      for (int i = 0; i < part.cells.length; i++) {
+        double mine = 0;
+        for (int k = 0; k < weights.length; k++) {
+          mine += part.cellMines[i][k] * weights[k];
+        }
+        this.probabilities[part.cells[i]] = mine / total;
+      }
+    }
+  }
+
+  // the probability that the cell at the given column and row is a mine
+  double probability(int colIndex, int rowIndex) {
+    return this.probabilities[this.board.index(colIndex, rowIndex)];
+  }
+
+  // the hidden cell that is least likely to be a mine, not counting the cells
+  // in 'skip' (which may be null), or -1 if every hidden cell is skipped
+  int safestCell(BitSet skip) {
+    int safest = -1;
+    for (int index = this.board.hidden.nextSetBit(0); index >= 0; index = this.board.hidden
+        .nextSetBit(index + 1)) {
+      if ((skip == null || !skip.get(index))
+          && (safest < 0 || this.probabilities[index] < this.probabilities[safest])) {
+        safest = index;
+      }
+    }
+    return safest;
+  }
+}
+
+// plays like a SolverStrategy, but when no cell is known to be safe it
+// uncovers the hidden cell that is least likely to be a mine
+class ProbabilityStrategy extends SolverStrategy {
+  ThreadLocal<MineProbabilities> engines;
+
+  // construct the strategy
+  ProbabilityStrategy() {
+    this.engines = ThreadLocal.withInitial(MineProbabilities::new);
+  }
+
+  // the hidden cell least likely to be a mine
+  int guess(MineSolver solver, Random rand) {
+    MineProbabilities engine = this.engines.get();
+    engine.compute(solver.game, solver.knownMines, solver.knownSafe);
+    int index = engine.safestCell(solver.knownMines);
+    if (index < 0) {
+      return super.guess(solver, rand);
+    }
+    return index;
+  }
+}
+
+// examples for mine probabilities
+class ExamplesMineProbabilities {
+
+  // a game on a board with the given mines, with the given cells uncovered
+  MinesweeperGame gameWith(int gridWidth, int gridHeight, int[] mines, int[] uncovered) {
+    MinesweeperGame game = new MinesweeperGame(
+        new MineGenerator(gridWidth, gridHeight, mines.length, 1));
+    game.board = new PackedBoard(gridWidth, gridHeight);
+    for (int mine : mines) {
+      game.board.placeMine(mine);
+    }
+    for (int cell : uncovered) {
+      game.board.reveal(cell);
+    }
+    return game;
+  }
+
+  // test a single constraint with the rest of the mines in the interior
+  void testInterior(Tester t) {
+    // a row of 6 cells, the second uncovered:
+    //
+    // ? 1 ? ? ? ?
+    //
+    // with 2 mines, one of the first and third cells is a mine and the other
+    // is in one of the last three cells
+    MinesweeperGame game = gameWith(6, 1, new int[] { 0, 5 }, new int[] { 1 });
+    MineProbabilities engine = new MineProbabilities();
+    engine.compute(game, null, null);
+    t.checkInexact(engine.probability(0, 0), 0.5, 0.0001);
+    t.checkInexact(engine.probability(2, 0), 0.5, 0.0001);
+    t.checkInexact(engine.interiorProbability, 1.0 / 3, 0.0001);
+    t.checkInexact(engine.probability(5, 0), 1.0 / 3, 0.0001);
+    t.checkInexact(engine.probability(1, 0), 0.0, 0.0001);
+  }
+
+  // test that settled cells come out certain
+  void testCertain(Tester t) {
+    // ? ? ?
+    // 1 2 1
+    MinesweeperGame game = gameWith(3, 2, new int[] { 0, 2 }, new int[] { 3, 4, 5 });
+    MineProbabilities engine = new MineProbabilities();
+    engine.compute(game, null, null);
+    t.checkInexact(engine.probability(0, 0), 1.0, 0.0001);
+    t.checkInexact(engine.probability(1, 0), 0.0, 0.0001);
+    t.checkInexact(engine.probability(2, 0), 1.0, 0.0001);
+    t.checkExpect(engine.safestCell(null), 1);
+  }
+
+  // test against counting every possible layout on small boards
+  void testMatchesBruteForce(Tester t) {
+    boolean matches = true;
+    for (int seed = 0; seed < 40; seed++) {
+      Random rand = new Random(seed);
+      MinesweeperGame game = new MinesweeperGame(new MineGenerator(5, 4, 4, seed));
+      for (int i = 0; i < 3; i++) {
+        int index = rand.nextInt(20);
+        if (!game.board.isMine(index)) {
+          game.board.reveal(index);
+        }
+      }
+      MineProbabilities engine = new MineProbabilities();
+      engine.compute(game, null, null);
+      double[] expected = bruteForce(game);
+      for (int index = 0; index < 20; index++) {
+        if (Math.abs(expected[index] - engine.probabilities[index]) > 1e-9) {
+          matches = false;
+        }
+      }
+    }
+    t.checkExpect(matches, true);
+  }
+
+  // the probability of each cell being a mine, found by trying every way of
+  // putting the game's mines in its hidden cells
+  double[] bruteForce(MinesweeperGame game) {
+    PackedBoard board = game.board;
+    int[] hiddenCells = new int[board.countHidden()];
+    int numHidden = 0;
+    for (int index = board.hidden.nextSetBit(0); index >= 0; index = board.hidden
+        .nextSetBit(index + 1)) {
+      hiddenCells[numHidden] = index;
+      numHidden += 1;
+    }
+    double[] mineCounts = new double[board.size()];
+    double layouts = 0;
+    for (int mask = 0; mask < (1 << numHidden); mask++) {
+      if (Integer.bitCount(mask) == game.numMines) {
+        PackedBoard candidate = new PackedBoard(board.gridWidth, board.gridHeight);
+        for (int i = 0; i < numHidden; i++) {
+          if ((mask >> i & 1) == 1) {
+            candidate.placeMine(hiddenCells[i]);
+          }
+        }
+        boolean consistent = true;
+        for (int index = 0; index < board.size(); index++) {
+          if (!board.isHidden(index)
+              && candidate.adjacentMines(index) != board.adjacentMines(index)) {
+            consistent = false;
+          }
+        }
+        if (consistent) {
+          layouts += 1;
+          for (int i = 0; i < numHidden; i++) {
+            if ((mask >> i & 1) == 1) {
+              mineCounts[hiddenCells[i]] += 1;
+            }
+          }
+        }
+      }
+    }
+    for (int index = 0; index < board.size(); index++) {
+      mineCounts[index] /= layouts;
+    }
+    return mineCounts;
+  }
+
+  // test that unchanged parts of the frontier come from the cache
+  void testCache(Tester t) {
+    MinesweeperGame game = new MinesweeperGame(new MineGenerator(30, 16, 99, 3));
+    SolverStrategy strategy = new SolverStrategy();
+    strategy.startGame(game);
+    Random rand = new Random(3);
+    for (int i = 0; i < 5 && !game.isOver(); i++) {
+      strategy.move(game, rand);
+    }
+    MineProbabilities engine = new MineProbabilities();
+    engine.compute(game, null, null);
+    int misses = engine.cacheMisses;
+    engine.compute(game, null, null);
+    t.checkExpect(engine.cacheMisses, misses);
+    t.checkExpect(engine.cacheHits, misses);
+    // computing again without a move counts nothing again
+  }
+
+  // test that guessing by probability wins more often than guessing at random
+  void testProbabilityStrategy(Tester t) {
+    SimulationStats solver = new GameSimulator(9, 9, 10, new SolverStrategy())
+        .simulate(1, 300, null);
+    SimulationStats probability = new GameSimulator(9, 9, 10, new ProbabilityStrategy())
+        .simulate(1, 300, null);
+    t.checkExpect(probability.wins > solver.wins, true);
+  }
+}
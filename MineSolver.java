@@ -0,0 +1,420 @@
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import tester.*;
+
+// works out which hidden cells of a game are certainly safe and which are
+// certainly mines, using only what a player can see: the numbers on the
+// uncovered cells and which cells are hidden or flagged. flags are trusted to
+// be mines.
+//
+// every uncovered number is a constraint: its hidden neighbors that aren't
+// known yet hold exactly its number minus its known mines. a constraint whose
+// count is 0 makes all of its cells safe, and one whose count equals its
+// number of cells makes them all mines. when the cells of one constraint are
+// a subset of another's, the cells left over hold the difference of their
+// counts, which can settle them the same way.
+//
+// the solver is incremental: it only re-examines the numbers next to cells
+// whose state changed, either because a move uncovered or flagged them or
+// because the solver settled them.
+class MineSolver {
+  MinesweeperGame game;
+  PackedBoard board;
+  // hidden cells the solver has proven to be mines or safe
+  BitSet knownMines;
+  BitSet knownSafe;
+  // the uncovered numbers waiting to be examined
+  int[] queue;
+  int queueSize;
+  BitSet queued;
+  // the number of times a number has been examined, for checking that work
+  // stays near the cells that changed
+  long examined;
+  // scratch arrays reused by every examination
+  int[] cellsA;
+  int[] cellsB;
+  int[] toSettle;
+  int[] neighborScratch;
+
+  // construct a solver for the given game, examining every uncovered number
+  MineSolver(MinesweeperGame game) {
+    this.cellsA = new int[8];
+    this.cellsB = new int[8];
+    this.toSettle = new int[8];
+    this.neighborScratch = new int[8];
+    this.knownMines = new BitSet();
+    this.knownSafe = new BitSet();
+    this.queued = new BitSet();
+    this.queue = new int[64];
+    reset(game);
+  }
+
+  // forget everything and start solving the given game from what it shows now
+  void reset(MinesweeperGame game) {
+    this.game = game;
+    this.board = game.board;
+    this.knownMines.clear();
+    this.knownSafe.clear();
+    this.queued.clear();
+    this.queueSize = 0;
+    this.examined = 0;
+    BitSet hidden = this.board.hidden;
+    for (int index = hidden.nextClearBit(0); index < this.board.size(); index = hidden
+        .nextClearBit(index + 1)) {
+      enqueue(index);
+    }
+  }
+
+  // take in the cells uncovered by the game's last move
+  void update() {
+    for (int i = 0; i < this.game.numRevealed; i++) {
+      int index = this.board.revealed[i];
+      this.knownSafe.clear(index);
+      enqueue(index);
+      enqueueNeighbors(index);
+    }
+  }
+
+  // take in a flag placed on or taken off the given cell. the numbers around
+  // it have one mine fewer or more left to account for, so they are examined
+  // again
+  void flagToggled(int index) {
+    enqueueNeighbors(index);
+  }
+
+  // examine numbers until no rule settles another cell, and return the number
+  // of cells settled
+  int solve() {
+    int settled = 0;
+    while (this.queueSize > 0) {
+      this.queueSize -= 1;
+      int index = this.queue[this.queueSize];
+      this.queued.clear(index);
+      settled += examine(index);
+    }
+    return settled;
+  }
+
+  // a hidden cell that is known to be safe, or -1 if there is none
+  int nextSafe() {
+    return this.knownSafe.nextSetBit(0);
+  }
+
+  // is the given cell an uncovered number? uncovered 0s count too: a cascade
+  // only uncovers 0s, so the cells around an opening are only known to be
+  // safe because of the 0s next to them
+  boolean isNumber(int index) {
+    return !this.board.isHidden(index) && !this.board.isMine(index);
+  }
+
+  // is the given hidden cell known to be a mine, either by the solver or by a
+  // flag?
+  boolean isKnownMine(int index) {
+    return this.knownMines.get(index) || this.board.isFlagged(index);
+  }
+
+  // queue the given cell to be examined if it is an uncovered number
+  void enqueue(int index) {
+    if (isNumber(index) && !this.queued.get(index)) {
+      if (this.queueSize == this.queue.length) {
+        this.queue = Arrays.copyOf(this.queue, 2 * this.queueSize);
+      }
+      this.queue[this.queueSize] = index;
+      this.queueSize += 1;
+      this.queued.set(index);
+    }
+  }
+
+  // queue the uncovered numbers around the given cell
+  void enqueueNeighbors(int index) {
+    int numNeighbors = this.board.neighbors(index, this.neighborScratch);
+    for (int i = 0; i < numNeighbors; i++) {
+      enqueue(this.neighborScratch[i]);
+    }
+  }
+
+  // write the hidden neighbors of the given number that aren't settled into
+  // 'out', and return how many there are
+  int unsettled(int index, int[] out) {
+    int numNeighbors = this.board.neighbors(index, this.neighborScratch);
+    int count = 0;
+    for (int i = 0; i < numNeighbors; i++) {
+      int neighbor = this.neighborScratch[i];
+      if (this.board.isHidden(neighbor) && !isKnownMine(neighbor)
+          && !this.knownSafe.get(neighbor)) {
+        out[count] = neighbor;
+        count += 1;
+      }
+    }
+    return count;
+  }
+
+  // the number of mines around the given number that are not yet accounted for
+  int minesLeft(int index) {
+    int numNeighbors = this.board.neighbors(index, this.neighborScratch);
+    int mines = this.board.adjacentMines(index);
+    for (int i = 0; i < numNeighbors; i++) {
+      int neighbor = this.neighborScratch[i];
+      if (this.board.isHidden(neighbor) && isKnownMine(neighbor)) {
+        mines -= 1;
+      }
+    }
+    return mines;
+  }
+
+  // apply the rules to the given number and return the number of cells settled
+  int examine(int index) {
+    this.examined += 1;
+    int numCells = unsettled(index, this.cellsA);
+    if (numCells == 0) {
+      return 0;
+    }
+    int mines = minesLeft(index);
+    if (mines == 0) {
+      return settle(this.cellsA, numCells, null, 0, false);
+    }
+    if (mines == numCells) {
+      return settle(this.cellsA, numCells, null, 0, true);
+    }
+
+    // compare with the other numbers close enough to share cells with this one
+    int col = this.board.colOf(index);
+    int row = this.board.rowOf(index);
+    for (int r = Math.max(0, row - 2); r <= Math.min(this.board.gridHeight - 1, row + 2); r++) {
+      for (int c = Math.max(0, col - 2); c <= Math.min(this.board.gridWidth - 1, col + 2); c++) {
+        int other = this.board.index(c, r);
+        if (other != index && isNumber(other)) {
+          int numOther = unsettled(other, this.cellsB);
+          if (numOther > 0 && numOther < numCells
+              && isSubset(this.cellsB, numOther, this.cellsA, numCells)) {
+            int settled = settleDifference(this.cellsA, numCells, this.cellsB, numOther,
+                mines - minesLeft(other));
+            if (settled > 0) {
+              return settled;
+            }
+          }
+          else if (numOther > numCells && isSubset(this.cellsA, numCells, this.cellsB, numOther)) {
+            int settled = settleDifference(this.cellsB, numOther, this.cellsA, numCells,
+                minesLeft(other) - mines);
+            if (settled > 0) {
+              return settled;
+            }
+          }
+        }
+      }
+    }
+    return 0;
+  }
+
+  // are the first 'numSmall' cells of 'small' all among the first 'numLarge'
+  // cells of 'large'?
+  boolean isSubset(int[] small, int numSmall, int[] large, int numLarge) {
+    for (int i = 0; i < numSmall; i++) {
+      if (!contains(large, numLarge, small[i])) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  // is the given cell among the first 'numCells' cells of 'cells'?
+  boolean contains(int[] cells, int numCells, int cell) {
+    for (int i = 0; i < numCells; i++) {
+      if (cells[i] == cell) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  // the cells of 'large' that aren't in 'small' hold 'mines' mines. settle
+  // them if that is none or all of them, and return the number settled
+  int settleDifference(int[] large, int numLarge, int[] small, int numSmall, int mines) {
+    if (mines == 0) {
+      return settle(large, numLarge, small, numSmall, false);
+    }
+    if (mines == numLarge - numSmall) {
+      return settle(large, numLarge, small, numSmall, true);
+    }
+    return 0;
+  }
+
+  // mark the first 'numCells' cells of 'cells', except those among the first
+  // 'numSkip' cells of 'skip', as mines or as safe, queue the numbers around
+  // them, and return how many were marked
+  int settle(int[] cells, int numCells, int[] skip, int numSkip, boolean mine) {
+    // the cells are copied first since queueing reuses the scratch arrays
+    int count = 0;
+    for (int i = 0; i < numCells; i++) {
+      if (skip == null || !contains(skip, numSkip, cells[i])) {
+        this.toSettle[count] = cells[i];
+        count += 1;
+      }
+    }
+    for (int i = 0; i < count; i++) {
+      if (mine) {
+        this.knownMines.set(this.toSettle[i]);
+      }
+      else {
+        this.knownSafe.set(this.toSettle[i]);
+      }
+      enqueueNeighbors(this.toSettle[i]);
+    }
+    return count;
+  }
+}
+
+// examples for the solver
+class ExamplesMineSolver {
+  MinesweeperGame game;
+  MineSolver solver;
+
+  // initialize variables
+  void init() {
+    game = new MinesweeperGame(new MineGenerator(3, 3, 2, 9, true));
+    /*
+     * the above game looks like the following:
+     *
+     * X 1 0
+     * 1 2 1
+     * 0 1 X
+     *
+     * (X = mine, numbers = neighboring mines)
+     */
+    solver = new MineSolver(game);
+  }
+
+  // test the single cell rules
+  void testSingleCellRules(Tester t) {
+    init();
+
+    game.reveal(2, 0);
+    solver.update();
+    t.checkExpect(solver.solve(), 3);
+    t.checkExpect(solver.nextSafe(), game.board.index(1, 0));
+    // the cells around a 0 are safe
+
+    game.reveal(1, 0);
+    solver.update();
+    game.reveal(2, 1);
+    solver.update();
+    game.reveal(1, 1);
+    solver.update();
+    solver.solve();
+    t.checkExpect(solver.knownMines.get(game.board.index(0, 0)), false);
+    // (1, 0) = 1 still has (0, 0) and (0, 1) to choose from
+
+    game.reveal(0, 1);
+    solver.update();
+    solver.solve();
+    t.checkExpect(solver.knownMines.get(game.board.index(0, 0)), true);
+    t.checkExpect(solver.knownMines.get(game.board.index(2, 2)), true);
+    t.checkExpect(solver.knownSafe.get(game.board.index(0, 2)), true);
+    t.checkExpect(solver.knownSafe.get(game.board.index(1, 2)), true);
+    // with (0, 1) uncovered, (1, 0) = 1 has one cell left, which is a mine,
+    // and then (1, 1) = 2 settles the bottom row
+  }
+
+  // test that flags settle the cells around the numbers next to them
+  void testFlagToggled(Tester t) {
+    init();
+
+    game.reveal(1, 0);
+    solver.update();
+    t.checkExpect(solver.solve(), 0);
+    // (1, 0) = 1 has five hidden neighbors to choose from
+
+    game.toggleFlag(0, 0);
+    solver.flagToggled(game.board.index(0, 0));
+    t.checkExpect(solver.solve(), 4);
+    t.checkExpect(solver.knownSafe.get(game.board.index(1, 1)), true);
+    t.checkExpect(solver.knownSafe.get(game.board.index(2, 0)), true);
+    // the flag accounts for the mine next to (1, 0), so its other hidden
+    // neighbors are safe
+  }
+
+  // test the subset rule
+  void testSubsetRule(Tester t) {
+    // a 1-2-1 row against the bottom edge of a board:
+    //
+    // ? ? ?
+    // 1 2 1
+    //
+    // the 1s are subsets of the 2, which settles the corners as mines and the
+    // middle as safe
+    PackedBoard board = new PackedBoard(3, 2);
+    board.placeMine(board.index(0, 0));
+    board.placeMine(board.index(2, 0));
+    MinesweeperGame subsetGame = new MinesweeperGame(new MineGenerator(3, 2, 2, 1));
+    subsetGame.board = board;
+    subsetGame.reveal(0, 1);
+    subsetGame.reveal(1, 1);
+    subsetGame.reveal(2, 1);
+    MineSolver subsetSolver = new MineSolver(subsetGame);
+    t.checkExpect(subsetSolver.solve(), 3);
+    t.checkExpect(subsetSolver.knownMines.get(board.index(0, 0)), true);
+    t.checkExpect(subsetSolver.knownMines.get(board.index(2, 0)), true);
+    t.checkExpect(subsetSolver.knownSafe.get(board.index(1, 0)), true);
+  }
+
+  // test that solving only looks at numbers near the cells that changed
+  void testIncremental(Tester t) {
+    MinesweeperGame large = new MinesweeperGame(new MineGenerator(100, 100, 1000, 4));
+    int[] opening = new int[1];
+    for (int index = 0; index < large.board.size() && opening[0] < 50; index++) {
+      if (large.board.isHidden(index) && large.board.adjacentMines(index) == 0) {
+        large.reveal(large.board.colOf(index), large.board.rowOf(index));
+        opening[0] = large.numRevealed;
+      }
+    }
+    MineSolver largeSolver = new MineSolver(large);
+    largeSolver.solve();
+    int safe = largeSolver.nextSafe();
+    t.checkExpect(safe >= 0, true);
+    // a large opening lets the solver find a safe cell
+
+    largeSolver.examined = 0;
+    large.reveal(large.board.colOf(safe), large.board.rowOf(safe));
+    largeSolver.update();
+    largeSolver.solve();
+    t.checkExpect(largeSolver.examined < 200, true);
+    // uncovering that cell only re-examines the numbers around it, not the
+    // whole board
+  }
+
+  // test that the solver never calls a mine safe or a safe cell a mine
+  void testSoundness(Tester t) {
+    boolean sound = true;
+    for (int seed = 0; seed < 200; seed++) {
+      MinesweeperGame randomGame = new MinesweeperGame(new MineGenerator(30, 16, 99, seed));
+      SolverStrategy strategy = new SolverStrategy();
+      strategy.startGame(randomGame);
+      Random rand = new Random(seed);
+      while (!randomGame.isOver()) {
+        strategy.move(randomGame, rand);
+        MineSolver used = strategy.solvers.get();
+        for (int index = 0; index < randomGame.board.size(); index++) {
+          if (used.knownMines.get(index) && !randomGame.board.isMine(index)
+              || used.knownSafe.get(index) && randomGame.board.isMine(index)) {
+            sound = false;
+          }
+        }
+      }
+    }
+    t.checkExpect(sound, true);
+  }
+
+  // test that solving wins more games than clicking at random
+  void testWinRate(Tester t) {
+    ForkJoinPool pool = new ForkJoinPool(1);
+    GameSimulator solved = new GameSimulator(30, 16, 99, new SolverStrategy(), pool);
+    GameSimulator random = new GameSimulator(30, 16, 99, new RandomClickStrategy(), pool);
+    SimulationStats solvedStats = solved.simulate(0, 300, null);
+    SimulationStats randomStats = random.simulate(0, 300, null);
+    pool.shutdown();
+    t.checkExpect(solvedStats.wins > randomStats.wins, true);
+    t.checkExpect(solvedStats.wins > 0, true);
+  }
+}
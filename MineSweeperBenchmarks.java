@@ -0,0 +1,672 @@
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Locale;
+import tester.*;
+
+// a board size that the benchmarks are run on
+class BenchmarkBoard {
+  String name;
+  int gridWidth;
+  int gridHeight;
+  int numMines;
+
+  // construct a named board size
+  BenchmarkBoard(String name, int gridWidth, int gridHeight, int numMines) {
+    this.name = name;
+    this.gridWidth = gridWidth;
+    this.gridHeight = gridHeight;
+    this.numMines = numMines;
+  }
+
+  // the standard difficulties plus large synthetic boards at expert density,
+  // and a huge sparse board whose openings are big enough to time cascades
+  static ArrayList<BenchmarkBoard> standardBoards() {
+    ArrayList<BenchmarkBoard> boards = new ArrayList<>();
+    boards.add(new BenchmarkBoard("beginner", 8, 8, 10));
+    boards.add(new BenchmarkBoard("intermediate", 16, 16, 40));
+    boards.add(new BenchmarkBoard("expert", 30, 16, 99));
+    boards.add(new BenchmarkBoard("large", 300, 300, 18500));
+    boards.add(new BenchmarkBoard("huge", 1000, 1000, 206000));
+    boards.add(new BenchmarkBoard("huge-open", 1000, 1000, 50000));
+    return boards;
+  }
+}
+
+// one operation to time. setupTrial runs once per board size, setupOp runs
+// before every timed call of run when 'resetsPerOp' is set, and neither is
+// timed. run returns a value that depends on its work so that the JIT can't
+// throw the work away.
+abstract class BoardBenchmark {
+  String name;
+  boolean resetsPerOp;
+
+  // construct a benchmark with the given name
+  BoardBenchmark(String name, boolean resetsPerOp) {
+    this.name = name;
+    this.resetsPerOp = resetsPerOp;
+  }
+
+  // prepare the state shared by every call on the given board size
+  abstract void setupTrial(BenchmarkBoard board);
+
+  // prepare the state for the next call of run
+  void setupOp() {
+  }
+
+  // the work being timed
+  abstract int run();
+}
+
+// time laying out the mines of a board
+class GenerateBenchmark extends BoardBenchmark {
+  BenchmarkBoard board;
+  int seed;
+
+  // construct the benchmark
+  GenerateBenchmark() {
+    super("MineGenerator.makeMineLayout", false);
+  }
+
+  // remember the board size
+  void setupTrial(BenchmarkBoard board) {
+    this.board = board;
+    this.seed = 0;
+  }
+
+  // lay out a new board
+  int run() {
+    this.seed += 1;
+    BitSet layout = new MineGenerator(this.board.gridWidth, this.board.gridHeight,
+        this.board.numMines, this.seed).makeMineLayout();
+    return layout.length();
+  }
+}
+
+// time building a whole Board, which lays out the mines and counts every
+// cell's neighboring mines
+class CreateBoardBenchmark extends BoardBenchmark {
+  BenchmarkBoard board;
+  int seed;
+
+  // construct the benchmark
+  CreateBoardBenchmark() {
+    super("Board.createBoard", false);
+  }
+
+  // remember the board size
+  void setupTrial(BenchmarkBoard board) {
+    this.board = board;
+    this.seed = 0;
+  }
+
+  // build a new board
+  int run() {
+    this.seed += 1;
+    Board built = new Board(this.board.gridWidth, this.board.gridHeight, this.board.numMines,
+        this.seed);
+    return built.game.board.numMines;
+  }
+}
+
+// time the cascade of Cell.makeVisible from the largest opening of a board
+class CellCascadeBenchmark extends BoardBenchmark {
+  ArrayList<ArrayList<Cell>> cells;
+  Cell start;
+
+  // construct the benchmark
+  CellCascadeBenchmark() {
+    super("Cell.makeVisible", true);
+  }
+
+  // build a board and find the cell whose cascade uncovers the most cells
+  void setupTrial(BenchmarkBoard size) {
+    this.cells = new Board(size.gridWidth, size.gridHeight, size.numMines, 1).cellGrid();
+    PackedBoard packed = new MinesweeperGame(
+        new MineGenerator(size.gridWidth, size.gridHeight, size.numMines, 1)).board;
+    int bestIndex = 0;
+    int bestSize = 0;
+    for (int index = 0; index < packed.size(); index++) {
+      if (packed.isHidden(index)) {
+        int opening = packed.reveal(index);
+        if (opening > bestSize) {
+          bestSize = opening;
+          bestIndex = index;
+        }
+      }
+    }
+    this.start = this.cells.get(packed.rowOf(bestIndex)).get(packed.colOf(bestIndex));
+  }
+
+  // hide every cell again
+  void setupOp() {
+    for (ArrayList<Cell> cellRow : this.cells) {
+      for (Cell cell : cellRow) {
+        cell.hidden = true;
+      }
+    }
+  }
+
+  // uncover the opening
+  int run() {
+    this.start.makeVisible();
+    return this.start.neighbors.size();
+  }
+}
+
+// time the cascade of PackedBoard.reveal from the largest opening of a board
+class PackedCascadeBenchmark extends BoardBenchmark {
+  MinesweeperGame game;
+  int start;
+
+  // construct the benchmark
+  PackedCascadeBenchmark() {
+    super("PackedBoard.reveal", true);
+  }
+
+  // build a game and find the cell whose cascade uncovers the most cells
+  void setupTrial(BenchmarkBoard size) {
+    this.game = new MinesweeperGame(
+        new MineGenerator(size.gridWidth, size.gridHeight, size.numMines, 1));
+    PackedBoard packed = this.game.board;
+    int bestSize = 0;
+    for (int index = 0; index < packed.size(); index++) {
+      if (packed.isHidden(index)) {
+        int opening = packed.reveal(index);
+        if (opening > bestSize) {
+          bestSize = opening;
+          this.start = index;
+        }
+      }
+    }
+  }
+
+  // hide every cell again
+  void setupOp() {
+    this.game.board.hideAll();
+  }
+
+  // uncover the opening
+  int run() {
+    return this.game.board.reveal(this.start);
+  }
+}
+
+// time building a bit board and counting its neighboring mines with word
+// operations, to compare with building the cells of a Board
+class BitCountBenchmark extends BoardBenchmark {
+  BenchmarkBoard board;
+  BitSet layout;
+
+  // construct the benchmark
+  BitCountBenchmark() {
+    super("BitBoard.setMines", false);
+  }
+
+  // lay out the mines once, so only the counting is timed
+  void setupTrial(BenchmarkBoard board) {
+    this.board = board;
+    this.layout = new MineGenerator(board.gridWidth, board.gridHeight, board.numMines, 1)
+        .makeMineLayout();
+  }
+
+  // build a new bit board
+  int run() {
+    BitBoard built = new BitBoard(this.board.gridWidth, this.board.gridHeight);
+    built.setMines(this.layout);
+    return built.adjacentMines(0, 0);
+  }
+}
+
+// time the word-parallel cascade of BitBoard.reveal from the largest opening
+// of a board
+class BitCascadeBenchmark extends BoardBenchmark {
+  BitBoard board;
+  int startCol;
+  int startRow;
+
+  // construct the benchmark
+  BitCascadeBenchmark() {
+    super("BitBoard.reveal", true);
+  }
+
+  // build a board and find the cell whose cascade uncovers the most cells
+  void setupTrial(BenchmarkBoard size) {
+    this.board = new BitBoard(
+        new MineGenerator(size.gridWidth, size.gridHeight, size.numMines, 1));
+    int bestSize = 0;
+    for (int row = 0; row < size.gridHeight; row++) {
+      for (int col = 0; col < size.gridWidth; col++) {
+        if (this.board.isHidden(col, row)) {
+          int opening = this.board.reveal(col, row);
+          if (opening > bestSize) {
+            bestSize = opening;
+            this.startCol = col;
+            this.startRow = row;
+          }
+        }
+      }
+    }
+  }
+
+  // hide every cell again
+  void setupOp() {
+    this.board.cover();
+  }
+
+  // uncover the opening
+  int run() {
+    return this.board.reveal(this.startCol, this.startRow);
+  }
+}
+
+// time a right click followed by reading the flag count, the way the flag
+// count is read when the HUD is drawn
+class FlagBenchmark extends BoardBenchmark {
+  Board board;
+  int next;
+
+  // construct the benchmark
+  FlagBenchmark() {
+    super("Board.updateCellFlag+numFlags", false);
+  }
+
+  // build a board
+  void setupTrial(BenchmarkBoard size) {
+    this.board = new Board(size.gridWidth, size.gridHeight, size.numMines, 1);
+    this.next = 0;
+  }
+
+  // toggle the flag on the next cell
+  int run() {
+    this.next = (this.next + 7919) % (this.board.gridWidth * this.board.gridHeight);
+    this.board.updateCellFlag(this.next % this.board.gridWidth, this.next / this.board.gridWidth);
+    return this.board.numFlags();
+  }
+}
+
+// time drawing a frame, either from scratch or by patching the last frame
+class MakeSceneBenchmark extends BoardBenchmark {
+  Board board;
+  boolean incremental;
+  // the time on the board's clock, a second further on every frame
+  long now;
+
+  // construct the benchmark
+  MakeSceneBenchmark(String name, boolean incremental) {
+    super(name, false);
+    this.incremental = incremental;
+  }
+
+  // build a board with part of it uncovered and some flags placed
+  void setupTrial(BenchmarkBoard size) {
+    this.board = new Board(size.gridWidth, size.gridHeight, size.numMines, 1);
+    this.board.incrementalScene = this.incremental;
+    this.now = 0;
+    this.board.scheduler = new RedrawScheduler(() -> this.now);
+    for (int i = 0; i < size.gridWidth * size.gridHeight; i += 3) {
+      int col = i % size.gridWidth;
+      int row = i / size.gridWidth;
+      if (this.board.game.isMine(col, row)) {
+        this.board.updateCellFlag(col, row);
+      }
+      else {
+        this.board.updateCell(col, row);
+      }
+    }
+    this.board.makeScene();
+  }
+
+  // tick the timer a second on and draw the frame
+  int run() {
+    this.now += RedrawScheduler.NANOS_PER_SECOND;
+    this.board.onTick();
+    return this.board.makeScene().hashCode();
+  }
+}
+
+// time drawing a whole board into an image with BoardRasterizer. boards are
+// zoomed out until the image has at most 'MAX_PIXELS' pixels
+class RasterizeBenchmark extends BoardBenchmark {
+  static final long MAX_PIXELS = 4096L * 4096L;
+
+  BoardRasterizer rasterizer;
+
+  // construct the benchmark
+  RasterizeBenchmark() {
+    super("BoardRasterizer.render", false);
+  }
+
+  // build a board with part of it uncovered and some flags placed, and draw
+  // its sprites
+  void setupTrial(BenchmarkBoard size) {
+    Board board = new Board(size.gridWidth, size.gridHeight, size.numMines, 1);
+    for (int i = 0; i < size.gridWidth * size.gridHeight; i += 3) {
+      int col = i % size.gridWidth;
+      int row = i / size.gridWidth;
+      if (board.game.isMine(col, row)) {
+        board.updateCellFlag(col, row);
+      }
+      else {
+        board.updateCell(col, row);
+      }
+    }
+    while ((long) size.gridWidth * size.gridHeight * board.cellWidth * board.cellHeight
+        > MAX_PIXELS) {
+      board.camera.zoom(-1);
+      board.cellWidth = board.camera.cellSize;
+      board.cellHeight = board.camera.cellSize;
+    }
+    this.rasterizer = new BoardRasterizer(board);
+  }
+
+  // draw the board
+  int run() {
+    return this.rasterizer.render().getRGB(0, 0);
+  }
+}
+
+// the measurements of one benchmark on one board size, in nanoseconds per call
+class BenchmarkResult {
+  String benchmark;
+  String board;
+  ArrayList<Double> iterations;
+  // the sum of everything the benchmark's calls returned, kept so that the
+  // JIT can't find the calls unused and skip them
+  long sink;
+
+  // construct an empty result
+  BenchmarkResult(String benchmark, String board) {
+    this.benchmark = benchmark;
+    this.board = board;
+    this.iterations = new ArrayList<>();
+  }
+
+  // the mean time per call over all iterations
+  double mean() {
+    double sum = 0;
+    for (double iteration : this.iterations) {
+      sum += iteration;
+    }
+    return sum / this.iterations.size();
+  }
+
+  // half the width of a 99.9% confidence interval around the mean, from
+  // Student's t distribution with one less degree of freedom than there are
+  // iterations, the way JMH reports scoreError
+  double error() {
+    if (this.iterations.size() < 2) {
+      return Double.NaN;
+    }
+    double mean = mean();
+    double squares = 0;
+    for (double iteration : this.iterations) {
+      squares += (iteration - mean) * (iteration - mean);
+    }
+    double stdDev = Math.sqrt(squares / (this.iterations.size() - 1));
+    return tQuantile(0.999, this.iterations.size() - 1) * stdDev
+        / Math.sqrt(this.iterations.size());
+  }
+
+  // the distance from 0 within which a Student's t variable with the given
+  // degrees of freedom falls with the given probability, found by bisection
+  static double tQuantile(double probability, int df) {
+    double low = 0;
+    double high = 1;
+    while (tWithin(high, df) < probability) {
+      high *= 2;
+    }
+    for (int i = 0; i < 100; i++) {
+      double middle = (low + high) / 2;
+      if (tWithin(middle, df) < probability) {
+        low = middle;
+      }
+      else {
+        high = middle;
+      }
+    }
+    return (low + high) / 2;
+  }
+
+  // the probability that a Student's t variable with the given degrees of
+  // freedom is within 'x' of 0, from the finite series for whole degrees of
+  // freedom in Abramowitz and Stegun 26.7.3 and 26.7.4
+  static double tWithin(double x, int df) {
+    double theta = Math.atan(x / Math.sqrt(df));
+    double cos = Math.cos(theta);
+    if (df % 2 == 1) {
+      double sum = 0;
+      double term = cos;
+      if (df > 1) {
+        sum = cos;
+      }
+      for (int k = 3; k <= df - 2; k += 2) {
+        term *= cos * cos * (k - 1) / k;
+        sum += term;
+      }
+      return 2 / Math.PI * (theta + Math.sin(theta) * sum);
+    }
+    else {
+      double sum = 1;
+      double term = 1;
+      for (int k = 2; k <= df - 2; k += 2) {
+        term *= cos * cos * (k - 1) / k;
+        sum += term;
+      }
+      return Math.sin(theta) * sum;
+    }
+  }
+
+  // this result as a JSON object shaped like one entry of JMH's JSON output
+  String toJson() {
+    StringBuilder rawData = new StringBuilder();
+    for (double iteration : this.iterations) {
+      if (rawData.length() > 0) {
+        rawData.append(", ");
+      }
+      rawData.append(jsonNumber(iteration));
+    }
+    return "  {\n"
+        + "    \"benchmark\" : \"" + this.benchmark + "\",\n"
+        + "    \"mode\" : \"avgt\",\n"
+        + "    \"params\" : { \"board\" : \"" + this.board + "\" },\n"
+        + "    \"primaryMetric\" : {\n"
+        + "      \"score\" : " + jsonNumber(mean()) + ",\n"
+        + "      \"scoreError\" : " + jsonNumber(error()) + ",\n"
+        + "      \"scoreUnit\" : \"ns/op\",\n"
+        + "      \"rawData\" : [ [ " + rawData + " ] ]\n"
+        + "    }\n"
+        + "  }";
+  }
+
+  // a number as JSON, which has no way to write NaN
+  static String jsonNumber(double number) {
+    if (Double.isNaN(number) || Double.isInfinite(number)) {
+      return "\"NaN\"";
+    }
+    return String.format(Locale.ROOT, "%.3f", number);
+  }
+}
+
+// runs every benchmark on every board size and writes the results as JSON.
+// usage: java MineSweeperBenchmarks [output.json] [benchmark name filter]
+class MineSweeperBenchmarks {
+  int warmupIterations;
+  int measurementIterations;
+  long iterationNanos;
+
+  // construct a runner with the given number and length of iterations
+  MineSweeperBenchmarks(int warmupIterations, int measurementIterations, long iterationNanos) {
+    this.warmupIterations = warmupIterations;
+    this.measurementIterations = measurementIterations;
+    this.iterationNanos = iterationNanos;
+  }
+
+  // every benchmark
+  static ArrayList<BoardBenchmark> allBenchmarks() {
+    ArrayList<BoardBenchmark> benchmarks = new ArrayList<>();
+    benchmarks.add(new GenerateBenchmark());
+    benchmarks.add(new CreateBoardBenchmark());
+    benchmarks.add(new CellCascadeBenchmark());
+    benchmarks.add(new PackedCascadeBenchmark());
+    benchmarks.add(new BitCountBenchmark());
+    benchmarks.add(new BitCascadeBenchmark());
+    benchmarks.add(new FlagBenchmark());
+    benchmarks.add(new MakeSceneBenchmark("Board.makeScene", false));
+    benchmarks.add(new MakeSceneBenchmark("Board.makeScene(incremental)", true));
+    benchmarks.add(new RasterizeBenchmark());
+    return benchmarks;
+  }
+
+  // run one benchmark on one board size
+  BenchmarkResult measure(BoardBenchmark benchmark, BenchmarkBoard board) {
+    benchmark.setupTrial(board);
+    BenchmarkResult result = new BenchmarkResult(benchmark.name, board.name);
+    for (int i = 0; i < this.warmupIterations; i++) {
+      iteration(benchmark, result);
+    }
+    for (int i = 0; i < this.measurementIterations; i++) {
+      result.iterations.add(iteration(benchmark, result));
+    }
+    return result;
+  }
+
+  // call the benchmark until an iteration's worth of time has been spent
+  // running it, and return the average nanoseconds per call. benchmarks that
+  // reset their state before every call are timed one call at a time so that
+  // setupOp isn't counted; the rest are timed in batches. what the calls
+  // return is added to the result's sink
+  double iteration(BoardBenchmark benchmark, BenchmarkResult result) {
+    long timed = 0;
+    long calls = 0;
+    int sink = 0;
+    long batch = 1;
+    while (timed < this.iterationNanos) {
+      if (benchmark.resetsPerOp) {
+        benchmark.setupOp();
+        long start = System.nanoTime();
+        sink += benchmark.run();
+        timed += System.nanoTime() - start;
+        calls += 1;
+      }
+      else {
+        long start = System.nanoTime();
+        for (long i = 0; i < batch; i++) {
+          sink += benchmark.run();
+        }
+        timed += System.nanoTime() - start;
+        calls += batch;
+        batch = Math.min(2 * batch, 1 << 16);
+      }
+    }
+    result.sink += sink;
+    return (double) timed / calls;
+  }
+
+  // run the benchmarks whose names contain 'filter' on every board size and
+  // return the results as a JSON array
+  String runAll(String filter) {
+    StringBuilder json = new StringBuilder("[\n");
+    boolean first = true;
+    for (BoardBenchmark benchmark : allBenchmarks()) {
+      if (benchmark.name.contains(filter)) {
+        for (BenchmarkBoard board : BenchmarkBoard.standardBoards()) {
+          BenchmarkResult result = measure(benchmark, board);
+          System.err.printf("%-32s %-12s %14.1f ns/op%n", result.benchmark, result.board,
+              result.mean());
+          if (!first) {
+            json.append(",\n");
+          }
+          json.append(result.toJson());
+          first = false;
+        }
+      }
+    }
+    return json.append("\n]\n").toString();
+  }
+
+  // run the benchmarks and write the JSON results to the file named by the
+  // first argument, or to standard output
+  public static void main(String[] args) throws IOException {
+    String filter = "";
+    if (args.length > 1) {
+      filter = args[1];
+    }
+    String json = new MineSweeperBenchmarks(5, 5, 200000000L).runAll(filter);
+    if (args.length > 0) {
+      try (FileWriter out = new FileWriter(args[0])) {
+        out.write(json);
+      }
+    }
+    else {
+      System.out.print(json);
+    }
+  }
+}
+
+// examples for the benchmark runner
+class ExamplesMineSweeperBenchmarks {
+  BenchmarkResult result;
+
+  // initialize variables
+  void init() {
+    result = new BenchmarkResult("Board.makeScene", "expert");
+    result.iterations.add(10.0);
+    result.iterations.add(20.0);
+    result.iterations.add(30.0);
+  }
+
+  // test the mean and error methods
+  void testStatistics(Tester t) {
+    init();
+
+    t.checkInexact(result.mean(), 20.0, 0.001);
+    t.checkInexact(result.error(), 31.599 * 10.0 / Math.sqrt(3), 0.001);
+    // the error is the 99.9% confidence half-width, from the t distribution
+    // with two degrees of freedom
+
+    t.checkInexact(BenchmarkResult.tQuantile(0.999, 1), 636.62, 0.001);
+    t.checkInexact(BenchmarkResult.tQuantile(0.999, 4), 8.610, 0.001);
+    t.checkInexact(BenchmarkResult.tQuantile(0.999, 9), 4.781, 0.001);
+    t.checkInexact(BenchmarkResult.tQuantile(0.999, 1000), 3.300, 0.001);
+    // the quantiles match the tables, and approach the normal quantile of
+    // 3.29 as the degrees of freedom grow
+
+    t.checkExpect(Double.isNaN(new BenchmarkResult("a", "b").error()), true);
+    // there is no error without at least two iterations
+  }
+
+  // test the toJson method
+  void testToJson(Tester t) {
+    init();
+
+    String json = result.toJson();
+    t.checkExpect(json.contains("\"benchmark\" : \"Board.makeScene\""), true);
+    t.checkExpect(json.contains("\"params\" : { \"board\" : \"expert\" }"), true);
+    t.checkExpect(json.contains("\"score\" : 20.000"), true);
+    t.checkExpect(json.contains("\"rawData\" : [ [ 10.000, 20.000, 30.000 ] ]"), true);
+    // the fields follow the layout of JMH's JSON results
+
+    t.checkExpect(BenchmarkResult.jsonNumber(Double.NaN), "\"NaN\"");
+    // NaN is written as a string since JSON has no NaN
+
+    Locale before = Locale.getDefault();
+    Locale.setDefault(Locale.GERMANY);
+    t.checkExpect(BenchmarkResult.jsonNumber(2.5), "2.500");
+    Locale.setDefault(before);
+    // numbers use a decimal point whatever the default locale is
+  }
+
+  // test that every benchmark runs on a small board
+  void testMeasure(Tester t) {
+    MineSweeperBenchmarks runner = new MineSweeperBenchmarks(0, 2, 1000000L);
+    for (BoardBenchmark benchmark : MineSweeperBenchmarks.allBenchmarks()) {
+      BenchmarkResult measured = runner.measure(benchmark,
+          new BenchmarkBoard("beginner", 8, 8, 10));
+      t.checkExpect(measured.iterations.size(), 2);
+      t.checkExpect(measured.mean() > 0, true);
+    }
+    // each benchmark can be set up and timed
+  }
+}
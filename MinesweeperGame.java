@@ -0,0 +1,463 @@
+import java.util.BitSet;
+import tester.*;
+
+// the rules of a game of minesweeper, without any drawing or input handling.
+// cells are addressed by column and row like on Board. after every move,
+// 'numRevealed' is the number of cells the move uncovered and their indices
+// are the first entries of board.revealed.
+class MinesweeperGame {
+  PackedBoard board;
+  int numMines;
+  boolean lost;
+  int numRevealed;
+  // the generator that lays out the mines on the first reveal, or null once
+  // they are laid out
+  MineGenerator pendingMines;
+  // the moves that can be undone and redone, or null when they aren't kept
+  MoveHistory history;
+
+  // construct a game whose mines are laid out by the given generator
+  MinesweeperGame(MineGenerator mineGen) {
+    this(mineGen, false);
+  }
+
+  // construct a game whose mines are laid out by the given generator. when
+  // 'deferMines' is set, the mines are laid out on the first reveal instead,
+  // keeping the revealed cell and its neighbors clear
+  MinesweeperGame(MineGenerator mineGen, boolean deferMines) {
+    if (mineGen.gridWidth < 1 || mineGen.gridHeight < 1) {
+      throw new IllegalArgumentException("grid dimensions are too small");
+    }
+    this.board = new PackedBoard(mineGen.gridWidth, mineGen.gridHeight);
+    if (deferMines) {
+      this.pendingMines = mineGen;
+    }
+    else {
+      this.board.setMines(mineGen.makeMineLayout());
+    }
+    this.numMines = mineGen.numMines;
+    this.lost = false;
+    this.numRevealed = 0;
+  }
+
+  // start a new game whose mines are laid out by the given generator. the
+  // board is reused when the new game has the same size
+  void restart(MineGenerator mineGen) {
+    restart(mineGen, false);
+  }
+
+  // start a new game whose mines are laid out by the given generator, on the
+  // first reveal if 'deferMines' is set. the board is reused when the new game
+  // has the same size
+  void restart(MineGenerator mineGen, boolean deferMines) {
+    if (mineGen.gridWidth < 1 || mineGen.gridHeight < 1) {
+      throw new IllegalArgumentException("grid dimensions are too small");
+    }
+    if (deferMines) {
+      resetBoard(mineGen.gridWidth, mineGen.gridHeight, mineGen.numMines);
+      this.pendingMines = mineGen;
+    }
+    else {
+      restart(mineGen.gridWidth, mineGen.gridHeight, mineGen.numMines, mineGen.makeMineLayout());
+    }
+  }
+
+  // start a new game of the given size with the given mines. the board is
+  // reused when the new game has the same size
+  void restart(int gridWidth, int gridHeight, int numMines, BitSet mines) {
+    resetBoard(gridWidth, gridHeight, numMines);
+    this.board.setMines(mines);
+  }
+
+  // empty the board for a new game of the given size, with no mines laid out
+  void resetBoard(int gridWidth, int gridHeight, int numMines) {
+    if (gridWidth < 1 || gridHeight < 1) {
+      throw new IllegalArgumentException("grid dimensions are too small");
+    }
+    if (this.board.gridWidth == gridWidth && this.board.gridHeight == gridHeight) {
+      this.board.clear();
+    }
+    else {
+      this.board = new PackedBoard(gridWidth, gridHeight);
+    }
+    this.pendingMines = null;
+    this.numMines = numMines;
+    this.lost = false;
+    this.numRevealed = 0;
+    if (this.history != null) {
+      this.history.clear();
+    }
+  }
+
+  // construct a game with randomly placed mines
+  MinesweeperGame(int gridWidth, int gridHeight, int numMines) {
+    this(new MineGenerator(gridWidth, gridHeight, numMines));
+  }
+
+  // construct a game whose mines are placed using the given random seed
+  MinesweeperGame(int gridWidth, int gridHeight, int numMines, int seed) {
+    this(new MineGenerator(gridWidth, gridHeight, numMines, seed));
+  }
+
+  // uncover the given cell, unless it is flagged or the game is over.
+  // return the number of cells uncovered
+  int reveal(int colIndex, int rowIndex) {
+    this.numRevealed = 0;
+    int index = this.board.index(colIndex, rowIndex);
+    if (!isOver() && !this.board.isFlagged(index)) {
+      if (this.pendingMines != null) {
+        this.board.setMines(this.pendingMines.makeMineLayout(colIndex, rowIndex));
+        this.pendingMines = null;
+      }
+      this.numRevealed = this.board.reveal(index);
+      if (this.board.isMine(index)) {
+        this.lost = true;
+      }
+      recordReveal();
+    }
+    return this.numRevealed;
+  }
+
+  // put a flag on the given cell or take it off. there can't be more flags than
+  // mines, and nothing changes once the game is over. return whether the flag
+  // changed
+  boolean toggleFlag(int colIndex, int rowIndex) {
+    this.numRevealed = 0;
+    int index = this.board.index(colIndex, rowIndex);
+    if (!isOver() && (this.board.countFlags() != this.numMines || this.board.isFlagged(index))) {
+      this.board.toggleFlag(index);
+      if (this.history != null) {
+        this.history.startMove();
+        this.history.addCell(MoveHistory.FLAGS, index);
+        this.history.endMove(false);
+      }
+      return true;
+    }
+    return false;
+  }
+
+  // if the given cell is uncovered and has as many flagged neighbors as it has
+  // neighboring mines, uncover all of its other hidden neighbors. return the
+  // number of cells uncovered
+  int chord(int colIndex, int rowIndex) {
+    this.numRevealed = 0;
+    int index = this.board.index(colIndex, rowIndex);
+    if (isOver() || this.board.isHidden(index) || this.board.isMine(index)) {
+      return 0;
+    }
+    int[] neighbors = new int[8];
+    int numNeighbors = this.board.neighbors(index, neighbors);
+    int flaggedNeighbors = 0;
+    for (int i = 0; i < numNeighbors; i++) {
+      if (this.board.isFlagged(neighbors[i])) {
+        flaggedNeighbors += 1;
+      }
+    }
+    if (flaggedNeighbors == this.board.adjacentMines(index)) {
+      for (int i = 0; i < numNeighbors; i++) {
+        int neighbor = neighbors[i];
+        if (!this.board.isFlagged(neighbor)) {
+          this.numRevealed += this.board.reveal(neighbor, this.numRevealed);
+          if (this.board.isMine(neighbor) && !this.board.isHidden(neighbor)) {
+            this.lost = true;
+          }
+        }
+      }
+      recordReveal();
+    }
+    return this.numRevealed;
+  }
+
+  // keep the cells the last reveal or chord uncovered in the history, if
+  // one is kept. moves are only made before the game is over, so a move
+  // that leaves the game lost is the one that lost it
+  void recordReveal() {
+    if (this.history != null) {
+      this.history.startMove();
+      for (int i = 0; i < this.numRevealed; i++) {
+        this.history.addCell(MoveHistory.HIDDEN, this.board.revealed[i]);
+      }
+      this.history.endMove(this.lost);
+    }
+  }
+
+  // start keeping the moves made from now on so they can be undone
+  void keepHistory() {
+    if (this.history == null) {
+      this.history = new MoveHistory();
+    }
+  }
+
+  // take back the last move that hasn't been undone. return the number of
+  // cells it changed, whose indices are the first entries of
+  // history.changed, or 0 if there is no move to undo. undoing the reveal
+  // that laid out deferred mines covers its cells again but keeps the mines
+  int undo() {
+    this.numRevealed = 0;
+    if (this.history == null || !this.history.canUndo()) {
+      return 0;
+    }
+    return this.history.undo(this);
+  }
+
+  // make the last move undone again. return the number of cells it changed,
+  // whose indices are the first entries of history.changed, or 0 if there is
+  // no move to redo
+  int redo() {
+    this.numRevealed = 0;
+    if (this.history == null || !this.history.canRedo()) {
+      return 0;
+    }
+    return this.history.redo(this);
+  }
+
+  // replace this game with one of the given size and state, as read back
+  // from a save. a game whose mines weren't laid out yet lays them out on its
+  // next reveal with 'pendingMines', which is null when they were
+  void restore(int gridWidth, int gridHeight, int numMines, BitSet mines, BitSet hidden,
+      BitSet flags, MineGenerator pendingMines) {
+    resetBoard(gridWidth, gridHeight, numMines);
+    this.board.restore(mines, hidden, flags);
+    BitSet uncoveredMines = (BitSet) mines.clone();
+    uncoveredMines.andNot(hidden);
+    this.lost = !uncoveredMines.isEmpty();
+    this.pendingMines = pendingMines;
+  }
+
+  // have the mines been laid out yet?
+  boolean minesPlaced() {
+    return this.pendingMines == null;
+  }
+
+  // the number of openings on the board, once the mines are laid out
+  int openings() {
+    return this.board.openingIndex().openings();
+  }
+
+  // the board's 3BV, the fewest clicks that could clear it, once the mines
+  // are laid out
+  int threeBV() {
+    return this.board.openingIndex().threeBV();
+  }
+
+  // has a mine been uncovered?
+  boolean isLost() {
+    return this.lost;
+  }
+
+  // have all the cells that aren't mines been uncovered without uncovering a
+  // mine?
+  boolean isWon() {
+    return !this.lost && this.board.allSafeRevealed();
+  }
+
+  // is the game over, either way?
+  boolean isOver() {
+    return this.lost || this.board.allSafeRevealed();
+  }
+
+  // is the given cell hidden?
+  boolean isHidden(int colIndex, int rowIndex) {
+    return this.board.isHidden(this.board.index(colIndex, rowIndex));
+  }
+
+  // is the given cell flagged?
+  boolean isFlagged(int colIndex, int rowIndex) {
+    return this.board.isFlagged(this.board.index(colIndex, rowIndex));
+  }
+
+  // is the given cell a mine? players only get to see this once it is uncovered
+  boolean isMine(int colIndex, int rowIndex) {
+    return this.board.isMine(this.board.index(colIndex, rowIndex));
+  }
+
+  // the number of mines that neighbor the given cell
+  int adjacentMines(int colIndex, int rowIndex) {
+    return this.board.adjacentMines(this.board.index(colIndex, rowIndex));
+  }
+
+  // the number of cells that are still hidden
+  int hiddenCells() {
+    return this.board.countHidden();
+  }
+
+  // the number of flags on the board
+  int flagsPlaced() {
+    return this.board.countFlags();
+  }
+
+  // the number of flags that can still be placed
+  int flagsLeft() {
+    return this.numMines - this.board.countFlags();
+  }
+}
+
+// examples for headless games
+class ExamplesMinesweeperGame {
+  MinesweeperGame game;
+
+  // initialize variables
+  void init() {
+    game = new MinesweeperGame(new MineGenerator(3, 3, 2, 9, true));
+    /*
+     * the above game looks like the following:
+     * 
+     * X 1 0
+     * 1 2 1
+     * 0 1 X
+     * 
+     * (X = mine, numbers = neighboring mines)
+     */
+  }
+
+  // test the constructor
+  void testConstructor(Tester t) {
+    t.checkConstructorException("construct a game with invalid grid dimensions",
+        new IllegalArgumentException("grid dimensions are too small"), "MinesweeperGame", 0, 3,
+        1);
+    // a game needs at least one cell
+  }
+
+  // test the restart method
+  void testRestart(Tester t) {
+    init();
+    PackedBoard board = game.board;
+    game.toggleFlag(1, 1);
+    game.reveal(0, 0);
+    game.restart(new MineGenerator(3, 3, 2, 9, true));
+
+    PackedBoard fresh = new MinesweeperGame(new MineGenerator(3, 3, 2, 9, true)).board;
+    t.checkExpect(game.board == board, true);
+    t.checkExpect(game.board.hidden, fresh.hidden);
+    t.checkExpect(game.board.mines, fresh.mines);
+    t.checkExpect(game.board.flags, fresh.flags);
+    t.checkExpect(game.board.adjacent, fresh.adjacent);
+    t.checkExpect(game.hiddenCells(), 9);
+    t.checkExpect(game.flagsPlaced(), 0);
+    t.checkExpect(game.isOver(), false);
+    // a game of the same size reuses the board, which looks brand new
+
+    game.restart(new MineGenerator(4, 2, 1, 9));
+    t.checkExpect(game.board == board, false);
+    t.checkExpect(game.board.size(), 8);
+    t.checkExpect(game.board.numMines, 1);
+    // a game of another size gets a new board
+  }
+
+  // test a game whose mines are laid out on the first reveal
+  void testDeferredMines(Tester t) {
+    MinesweeperGame deferred = new MinesweeperGame(new MineGenerator(9, 9, 72, 4), true);
+    t.checkExpect(deferred.minesPlaced(), false);
+    t.checkExpect(deferred.board.numMines, 0);
+    t.checkExpect(deferred.toggleFlag(8, 8), true);
+    t.checkExpect(deferred.reveal(8, 8), 0);
+    t.checkExpect(deferred.board.numMines, 0);
+    // a flag can go down before the mines do, and nothing is laid out by
+    // the other moves
+
+    deferred.toggleFlag(8, 8);
+    t.checkExpect(deferred.reveal(1, 1), 4);
+    t.checkExpect(deferred.minesPlaced(), true);
+    t.checkExpect(deferred.isLost(), false);
+    t.checkExpect(deferred.board.numMines, 72);
+    t.checkExpect(deferred.board.mines,
+        new MineGenerator(9, 9, 72, 4).makeMineLayout(1, 1));
+    // the first reveal lays out the mines, clear of the cell and its
+    // neighbors, the same way every time for the same seed and cell. the
+    // mines fill everything else, so only the 0s in the corner are uncovered
+
+    deferred.restart(new MineGenerator(9, 9, 10, 4), true);
+    t.checkExpect(deferred.minesPlaced(), false);
+    t.checkExpect(deferred.hiddenCells(), 81);
+    // a restarted game can defer its mines too
+  }
+
+  // test the reveal method
+  void testReveal(Tester t) {
+    init();
+
+    t.checkExpect(game.reveal(1, 1), 1);
+    t.checkExpect(game.isHidden(1, 1), false);
+    t.checkExpect(game.isOver(), false);
+    // uncovering a safe cell keeps the game going
+
+    t.checkExpect(game.reveal(1, 1), 0);
+    // uncovering a visible cell does nothing
+
+    game.toggleFlag(0, 0);
+    t.checkExpect(game.reveal(0, 0), 0);
+    t.checkExpect(game.isLost(), false);
+    // a flagged cell can't be uncovered
+
+    game.toggleFlag(0, 0);
+    t.checkExpect(game.reveal(0, 0), 1);
+    t.checkExpect(game.isLost(), true);
+    t.checkExpect(game.isWon(), false);
+    t.checkExpect(game.isOver(), true);
+    // uncovering a mine loses the game
+
+    t.checkExpect(game.reveal(2, 0), 0);
+    // nothing can be uncovered once the game is over
+  }
+
+  // test winning a game
+  void testWin(Tester t) {
+    init();
+
+    for (int col = 0; col < 3; col++) {
+      for (int row = 0; row < 3; row++) {
+        if (!game.isMine(col, row)) {
+          game.reveal(col, row);
+        }
+      }
+    }
+    t.checkExpect(game.isWon(), true);
+    t.checkExpect(game.isOver(), true);
+    t.checkExpect(game.hiddenCells(), 2);
+    // uncovering every safe cell wins the game
+  }
+
+  // test the toggleFlag method
+  void testToggleFlag(Tester t) {
+    init();
+
+    t.checkExpect(game.toggleFlag(0, 0), true);
+    t.checkExpect(game.toggleFlag(1, 0), true);
+    t.checkExpect(game.flagsPlaced(), 2);
+    t.checkExpect(game.flagsLeft(), 0);
+    // flags can be placed until there are as many as there are mines
+
+    t.checkExpect(game.toggleFlag(2, 0), false);
+    t.checkExpect(game.isFlagged(2, 0), false);
+    // no more flags than mines can be placed
+
+    t.checkExpect(game.toggleFlag(1, 0), true);
+    t.checkExpect(game.flagsLeft(), 1);
+    // but flags can always be taken off
+  }
+
+  // test the chord method
+  void testChord(Tester t) {
+    init();
+
+    t.checkExpect(game.chord(1, 0), 0);
+    // a hidden cell can't be chorded
+
+    game.reveal(1, 0);
+    t.checkExpect(game.chord(1, 0), 0);
+    // a cell without enough flags around it does nothing
+
+    game.toggleFlag(0, 0);
+    t.checkExpect(game.chord(1, 0), 4);
+    t.checkExpect(game.hiddenCells(), 4);
+    t.checkExpect(game.isLost(), false);
+    // with its one mine flagged, (1, 0) uncovers its other hidden neighbors
+
+    init();
+    game.reveal(1, 0);
+    game.toggleFlag(1, 1);
+    game.chord(1, 0);
+    t.checkExpect(game.isLost(), true);
+    // chording around a wrongly flagged cell uncovers the mine
+  }
+}
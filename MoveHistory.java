@@ -0,0 +1,264 @@
+import java.util.Arrays;
+import java.util.BitSet;
+import tester.*;
+
+// the moves made on a game, kept so that they can be undone and redone.
+// nothing about the board is copied up front: each move keeps only the
+// chunks of the hidden and flag planes it wrote, a chunk being the 64 cells
+// of one word of a plane, as the mask of the cells it flipped. flipping the
+// same cells again gives back the chunk as it was, so undoing and redoing a
+// move apply the same change, and a move costs time and memory in proportion
+// to the cells it changed however big the board is, cascades included.
+//
+// a chunk is kept as its word index times two plus its plane. the moves are
+// kept back to back: move m's chunks are chunks[moveStart[m]] to
+// chunks[moveStart[m + 1] - 1]
+class MoveHistory {
+  static final int HIDDEN = 0;
+  static final int FLAGS = 1;
+
+  int[] chunks;
+  long[] masks;
+  int[] moveStart;
+  // the moves that uncovered a mine
+  BitSet lostMoves;
+  // the moves kept, the first 'numApplied' of which are on the board. a new
+  // move drops the moves that were undone
+  int numMoves;
+  int numApplied;
+  // the cells the last undo or redo changed
+  int[] changed;
+
+  // construct an empty history
+  MoveHistory() {
+    this.chunks = new int[64];
+    this.masks = new long[64];
+    this.moveStart = new int[17];
+    this.lostMoves = new BitSet();
+    this.numMoves = 0;
+    this.numApplied = 0;
+    this.changed = new int[64];
+  }
+
+  // forget every move
+  void clear() {
+    this.numMoves = 0;
+    this.numApplied = 0;
+    this.lostMoves.clear();
+  }
+
+  // a copy of this history that moves made on it don't change
+  MoveHistory copy() {
+    MoveHistory copy = new MoveHistory();
+    int numChunks = this.moveStart[this.numMoves];
+    copy.chunks = Arrays.copyOf(this.chunks, Math.max(numChunks, 1));
+    copy.masks = Arrays.copyOf(this.masks, Math.max(numChunks, 1));
+    copy.moveStart = Arrays.copyOf(this.moveStart, this.numMoves + 1);
+    copy.lostMoves = (BitSet) this.lostMoves.clone();
+    copy.numMoves = this.numMoves;
+    copy.numApplied = this.numApplied;
+    return copy;
+  }
+
+  // start recording a move, dropping the moves that were undone
+  void startMove() {
+    this.numMoves = this.numApplied;
+    this.lostMoves.clear(this.numMoves, Math.max(this.numMoves, this.lostMoves.length()));
+    if (this.numMoves + 2 > this.moveStart.length) {
+      this.moveStart = Arrays.copyOf(this.moveStart, 2 * this.moveStart.length);
+    }
+    this.moveStart[this.numMoves + 1] = this.moveStart[this.numMoves];
+  }
+
+  // record that the move being recorded flipped the given cell of the given
+  // plane. cells of the same chunk that come one after another, as they do
+  // along the rows of a cascade, share one entry
+  void addCell(int plane, int index) {
+    int chunk = (index >>> 6) * 2 + plane;
+    int end = this.moveStart[this.numMoves + 1];
+    if (end > this.moveStart[this.numMoves] && this.chunks[end - 1] == chunk) {
+      this.masks[end - 1] |= 1L << index;
+      return;
+    }
+    if (end == this.chunks.length) {
+      this.chunks = Arrays.copyOf(this.chunks, 2 * end);
+      this.masks = Arrays.copyOf(this.masks, 2 * end);
+    }
+    this.chunks[end] = chunk;
+    this.masks[end] = 1L << index;
+    this.moveStart[this.numMoves + 1] = end + 1;
+  }
+
+  // finish recording a move. a move that changed nothing isn't kept
+  void endMove(boolean lost) {
+    if (this.moveStart[this.numMoves + 1] == this.moveStart[this.numMoves]) {
+      return;
+    }
+    if (lost) {
+      this.lostMoves.set(this.numMoves);
+    }
+    this.numMoves += 1;
+    this.numApplied = this.numMoves;
+  }
+
+  // is there a move to undo?
+  boolean canUndo() {
+    return this.numApplied > 0;
+  }
+
+  // is there an undone move to redo?
+  boolean canRedo() {
+    return this.numApplied < this.numMoves;
+  }
+
+  // take the last move applied off the given game. return the number of
+  // cells that changed; they are the first entries of 'changed'
+  int undo(MinesweeperGame game) {
+    this.numApplied -= 1;
+    if (this.lostMoves.get(this.numApplied)) {
+      game.lost = false;
+    }
+    return flip(game, this.numApplied);
+  }
+
+  // apply the first move undone to the given game again. return the number
+  // of cells that changed; they are the first entries of 'changed'
+  int redo(MinesweeperGame game) {
+    int numChanged = flip(game, this.numApplied);
+    if (this.lostMoves.get(this.numApplied)) {
+      game.lost = true;
+    }
+    this.numApplied += 1;
+    return numChanged;
+  }
+
+  // flip the cells the given move changed on the game's board
+  int flip(MinesweeperGame game, int move) {
+    PackedBoard board = game.board;
+    int numChanged = 0;
+    for (int i = this.moveStart[move]; i < this.moveStart[move + 1]; i++) {
+      int first = (this.chunks[i] >>> 1) << 6;
+      for (long mask = this.masks[i]; mask != 0; mask &= mask - 1) {
+        int index = first + Long.numberOfTrailingZeros(mask);
+        if ((this.chunks[i] & 1) == FLAGS) {
+          board.toggleFlag(index);
+        }
+        else if (board.isHidden(index)) {
+          board.uncover(index);
+        }
+        else {
+          board.cover(index);
+        }
+        if (numChanged == this.changed.length) {
+          this.changed = Arrays.copyOf(this.changed, 2 * numChanged);
+        }
+        this.changed[numChanged] = index;
+        numChanged += 1;
+      }
+    }
+    return numChanged;
+  }
+
+  // the number of chunks kept for every move, undone or not
+  int numChunks() {
+    return this.moveStart[this.numMoves];
+  }
+}
+
+// examples for move histories
+class ExamplesMoveHistory {
+  MinesweeperGame game;
+
+  // initialize variables
+  void init() {
+    game = new MinesweeperGame(16, 16, 40, 3);
+    game.keepHistory();
+  }
+
+  // test undoing and redoing flags and reveals
+  void testUndo(Tester t) {
+    init();
+    BitSet hidden = (BitSet) game.board.hidden.clone();
+    game.toggleFlag(0, 0);
+    int safe = 0;
+    while (game.board.isMine(safe) || game.board.isFlagged(safe)) {
+      safe += 1;
+    }
+    int numRevealed = game.reveal(game.board.colOf(safe), game.board.rowOf(safe));
+    BitSet afterReveal = (BitSet) game.board.hidden.clone();
+    t.checkExpect(game.history.numMoves, 2);
+
+    t.checkExpect(game.undo(), numRevealed);
+    t.checkExpect(game.board.hidden, hidden);
+    t.checkExpect(game.board.countHidden(), 256);
+    t.checkExpect(game.undo(), 1);
+    t.checkExpect(game.board.countFlags(), 0);
+    t.checkExpect(game.undo(), 0);
+    // undoing takes the moves back off in turn, counts included
+
+    t.checkExpect(game.redo(), 1);
+    t.checkExpect(game.board.isFlagged(0), true);
+    t.checkExpect(game.redo(), numRevealed);
+    t.checkExpect(game.board.hidden, afterReveal);
+    t.checkExpect(game.redo(), 0);
+    // redoing puts them back
+
+    game.undo();
+    game.toggleFlag(5, 5);
+    t.checkExpect(game.history.canRedo(), false);
+    t.checkExpect(game.history.numMoves, 2);
+    // a new move drops the moves that were undone
+  }
+
+  // test undoing the move that lost the game
+  void testUndoLoss(Tester t) {
+    init();
+    int mine = game.board.mines.nextSetBit(0);
+    game.reveal(game.board.colOf(mine), game.board.rowOf(mine));
+    t.checkExpect(game.isLost(), true);
+    game.reveal(0, 0);
+    t.checkExpect(game.history.numMoves, 1);
+    // moves made once the game is over change nothing and aren't kept
+
+    game.undo();
+    t.checkExpect(game.isLost(), false);
+    t.checkExpect(game.board.isHidden(mine), true);
+    game.redo();
+    t.checkExpect(game.isLost(), true);
+    // the loss is undone and redone with the move
+  }
+
+  // test that a cascade costs memory for the chunks it touched
+  void testCascade(Tester t) {
+    MinesweeperGame open = new MinesweeperGame(1000, 1000, 1000, 2);
+    open.keepHistory();
+    int start = 0;
+    while (open.board.isMine(start) || open.board.adjacentMines(start) != 0) {
+      start += 1;
+    }
+    int numRevealed = open.reveal(open.board.colOf(start), open.board.rowOf(start));
+    t.checkExpect(numRevealed > 900000, true);
+    t.checkExpect(open.history.numChunks() <= 1000000 / 64 + 2 * 1000, true);
+    // a cascade over most of a huge board is kept as about one chunk for
+    // every 64 cells it uncovered
+
+    t.checkExpect(open.undo(), numRevealed);
+    t.checkExpect(open.board.countHidden(), 1000000);
+    t.checkExpect(open.redo(), numRevealed);
+    t.checkExpect(open.board.countHidden(), 1000000 - numRevealed);
+    open.board.checkCounts();
+    // and undone and redone in one pass over the cells it changed
+  }
+
+  // test that a copy doesn't follow the history it was copied from
+  void testCopy(Tester t) {
+    init();
+    game.toggleFlag(0, 0);
+    MoveHistory copy = game.history.copy();
+    game.undo();
+    game.toggleFlag(1, 1);
+    t.checkExpect(copy.numApplied, 1);
+    t.checkExpect(copy.masks[0], 1L);
+    // the copy still has the first flag
+  }
+}
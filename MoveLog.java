@@ -0,0 +1,314 @@
+import java.util.Arrays;
+import java.util.Random;
+import javalib.worldimages.*;
+import tester.*;
+
+// an append-only record of the moves made on a board, from which the games
+// can be played again exactly.
+//
+// every event is a type byte followed by its arguments as unsigned varints:
+// seven bits to a byte, lowest first, with the top bit set on every byte but
+// the last. NEW_GAME holds the width, height, mines and seed of a seeded
+// board (the seed zigzag encoded, so small negative seeds stay short),
+// REVEAL, CHORD and FLAG hold the column and row of the cell, and TICK, UNDO
+// and REDO hold nothing. a reveal on a small board takes three bytes and a
+// tick one.
+class MoveLog {
+  static final int NEW_GAME = 0;
+  static final int REVEAL = 1;
+  static final int CHORD = 2;
+  static final int FLAG = 3;
+  static final int TICK = 4;
+  static final int UNDO = 5;
+  static final int REDO = 6;
+
+  byte[] bytes;
+  int length;
+  // where each event starts in 'bytes'
+  int[] offsets;
+  int numEvents;
+
+  // construct an empty log
+  MoveLog() {
+    this.bytes = new byte[256];
+    this.offsets = new int[64];
+  }
+
+  // the number of events in the log
+  int size() {
+    return this.numEvents;
+  }
+
+  // record the start of a game on a board made from the given seed
+  void newGame(int gridWidth, int gridHeight, int numMines, int seed) {
+    startEvent(NEW_GAME);
+    writeVarint(gridWidth);
+    writeVarint(gridHeight);
+    writeVarint(numMines);
+    writeVarint(seed << 1 ^ seed >> 31);
+  }
+
+  // record a move of the given type. the column and row are only kept for
+  // moves on a cell
+  void append(int type, int colIndex, int rowIndex) {
+    startEvent(type);
+    if (type == REVEAL || type == CHORD || type == FLAG) {
+      writeVarint(colIndex);
+      writeVarint(rowIndex);
+    }
+  }
+
+  // write the type byte of a new event
+  void startEvent(int type) {
+    if (this.numEvents == this.offsets.length) {
+      this.offsets = Arrays.copyOf(this.offsets, 2 * this.numEvents);
+    }
+    this.offsets[this.numEvents] = this.length;
+    this.numEvents += 1;
+    writeByte(type);
+  }
+
+  // write one byte to the end of the log
+  void writeByte(int value) {
+    if (this.length == this.bytes.length) {
+      this.bytes = Arrays.copyOf(this.bytes, 2 * this.length);
+    }
+    this.bytes[this.length] = (byte) value;
+    this.length += 1;
+  }
+
+  // write an unsigned varint to the end of the log
+  void writeVarint(int value) {
+    while ((value & ~0x7F) != 0) {
+      writeByte(value & 0x7F | 0x80);
+      value >>>= 7;
+    }
+    writeByte(value);
+  }
+
+  // read the given event, writing its arguments into 'args', and return its
+  // type
+  int read(int event, int[] args) {
+    int at = this.offsets[event];
+    int type = this.bytes[at];
+    at += 1;
+    int numArgs = argumentCount(type);
+    for (int i = 0; i < numArgs; i++) {
+      int value = 0;
+      int shift = 0;
+      while ((this.bytes[at] & 0x80) != 0) {
+        value |= (this.bytes[at] & 0x7F) << shift;
+        shift += 7;
+        at += 1;
+      }
+      value |= this.bytes[at] << shift;
+      at += 1;
+      args[i] = value;
+    }
+    if (type == NEW_GAME) {
+      args[3] = args[3] >>> 1 ^ -(args[3] & 1);
+    }
+    return type;
+  }
+
+  // the number of arguments of an event of the given type
+  static int argumentCount(int type) {
+    if (type == NEW_GAME) {
+      return 4;
+    }
+    else if (type == REVEAL || type == CHORD || type == FLAG) {
+      return 2;
+    }
+    else if (type == TICK || type == UNDO || type == REDO) {
+      return 0;
+    }
+    throw new IllegalArgumentException("unknown move type " + type);
+  }
+
+  // the bytes of the log, for storing it or sending it with a bug report
+  byte[] toByteArray() {
+    return Arrays.copyOf(this.bytes, this.length);
+  }
+
+  // read back a log from the bytes given by toByteArray
+  static MoveLog fromBytes(byte[] bytes) {
+    MoveLog log = new MoveLog();
+    log.bytes = Arrays.copyOf(bytes, Math.max(bytes.length, 1));
+    log.length = bytes.length;
+    int at = 0;
+    while (at < bytes.length) {
+      int numArgs = argumentCount(bytes[at]);
+      if (log.numEvents == log.offsets.length) {
+        log.offsets = Arrays.copyOf(log.offsets, 2 * log.numEvents);
+      }
+      log.offsets[log.numEvents] = at;
+      log.numEvents += 1;
+      at += 1;
+      for (int i = 0; i < numArgs; i++) {
+        while (at < bytes.length && (bytes[at] & 0x80) != 0) {
+          at += 1;
+        }
+        at += 1;
+      }
+    }
+    if (at != bytes.length) {
+      throw new IllegalArgumentException("the move log is cut short");
+    }
+    return log;
+  }
+}
+
+// examples for move logs and replays
+class ExamplesMoveLog {
+  // the time on the clock the boards' schedulers read, in nanoseconds
+  long now;
+
+  // a log of several games played by clicking cells at random, ticking a
+  // second later now and then
+  MoveLog randomGames(int numGames, int seed) {
+    Random rand = new Random(seed);
+    MoveLog log = new MoveLog();
+    for (int game = 0; game < numGames; game++) {
+      Board board = new Board(16, 16, 40, rand.nextInt(), log);
+      board.scheduler = new RedrawScheduler(() -> this.now);
+      while (!board.gameEnd) {
+        int choice = rand.nextInt(10);
+        Posn posn = new Posn(rand.nextInt(16 * 50), rand.nextInt(16 * 50));
+        if (choice < 5) {
+          board.onMouseClicked(posn, "LeftButton");
+        }
+        else if (choice < 7) {
+          board.onMouseClicked(posn, "RightButton");
+        }
+        else if (choice < 8) {
+          board.onMouseClicked(posn, "MiddleButton");
+        }
+        else {
+          this.now += RedrawScheduler.NANOS_PER_SECOND;
+          board.onTick();
+        }
+      }
+    }
+    return log;
+  }
+
+  // test how events are written and read back
+  void testEncoding(Tester t) {
+    MoveLog log = new MoveLog();
+    log.newGame(30, 16, 99, -7);
+    log.append(MoveLog.REVEAL, 3, 4);
+    log.append(MoveLog.FLAG, 200, 15);
+    log.append(MoveLog.TICK, 0, 0);
+    t.checkExpect(log.size(), 4);
+    t.checkExpect(log.length, 13);
+    // 5 bytes for the new game, 3 for the reveal, 4 for the flag since 200
+    // takes two bytes, and 1 for the tick
+
+    int[] args = new int[4];
+    t.checkExpect(log.read(0, args), MoveLog.NEW_GAME);
+    t.checkExpect(args, new int[] { 30, 16, 99, -7 });
+    t.checkExpect(log.read(2, args), MoveLog.FLAG);
+    t.checkExpect(args[0], 200);
+    t.checkExpect(args[1], 15);
+    t.checkExpect(log.read(3, args), MoveLog.TICK);
+
+    MoveLog copy = MoveLog.fromBytes(log.toByteArray());
+    t.checkExpect(copy.size(), 4);
+    t.checkExpect(copy.toByteArray(), log.toByteArray());
+    t.checkExpect(copy.read(1, args), MoveLog.REVEAL);
+    t.checkExpect(args[1], 4);
+    // a log read back from its bytes has the same events
+  }
+
+  // test that a recorded game replays to the same state
+  void testReplay(Tester t) {
+    MoveLog log = new MoveLog();
+    Board board = new Board(16, 16, 40, 12, log);
+    board.scheduler = new RedrawScheduler(() -> this.now);
+    Random rand = new Random(3);
+    for (int i = 0; i < 400; i++) {
+      Posn posn = new Posn(rand.nextInt(16 * 50), rand.nextInt(16 * 50));
+      if (i % 3 == 0) {
+        board.onMouseClicked(posn, "RightButton");
+      }
+      else if (i % 3 == 1) {
+        this.now += RedrawScheduler.NANOS_PER_SECOND;
+        board.onTick();
+      }
+      else {
+        board.onMouseClicked(posn, "LeftButton");
+      }
+    }
+    GameReplay replay = new GameReplay(log, 16);
+    replay.seekToEnd();
+    t.checkExpect(replay.game.board.mines, board.game.board.mines);
+    t.checkExpect(replay.game.board.hidden, board.game.board.hidden);
+    t.checkExpect(replay.game.board.flags, board.game.board.flags);
+    t.checkExpect(replay.timer, board.timer);
+    t.checkExpect(replay.gameEnd, board.gameEnd);
+    // moves made after the game ended aren't recorded, and don't matter
+
+    t.checkExpect(board.timer > 0, true);
+    // the clock moved between ticks, so the replay had ticks to keep time by
+  }
+
+  // test that seeking lands where playing straight through does
+  void testSeek(Tester t) {
+    MoveLog log = randomGames(20, 5);
+    int ticks = 0;
+    int[] args = new int[4];
+    for (int i = 0; i < log.size(); i++) {
+      if (log.read(i, args) == MoveLog.TICK) {
+        ticks += 1;
+      }
+    }
+    t.checkExpect(ticks > 0, true);
+    // the games' clocks move, so their time is recorded with the moves
+
+    GameReplay straight = new GameReplay(log, 32);
+    GameReplay seeking = new GameReplay(log, 32);
+    seeking.seekToEnd();
+    Random rand = new Random(8);
+    boolean same = true;
+    for (int i = 0; i < 40; i++) {
+      int target = rand.nextInt(log.size() + 1);
+      seeking.seek(target);
+      straight.seek(0);
+      straight.seek(target);
+      same = same && seeking.game.board.hidden.equals(straight.game.board.hidden)
+          && seeking.game.board.flags.equals(straight.game.board.flags)
+          && seeking.game.board.mines.equals(straight.game.board.mines)
+          && seeking.timer == straight.timer && seeking.gameEnd == straight.gameEnd;
+    }
+    t.checkExpect(same, true);
+    // seeking back and forth through snapshots gives the same states
+
+    long before = seeking.eventsApplied;
+    seeking.seek(log.size() - 1);
+    seeking.seek(log.size() / 2);
+    t.checkExpect(seeking.eventsApplied - before < 64, true);
+    // each seek replays less than one snapshot interval
+  }
+
+  // test looking at a replay on a board
+  void testToBoard(Tester t) {
+    MoveLog log = randomGames(1, 9);
+    GameReplay replay = new GameReplay(log);
+    replay.seek(log.size() / 2);
+    Board board = replay.toBoard();
+    t.checkExpect(board.game.board.hidden, replay.game.board.hidden);
+    t.checkExpect(board.timer, replay.timer);
+    board.game.toggleFlag(0, 0);
+    t.checkExpect(board.game.board.flags.equals(replay.game.board.flags), false);
+    // the board is a copy, so playing on it leaves the replay alone
+  }
+
+  // test that a log has to start with a game
+  void testNoGame(Tester t) {
+    MoveLog log = new MoveLog();
+    log.append(MoveLog.TICK, 0, 0);
+    t.checkException("a log without a new game",
+        new IllegalStateException("a move log has to start with a new game"),
+        new GameReplay(log), "seek", 1);
+  }
+}
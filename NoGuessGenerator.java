@@ -0,0 +1,330 @@
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import tester.*;
+
+// lays out mines so that the board can be solved from the given first click
+// without ever guessing.
+//
+// a candidate layout keeps the first click and its neighbors free of mines,
+// so the first click opens up the board. a MineSolver then plays it from the
+// first click. when the solver gets stuck, the candidate isn't thrown away:
+// one mine from the stuck part of the frontier is moved to a hidden cell away
+// from it, and the solver plays the changed board again. only a candidate that
+// can't be fixed within 'maxFixes' moves is replaced by a new one. some
+// boards have no layout that can be solved at all, so after 'maxCandidates'
+// candidates the generator gives up.
+class NoGuessGenerator extends MineGenerator {
+  int firstCol;
+  int firstRow;
+  // the number of mines moved before a candidate is given up on
+  int maxFixes;
+  // the number of candidates drawn before the board is given up on
+  int maxCandidates;
+  // the candidates drawn and the mines moved for the last layout
+  int candidates;
+  int fixes;
+  // the game and solver used to check candidates, reused between them
+  MinesweeperGame game;
+  MineSolver solver;
+
+  // construct a generator for boards that can be solved from the given first
+  // click
+  NoGuessGenerator(int gridWidth, int gridHeight, int numMines, int firstCol, int firstRow) {
+    super(gridWidth, gridHeight, numMines);
+    if (gridWidth < 1 || gridHeight < 1) {
+      throw new IllegalArgumentException("grid dimensions are too small");
+    }
+    if (firstCol < 0 || firstCol >= gridWidth || firstRow < 0 || firstRow >= gridHeight) {
+      throw new IllegalArgumentException("first click is outside the grid");
+    }
+    this.firstCol = firstCol;
+    this.firstRow = firstRow;
+    this.maxFixes = 4 * numMines + 16;
+    this.maxCandidates = 1000;
+    this.game = new MinesweeperGame(new MineGenerator(gridWidth, gridHeight, 0));
+    this.solver = new MineSolver(this.game);
+    if (numMines > this.game.board.size() - openingCells().size()) {
+      throw new IllegalArgumentException("too many mines to leave the first click clear");
+    }
+  }
+
+  // constructor with random seed argument
+  NoGuessGenerator(int gridWidth, int gridHeight, int numMines, int seed, int firstCol,
+      int firstRow) {
+    this(gridWidth, gridHeight, numMines, firstCol, firstRow);
+    this.rand.setSeed(seed);
+  }
+
+  // the first click and its neighbors
+  ArrayList<Integer> openingCells() {
+    PackedBoard board = this.game.board;
+    int first = board.index(this.firstCol, this.firstRow);
+    int[] neighbors = new int[8];
+    int numNeighbors = board.neighbors(first, neighbors);
+    ArrayList<Integer> cells = new ArrayList<>();
+    cells.add(first);
+    for (int i = 0; i < numNeighbors; i++) {
+      cells.add(neighbors[i]);
+    }
+    return cells;
+  }
+
+  // choose the cells that hold mines, so that the board can be solved from
+  // the first click without guessing
+  BitSet makeMineLayout() {
+    this.candidates = 0;
+    this.fixes = 0;
+    while (this.candidates < this.maxCandidates) {
+      BitSet layout = candidate();
+      this.candidates += 1;
+      for (int fix = 0; fix <= this.maxFixes; fix++) {
+        if (solvable(layout)) {
+          return layout;
+        }
+        if (!fixUp(layout)) {
+          break;
+        }
+        this.fixes += 1;
+      }
+    }
+    throw new IllegalStateException("no layout found that can be solved without guessing");
+  }
+
+  // a random layout that keeps the first click and its neighbors clear, with
+  // every such layout equally likely
+  BitSet candidate() {
+    return makeMineLayout(this.firstCol, this.firstRow);
+  }
+
+  // play the given layout from the first click with the solver, and say
+  // whether it wins. the game and solver are left where the solver stopped
+  boolean solvable(BitSet layout) {
+    this.game.restart(this.gridWidth, this.gridHeight, this.numMines, layout);
+    this.game.reveal(this.firstCol, this.firstRow);
+    this.solver.reset(this.game);
+    while (!this.game.isOver()) {
+      this.solver.solve();
+      int index = this.solver.nextSafe();
+      if (index < 0) {
+        // once every mine is found, every other hidden cell is safe
+        if (this.solver.knownMines.cardinality() != this.numMines) {
+          return false;
+        }
+        this.solver.knownSafe.or(this.game.board.hidden);
+        this.solver.knownSafe.andNot(this.solver.knownMines);
+        index = this.solver.nextSafe();
+      }
+      this.game.reveal(this.game.board.colOf(index), this.game.board.rowOf(index));
+      this.solver.update();
+    }
+    return this.game.isWon();
+  }
+
+  // move one mine from where the solver got stuck to a hidden cell away from
+  // everything uncovered so far, and return whether there was one to move
+  boolean fixUp(BitSet layout) {
+    PackedBoard board = this.game.board;
+    int[] neighbors = new int[8];
+    ArrayList<Integer> stuckMines = new ArrayList<>();
+    ArrayList<Integer> targets = new ArrayList<>();
+    for (int index = board.hidden.nextSetBit(0); index >= 0; index = board.hidden
+        .nextSetBit(index + 1)) {
+      if (this.solver.knownMines.get(index) || this.solver.knownSafe.get(index)) {
+        continue;
+      }
+      boolean onFrontier = false;
+      int numNeighbors = board.neighbors(index, neighbors);
+      for (int i = 0; i < numNeighbors; i++) {
+        if (!board.isHidden(neighbors[i])) {
+          onFrontier = true;
+        }
+      }
+      if (onFrontier && layout.get(index)) {
+        stuckMines.add(index);
+      }
+      else if (!onFrontier && !layout.get(index)) {
+        targets.add(index);
+      }
+    }
+    if (stuckMines.isEmpty() || targets.isEmpty()) {
+      return false;
+    }
+    layout.clear(stuckMines.get(this.rand.nextInt(stuckMines.size())));
+    layout.set(targets.get(this.rand.nextInt(targets.size())));
+    return true;
+  }
+
+  // lay out one board for each seed, in parallel on the given pool. the
+  // result for a seed doesn't depend on the pool
+  static BitSet[] generate(ForkJoinPool pool, int gridWidth, int gridHeight, int numMines,
+      int firstCol, int firstRow, int[] seeds) {
+    List<ForkJoinTask<BitSet>> tasks = new ArrayList<>();
+    for (int seed : seeds) {
+      tasks.add(pool.submit(() -> new NoGuessGenerator(gridWidth, gridHeight, numMines, seed,
+          firstCol, firstRow).makeMineLayout()));
+    }
+    BitSet[] layouts = new BitSet[seeds.length];
+    for (int i = 0; i < layouts.length; i++) {
+      layouts[i] = tasks.get(i).join();
+    }
+    return layouts;
+  }
+}
+
+// keeps a number of no-guess layouts of one size ready, generating new ones
+// on a pool in the background as they are taken
+class NoGuessPool extends LayoutPool {
+
+  // construct a pool that keeps up to 'capacity' layouts ready, generated on
+  // the given pool from seeds counting up from 'firstSeed'
+  NoGuessPool(int gridWidth, int gridHeight, int numMines, int firstCol, int firstRow,
+      int capacity, int firstSeed, ForkJoinPool pool) {
+    super(seed -> new NoGuessGenerator(gridWidth, gridHeight, numMines, seed, firstCol,
+        firstRow).makeMineLayout(), new AtomicInteger(firstSeed)::getAndIncrement, capacity,
+        pool);
+    // check the arguments before anything runs in the background
+    new NoGuessGenerator(gridWidth, gridHeight, numMines, firstCol, firstRow);
+    fill();
+  }
+
+  // construct a pool that generates on the common pool
+  NoGuessPool(int gridWidth, int gridHeight, int numMines, int firstCol, int firstRow,
+      int capacity, int firstSeed) {
+    this(gridWidth, gridHeight, numMines, firstCol, firstRow, capacity, firstSeed,
+        ForkJoinPool.commonPool());
+  }
+}
+
+// examples for no-guess generation
+class ExamplesNoGuessGenerator {
+
+  // test that the first click and its neighbors are kept clear
+  void testCandidate(Tester t) {
+    NoGuessGenerator gen = new NoGuessGenerator(9, 9, 10, 1, 0, 0);
+    BitSet layout = gen.candidate();
+    t.checkExpect(layout.cardinality(), 10);
+    t.checkExpect(layout.get(0) || layout.get(1) || layout.get(9) || layout.get(10), false);
+    // the corner and its three neighbors hold no mines
+  }
+
+  // test that generated boards are won by the solver alone
+  void testMakeMineLayout(Tester t) {
+    boolean allSolvable = true;
+    boolean allFull = true;
+    for (int seed = 0; seed < 20; seed++) {
+      NoGuessGenerator gen = new NoGuessGenerator(30, 16, 99, seed, 15, 8);
+      BitSet layout = gen.makeMineLayout();
+      allFull = allFull && layout.cardinality() == 99;
+      MinesweeperGame game = new MinesweeperGame(new MineGenerator(30, 16, 0));
+      game.restart(30, 16, 99, layout);
+      allSolvable = allSolvable && new NoGuessGenerator(30, 16, 99, 15, 8).solvable(layout);
+      game.reveal(15, 8);
+      t.checkExpect(game.isLost(), false);
+    }
+    t.checkExpect(allFull, true);
+    t.checkExpect(allSolvable, true);
+    // every expert board has all of its mines and can be won without guessing
+  }
+
+  // test that fixing up a stuck layout moves one mine off the frontier
+  void testFixUp(Tester t) {
+    NoGuessGenerator gen = new NoGuessGenerator(30, 16, 99, 2, 15, 8);
+    BitSet layout = gen.candidate();
+    while (gen.solvable(layout)) {
+      layout = gen.candidate();
+    }
+    BitSet before = (BitSet) layout.clone();
+    PackedBoard board = gen.game.board;
+    t.checkExpect(gen.fixUp(layout), true);
+    t.checkExpect(layout.cardinality(), 99);
+    BitSet removed = (BitSet) before.clone();
+    removed.andNot(layout);
+    BitSet added = (BitSet) layout.clone();
+    added.andNot(before);
+    t.checkExpect(removed.cardinality(), 1);
+    t.checkExpect(added.cardinality(), 1);
+    t.checkExpect(touchesUncovered(board, removed.nextSetBit(0)), true);
+    t.checkExpect(board.isHidden(added.nextSetBit(0)), true);
+    t.checkExpect(touchesUncovered(board, added.nextSetBit(0)), false);
+    // the mine moves from where the solver got stuck to a cell that touches
+    // nothing uncovered
+  }
+
+  // is any neighbor of the given cell uncovered?
+  boolean touchesUncovered(PackedBoard board, int index) {
+    int[] neighbors = new int[8];
+    int numNeighbors = board.neighbors(index, neighbors);
+    for (int i = 0; i < numNeighbors; i++) {
+      if (!board.isHidden(neighbors[i])) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  // test that seeded generation gives the same boards on any pool
+  void testGenerate(Tester t) {
+    int[] seeds = new int[] { 4, 5, 6, 7 };
+    ForkJoinPool onePool = new ForkJoinPool(1);
+    ForkJoinPool twoPool = new ForkJoinPool(2);
+    BitSet[] oneThread = NoGuessGenerator.generate(onePool, 16, 16, 40, 8, 8, seeds);
+    BitSet[] twoThreads = NoGuessGenerator.generate(twoPool, 16, 16, 40, 8, 8, seeds);
+    onePool.shutdown();
+    twoPool.shutdown();
+    t.checkExpect(oneThread, twoThreads);
+    t.checkExpect(oneThread[0], new NoGuessGenerator(16, 16, 40, 4, 8, 8).makeMineLayout());
+  }
+
+  // test that a pool fills up in the background and refills as it is taken
+  void testPool(Tester t) {
+    ForkJoinPool threads = new ForkJoinPool(2);
+    NoGuessPool pool = new NoGuessPool(9, 9, 10, 4, 4, 3, 0, threads);
+    threads.awaitQuiescence(10, TimeUnit.SECONDS);
+    t.checkExpect(pool.available(), 3);
+    PooledLayout layout = pool.take();
+    t.checkExpect(layout.mines,
+        new NoGuessGenerator(9, 9, 10, layout.seed, 4, 4).makeMineLayout());
+    threads.awaitQuiescence(10, TimeUnit.SECONDS);
+    t.checkExpect(pool.available(), 3);
+    threads.shutdown();
+    // a layout is the one its seed gives, and taking it starts generating
+    // another one
+  }
+
+  // test that impossible requests are rejected
+  void testErrors(Tester t) {
+    t.checkConstructorException("a mine with nowhere to go",
+        new IllegalArgumentException("too many mines to leave the first click clear"),
+        "NoGuessGenerator", 3, 3, 1, 1, 1);
+    t.checkConstructorException("a first click off the board",
+        new IllegalArgumentException("first click is outside the grid"), "NoGuessGenerator", 3, 3,
+        1, 3, 0);
+  }
+
+  // test that a board with no layout that can be solved is given up on
+  void testUnsolvable(Tester t) {
+    NoGuessGenerator gen = new NoGuessGenerator(2, 4, 1, 0, 0, 0);
+    t.checkException("a board that always ends in a guess",
+        new IllegalStateException("no layout found that can be solved without guessing"), gen,
+        "makeMineLayout");
+    t.checkExpect(gen.candidates, 1000);
+    // wherever the mine goes, the last two cells are a coin flip, so the
+    // generator stops after 'maxCandidates' candidates
+
+    ForkJoinPool threads = new ForkJoinPool(1);
+    NoGuessPool pool = new NoGuessPool(2, 4, 1, 0, 0, 1, 0, threads);
+    threads.awaitQuiescence(10, TimeUnit.SECONDS);
+    t.checkExpect(pool.available(), 0);
+    t.checkException("take from a pool for a board that always ends in a guess",
+        new IllegalStateException("no layout found that can be solved without guessing"), pool,
+        "take");
+    threads.shutdown();
+    // a pool for such a board never fills, and taking from it fails instead
+    // of waiting
+  }
+}
@@ -0,0 +1,521 @@
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Random;
+import tester.*;
+
+// the openings of a board: the groups of connected safe cells with no
+// neighboring mines, which a single click uncovers together. they are found in
+// one pass over the rows, labeling each run of such cells in a row and joining
+// the runs that touch a run in the row above with union-find, so the index
+// costs a few ints per run rather than per cell.
+//
+// each opening keeps its runs, so uncovering it clears whole runs of the
+// hidden plane at once, and the windows around them that hold its numbered
+// border. the border is what a player sees uncovered around an opening in
+// other versions of the game; this one only uncovers the opening itself, but
+// the border is what the board's 3BV is counted from
+class OpeningIndex {
+  PackedBoard board;
+  // the runs of cells in the openings, in the order of their cells, as
+  // indices from 'runFrom' (inclusive) to 'runTo' (exclusive)
+  int[] runFrom;
+  int[] runTo;
+  int[] runRegion;
+  int numRuns;
+  int numRegions;
+  // regionRuns[regionRunStart[k]] to regionRuns[regionRunStart[k + 1] - 1]
+  // are the runs of opening k
+  int[] regionRunStart;
+  int[] regionRuns;
+  int[] regionSize;
+  // the openings whose cells are all still hidden. the hidden plane only
+  // changes through PackedBoard's reveals and redone moves, which clear this
+  // as they uncover an opening's cells, undone moves, which only hide cells,
+  // and a restore, which drops the index
+  boolean[] intact;
+  // the windows of cells around each opening, stored the same way. the
+  // numbered cells in them are its border
+  int[] borderStart;
+  int[] borderFrom;
+  int[] borderTo;
+  int[] borderSize;
+  // the numbered safe cells that don't border any opening
+  int isolatedNumbers;
+  // the run regionOf last found, which the next cell looked up is usually in
+  int lastRun;
+
+  // index the openings of the given board, whose mines have been laid out
+  OpeningIndex(PackedBoard board) {
+    this.board = board;
+    findRuns();
+    groupRuns();
+    findBorders();
+    countIsolatedNumbers();
+    findIntact();
+  }
+
+  // is the given cell safe with no neighboring mines?
+  boolean isOpen(int index) {
+    return this.board.adjacent[index] == 0 && !this.board.mines.get(index);
+  }
+
+  // find the runs of cells with no neighboring mines in each row and join
+  // each run with the runs it touches, diagonals included, in the row above
+  void findRuns() {
+    int width = this.board.gridWidth;
+    this.runFrom = new int[16];
+    this.runTo = new int[16];
+    this.runRegion = new int[16];
+    this.numRuns = 0;
+    int aboveStart = 0;
+    int aboveEnd = 0;
+    for (int row = 0; row < this.board.gridHeight; row++) {
+      int rowStart = row * width;
+      int rowEnd = rowStart + width;
+      int thisStart = this.numRuns;
+      int index = rowStart;
+      while (index < rowEnd) {
+        if (!isOpen(index)) {
+          index += 1;
+          continue;
+        }
+        int from = index;
+        while (index < rowEnd && isOpen(index)) {
+          index += 1;
+        }
+        int run = addRun(from, index);
+        // the runs above are in order, so skip the ones that end too far
+        // left and stop at the first that starts too far right. a run above
+        // that touches this run may touch the next one too, so it isn't
+        // skipped until a run starts past it
+        while (aboveStart < aboveEnd && this.runTo[aboveStart] + width < from) {
+          aboveStart += 1;
+        }
+        for (int above = aboveStart; above < aboveEnd
+            && this.runFrom[above] + width <= index; above++) {
+          union(run, above);
+        }
+      }
+      aboveStart = thisStart;
+      aboveEnd = this.numRuns;
+    }
+  }
+
+  // add a run of cells, as its own opening for now, and return its number
+  int addRun(int from, int to) {
+    if (this.numRuns == this.runFrom.length) {
+      this.runFrom = Arrays.copyOf(this.runFrom, 2 * this.numRuns);
+      this.runTo = Arrays.copyOf(this.runTo, 2 * this.numRuns);
+      this.runRegion = Arrays.copyOf(this.runRegion, 2 * this.numRuns);
+    }
+    this.runFrom[this.numRuns] = from;
+    this.runTo[this.numRuns] = to;
+    this.runRegion[this.numRuns] = this.numRuns;
+    this.numRuns += 1;
+    return this.numRuns - 1;
+  }
+
+  // the run that stands for the opening of the given run, halving the path
+  // to it on the way
+  int find(int run) {
+    while (this.runRegion[run] != run) {
+      this.runRegion[run] = this.runRegion[this.runRegion[run]];
+      run = this.runRegion[run];
+    }
+    return run;
+  }
+
+  // join the openings of two runs, keeping the earlier run as the one that
+  // stands for them
+  void union(int run, int other) {
+    int root = find(run);
+    int otherRoot = find(other);
+    if (root < otherRoot) {
+      this.runRegion[otherRoot] = root;
+    }
+    else if (otherRoot < root) {
+      this.runRegion[root] = otherRoot;
+    }
+  }
+
+  // number the openings in the order of their first cells, and list the runs
+  // of each opening together
+  void groupRuns() {
+    // runs only ever point to earlier runs in the same opening, so by the
+    // time a run is reached the run it points to already holds the number
+    // of their opening
+    this.numRegions = 0;
+    for (int run = 0; run < this.numRuns; run++) {
+      int parent = this.runRegion[run];
+      if (parent == run) {
+        this.runRegion[run] = -(this.numRegions + 1);
+        this.numRegions += 1;
+      }
+      else {
+        this.runRegion[run] = this.runRegion[parent];
+      }
+    }
+    for (int run = 0; run < this.numRuns; run++) {
+      this.runRegion[run] = -this.runRegion[run] - 1;
+    }
+    this.regionRunStart = new int[this.numRegions + 1];
+    this.regionSize = new int[this.numRegions];
+    for (int run = 0; run < this.numRuns; run++) {
+      this.regionRunStart[this.runRegion[run] + 1] += 1;
+      this.regionSize[this.runRegion[run]] += this.runTo[run] - this.runFrom[run];
+    }
+    for (int region = 0; region < this.numRegions; region++) {
+      this.regionRunStart[region + 1] += this.regionRunStart[region];
+    }
+    this.regionRuns = new int[this.numRuns];
+    int[] next = Arrays.copyOf(this.regionRunStart, this.numRegions);
+    for (int run = 0; run < this.numRuns; run++) {
+      int region = this.runRegion[run];
+      this.regionRuns[next[region]] = run;
+      next[region] += 1;
+    }
+  }
+
+  // find the window of cells around each opening: the cells of its runs
+  // widened by one cell each way in the rows above, at and below them. the
+  // windows of one opening are merged where they overlap
+  void findBorders() {
+    this.borderStart = new int[this.numRegions + 1];
+    this.borderFrom = new int[3 * this.numRuns];
+    this.borderTo = new int[3 * this.numRuns];
+    this.borderSize = new int[this.numRegions];
+    long[] windows = new long[0];
+    int numWindows = 0;
+    for (int region = 0; region < this.numRegions; region++) {
+      int numRegionRuns = this.regionRunStart[region + 1] - this.regionRunStart[region];
+      if (windows.length < 3 * numRegionRuns) {
+        windows = new long[Math.max(3 * numRegionRuns, 2 * windows.length)];
+      }
+      // the windows in the rows above the runs, at them and below them are
+      // each in order already, so the three lists only need merging
+      int aboveEnd = addWindows(region, -1, windows, 0);
+      int atEnd = addWindows(region, 0, windows, aboveEnd);
+      int count = addWindows(region, 1, windows, atEnd);
+      int above = 0;
+      int at = aboveEnd;
+      int below = atEnd;
+      this.borderStart[region] = numWindows;
+      int from = -1;
+      int to = -1;
+      while (above < aboveEnd || at < atEnd || below < count) {
+        long next = Long.MAX_VALUE;
+        if (above < aboveEnd) {
+          next = windows[above];
+        }
+        if (at < atEnd && windows[at] < next) {
+          next = windows[at];
+        }
+        if (below < count && windows[below] < next) {
+          next = windows[below];
+        }
+        if (above < aboveEnd && windows[above] == next) {
+          above += 1;
+        }
+        else if (at < atEnd && windows[at] == next) {
+          at += 1;
+        }
+        else {
+          below += 1;
+        }
+        int nextFrom = (int) (next >>> 32);
+        int nextTo = (int) next;
+        if (from >= 0 && nextFrom <= to) {
+          to = Math.max(to, nextTo);
+        }
+        else {
+          if (from >= 0) {
+            numWindows = addBorder(region, numWindows, from, to);
+          }
+          from = nextFrom;
+          to = nextTo;
+        }
+      }
+      numWindows = addBorder(region, numWindows, from, to);
+      // every cell of a window touches the opening, so it is either in the
+      // opening or a number on its border
+      this.borderSize[region] -= this.regionSize[region];
+    }
+    this.borderStart[this.numRegions] = numWindows;
+  }
+
+  // write the windows of the given opening's runs in the rows 'rowOffset'
+  // away from them into 'windows' from 'start', each as its first index in
+  // the high half and the index past its end in the low half. return where
+  // the windows written end
+  int addWindows(int region, int rowOffset, long[] windows, int start) {
+    int width = this.board.gridWidth;
+    int count = start;
+    for (int i = this.regionRunStart[region]; i < this.regionRunStart[region + 1]; i++) {
+      int run = this.regionRuns[i];
+      int row = this.runFrom[run] / width;
+      int r = row + rowOffset;
+      if (0 <= r && r < this.board.gridHeight) {
+        int fromCol = Math.max(0, this.runFrom[run] - row * width - 1);
+        int toCol = Math.min(width, this.runTo[run] - row * width + 1);
+        windows[count] = (long) (r * width + fromCol) << 32 | (r * width + toCol);
+        count += 1;
+      }
+    }
+    return count;
+  }
+
+  // add a merged window to the border of the given opening and return the
+  // number of windows
+  int addBorder(int region, int numWindows, int from, int to) {
+    this.borderFrom[numWindows] = from;
+    this.borderTo[numWindows] = to;
+    this.borderSize[region] += to - from;
+    return numWindows + 1;
+  }
+
+  // count the numbered safe cells that don't touch any opening; each takes a
+  // click of its own to uncover. the windows around the openings hold every
+  // cell that is in an opening or touches one, and no mines, so the rest of
+  // the safe cells are the isolated numbers
+  void countIsolatedNumbers() {
+    BitSet windows = new BitSet(this.board.size());
+    for (int i = 0; i < this.borderStart[this.numRegions]; i++) {
+      windows.set(this.borderFrom[i], this.borderTo[i]);
+    }
+    this.isolatedNumbers = this.board.size() - this.board.numMines - windows.cardinality();
+  }
+
+  // find the openings whose cells are all hidden
+  void findIntact() {
+    this.intact = new boolean[this.numRegions];
+    Arrays.fill(this.intact, true);
+    if (this.board.numHidden == this.board.size()) {
+      return;
+    }
+    for (int run = 0; run < this.numRuns; run++) {
+      for (int index = this.runFrom[run]; index < this.runTo[run]; index++) {
+        if (!this.board.hidden.get(index)) {
+          this.intact[this.runRegion[run]] = false;
+        }
+      }
+    }
+  }
+
+  // the number of openings on the board
+  int openings() {
+    return this.numRegions;
+  }
+
+  // the board's 3BV: the fewest clicks that uncover every safe cell without
+  // flags or chords, one for each opening and one for each numbered cell
+  // that no opening borders
+  int threeBV() {
+    return this.numRegions + this.isolatedNumbers;
+  }
+
+  // the opening the given cell belongs to, or -1 if it isn't in one
+  int regionOf(int index) {
+    if (this.lastRun < this.numRuns && this.runFrom[this.lastRun] <= index
+        && index < this.runTo[this.lastRun]) {
+      return this.runRegion[this.lastRun];
+    }
+    int lo = 0;
+    int hi = this.numRuns - 1;
+    while (lo <= hi) {
+      int mid = (lo + hi) >>> 1;
+      if (this.runTo[mid] <= index) {
+        lo = mid + 1;
+      }
+      else if (this.runFrom[mid] > index) {
+        hi = mid - 1;
+      }
+      else {
+        this.lastRun = mid;
+        return this.runRegion[mid];
+      }
+    }
+    return -1;
+  }
+
+  // the number of cells in the given opening
+  int size(int region) {
+    return this.regionSize[region];
+  }
+
+  // is every cell of the given opening still hidden?
+  boolean isIntact(int region) {
+    return this.intact[region];
+  }
+
+  // clear the cells of the given opening from the hidden plane a run at a
+  // time, and write their indices into 'out' starting at 'start'
+  void uncover(int region, BitSet hidden, int[] out, int start) {
+    this.intact[region] = false;
+    int at = start;
+    for (int i = this.regionRunStart[region]; i < this.regionRunStart[region + 1]; i++) {
+      int run = this.regionRuns[i];
+      hidden.clear(this.runFrom[run], this.runTo[run]);
+      for (int index = this.runFrom[run]; index < this.runTo[run]; index++) {
+        out[at] = index;
+        at += 1;
+      }
+    }
+  }
+
+  // the cells of the given opening
+  BitSet members(int region) {
+    BitSet members = new BitSet(this.board.size());
+    for (int i = this.regionRunStart[region]; i < this.regionRunStart[region + 1]; i++) {
+      int run = this.regionRuns[i];
+      members.set(this.runFrom[run], this.runTo[run]);
+    }
+    return members;
+  }
+
+  // the numbered cells that border the given opening
+  BitSet border(int region) {
+    BitSet border = new BitSet(this.board.size());
+    for (int i = this.borderStart[region]; i < this.borderStart[region + 1]; i++) {
+      for (int index = this.borderFrom[i]; index < this.borderTo[i]; index++) {
+        if (this.board.adjacent[index] != 0) {
+          border.set(index);
+        }
+      }
+    }
+    return border;
+  }
+}
+
+// examples for opening indexes
+class ExamplesOpeningIndex {
+  PackedBoard board;
+  OpeningIndex index;
+
+  // initialize variables
+  void init() {
+    board = new PackedBoard(5, 4);
+    BitSet layout = new BitSet();
+    layout.set(board.index(2, 0));
+    layout.set(board.index(2, 1));
+    layout.set(board.index(2, 3));
+    board.setMines(layout);
+    index = new OpeningIndex(board);
+    /*
+     * 0 2 X 2 0
+     * 0 3 X 3 0
+     * 0 3 2 3 0
+     * 0 1 X 1 0
+     */
+  }
+
+  // test finding the openings
+  void testOpenings(Tester t) {
+    init();
+
+    t.checkExpect(index.openings(), 2);
+    t.checkExpect(index.regionOf(board.index(0, 2)), 0);
+    t.checkExpect(index.regionOf(board.index(4, 3)), 1);
+    t.checkExpect(index.regionOf(board.index(1, 1)), -1);
+    t.checkExpect(index.size(0), 4);
+    // the two columns of zeros are separate openings
+
+    t.checkExpect(index.border(0).cardinality(), 4);
+    t.checkExpect(index.border(0).get(board.index(1, 3)), true);
+    t.checkExpect(index.borderSize[1], 4);
+    t.checkExpect(index.threeBV(), 3);
+    // each opening is bordered by its column of numbers, and the 2 in the
+    // middle takes a click of its own
+
+    PackedBoard diagonal = new PackedBoard(6, 6);
+    BitSet layout = new BitSet();
+    layout.set(diagonal.index(0, 2));
+    layout.set(diagonal.index(1, 2));
+    layout.set(diagonal.index(2, 2));
+    layout.set(diagonal.index(3, 1));
+    layout.set(diagonal.index(3, 0));
+    diagonal.setMines(layout);
+    OpeningIndex diagonalIndex = new OpeningIndex(diagonal);
+    t.checkExpect(diagonalIndex.openings(), 2);
+    // zeros that only touch at a corner are still one opening
+  }
+
+  // test that the index agrees with a cell-by-cell search on random boards
+  void testMatchesSearch(Tester t) {
+    boolean same = true;
+    Random rand = new Random(2);
+    for (int trial = 0; trial < 30; trial++) {
+      int width = 1 + rand.nextInt(40);
+      int height = 1 + rand.nextInt(40);
+      int numMines = rand.nextInt(width * height / 5 + 1);
+      PackedBoard packed = new PackedBoard(width, height);
+      packed.setMines(new MineGenerator(width, height, numMines, trial).makeMineLayout());
+      OpeningIndex openings = new OpeningIndex(packed);
+      // count the openings and 3BV by revealing cells on a copy of the board
+      PackedBoard search = new PackedBoard(width, height);
+      search.setMines(packed.mines);
+      int numOpenings = 0;
+      for (int cell = 0; cell < search.size(); cell++) {
+        if (search.isHidden(cell) && openings.isOpen(cell)) {
+          int region = openings.regionOf(cell);
+          same = same && slowReveal(search, cell) == openings.size(region)
+              && openings.members(region).equals(slowMembers(search, openings, region));
+          numOpenings += 1;
+        }
+      }
+      int isolated = 0;
+      int[] neighbors = new int[8];
+      for (int cell = 0; cell < search.size(); cell++) {
+        if (search.isHidden(cell) && !search.isMine(cell)) {
+          boolean touchesOpening = false;
+          int numNeighbors = search.neighbors(cell, neighbors);
+          for (int i = 0; i < numNeighbors; i++) {
+            touchesOpening = touchesOpening || openings.isOpen(neighbors[i]);
+          }
+          if (!touchesOpening) {
+            isolated += 1;
+          }
+        }
+      }
+      same = same && numOpenings == openings.openings()
+          && numOpenings + isolated == openings.threeBV();
+    }
+    t.checkExpect(same, true);
+  }
+
+  // uncover a cell's opening cell by cell, without the index
+  int slowReveal(PackedBoard search, int cell) {
+    search.openings = null;
+    search.useOpenings = false;
+    return search.reveal(cell);
+  }
+
+  // the cells the last slowReveal uncovered
+  BitSet slowMembers(PackedBoard search, OpeningIndex openings, int region) {
+    BitSet members = new BitSet();
+    for (int i = 0; i < openings.size(region); i++) {
+      members.set(search.revealed[i]);
+    }
+    return members;
+  }
+
+  // test uncovering openings through the index
+  void testReveal(Tester t) {
+    PackedBoard packed = new PackedBoard(200, 200);
+    packed.setMines(new MineGenerator(200, 200, 2000, 5).makeMineLayout());
+    BitBoard bits = new BitBoard(200, 200);
+    bits.setMines(packed.mines);
+    Random rand = new Random(4);
+    boolean same = true;
+    for (int i = 0; i < 300; i++) {
+      int col = rand.nextInt(200);
+      int row = rand.nextInt(200);
+      same = same && packed.reveal(packed.index(col, row)) == bits.reveal(col, row);
+    }
+    same = same && packed.hidden.cardinality() == bits.countHidden()
+        && packed.countHidden() == bits.countHidden()
+        && packed.allSafeRevealed() == bits.allSafeRevealed();
+    t.checkExpect(same, true);
+    t.checkExpect(packed.openings == null, false);
+    // reveals through the index uncover what the bit board's cascades do
+  }
+}
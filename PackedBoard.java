@@ -0,0 +1,653 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import tester.*;
+
+// represent a minesweeper board as packed primitive planes instead of a graph
+// of Cell objects. the hidden, mine and flag state take one bit per cell and
+// the number of neighboring mines takes one byte per cell. cells are addressed
+// by index (row * gridWidth + col) and neighbors are computed from the index
+// rather than stored, so a board costs about 1.4 bytes per cell.
+class PackedBoard {
+  int gridWidth;
+  int gridHeight;
+  BitSet hidden;
+  BitSet mines;
+  BitSet flags;
+  byte[] adjacent;
+  // live counts kept up to date by placeMine, reveal and toggleFlag so that
+  // the game never has to scan the board to answer them
+  int numMines;
+  int numHidden;
+  int numFlags;
+  int numSafeRevealed;
+  // scratch buffers reused by every reveal. 'revealed' is the work queue of
+  // the cascade, and afterwards holds the cells uncovered by the last reveal
+  // in the order they were uncovered.
+  int[] revealed;
+  int[] neighborScratch;
+  // the openings of the board, indexed the first time a cell with no
+  // neighboring mines is revealed and dropped whenever the mines change.
+  // 'useOpenings' can be turned off to reveal every opening cell by cell
+  OpeningIndex openings;
+  boolean useOpenings;
+  // the planes, in the order a save keeps them, and the cells on one page of
+  // a saved plane
+  static final int MINES = 0;
+  static final int HIDDEN = 1;
+  static final int FLAGS = 2;
+  static final int PAGE_CELLS = BoardSnapshot.PAGE_BYTES * 8;
+  // the pages of each plane that changed since the board was last saved to
+  // 'savedTo', which the next save to that file rewrites. every method that
+  // changes a plane marks the pages it changed
+  BitSet[] dirtyPages;
+  SnapshotFile savedTo;
+
+  // construct a packed board where every cell is hidden and there are no mines
+  PackedBoard(int gridWidth, int gridHeight) {
+    this.gridWidth = gridWidth;
+    this.gridHeight = gridHeight;
+    this.hidden = new BitSet(gridWidth * gridHeight);
+    this.hidden.set(0, gridWidth * gridHeight);
+    this.mines = new BitSet(gridWidth * gridHeight);
+    this.flags = new BitSet(gridWidth * gridHeight);
+    this.adjacent = new byte[gridWidth * gridHeight];
+    this.numMines = 0;
+    this.numHidden = gridWidth * gridHeight;
+    this.numFlags = 0;
+    this.numSafeRevealed = 0;
+    this.revealed = new int[Math.min(64, gridWidth * gridHeight)];
+    this.neighborScratch = new int[8];
+    this.openings = null;
+    this.useOpenings = true;
+    this.dirtyPages = new BitSet[] { new BitSet(), new BitSet(), new BitSet() };
+    this.savedTo = null;
+  }
+
+  // hide every cell and take away every mine and flag, keeping the arrays so
+  // the board can be reused for another game of the same size
+  void clear() {
+    this.hidden.set(0, size());
+    this.mines.clear();
+    this.flags.clear();
+    Arrays.fill(this.adjacent, (byte) 0);
+    this.numMines = 0;
+    this.numHidden = size();
+    this.numFlags = 0;
+    this.numSafeRevealed = 0;
+    this.openings = null;
+    touchAll(MINES);
+    touchAll(HIDDEN);
+    touchAll(FLAGS);
+  }
+
+  // mark the page of the given plane that holds the given cell as changed
+  void touch(int plane, int index) {
+    this.dirtyPages[plane].set(index / PAGE_CELLS);
+  }
+
+  // mark the pages of the given plane that hold cells[from] to cells[to - 1]
+  // as changed. the cells of a reveal come in runs on the same page, so each
+  // run marks its page once
+  void touchCells(int plane, int[] cells, int from, int to) {
+    int lastPage = -1;
+    for (int i = from; i < to; i++) {
+      int page = cells[i] / PAGE_CELLS;
+      if (page != lastPage) {
+        this.dirtyPages[plane].set(page);
+        lastPage = page;
+      }
+    }
+  }
+
+  // mark every page of the given plane as changed
+  void touchAll(int plane) {
+    this.dirtyPages[plane].set(0, (size() + PAGE_CELLS - 1) / PAGE_CELLS);
+  }
+
+  // forget the changed pages, once they are saved to the given file
+  void markSaved(SnapshotFile file) {
+    for (BitSet pages : this.dirtyPages) {
+      pages.clear();
+    }
+    this.savedTo = file;
+  }
+
+  // the number of cells on this board
+  int size() {
+    return this.gridWidth * this.gridHeight;
+  }
+
+  // the index of the cell at the given column and row
+  int index(int col, int row) {
+    return row * this.gridWidth + col;
+  }
+
+  // the column of the cell at the given index
+  int colOf(int index) {
+    return index % this.gridWidth;
+  }
+
+  // the row of the cell at the given index
+  int rowOf(int index) {
+    return index / this.gridWidth;
+  }
+
+  // write the indices of the cells that border the given cell into 'out' and
+  // return how many there are. 'out' must have room for 8 indices.
+  int neighbors(int index, int[] out) {
+    int col = colOf(index);
+    int row = rowOf(index);
+    int count = 0;
+    for (int r = Math.max(0, row - 1); r <= Math.min(this.gridHeight - 1, row + 1); r++) {
+      for (int c = Math.max(0, col - 1); c <= Math.min(this.gridWidth - 1, col + 1); c++) {
+        if (r != row || c != col) {
+          out[count] = index(c, r);
+          count += 1;
+        }
+      }
+    }
+    return count;
+  }
+
+  // place the mines of the given layout on this empty board and count every
+  // cell's neighboring mines in a single pass over the rows. for each row the
+  // mines in the row above, the row itself and the row below are added up
+  // column by column, and then a window three columns wide slides over those
+  // sums. both steps are plain loops over arrays that the JIT can vectorize.
+  void setMines(BitSet layout) {
+    this.mines.or(layout);
+    this.numMines = this.mines.cardinality();
+    this.openings = null;
+    for (int index = layout.nextSetBit(0); index >= 0; index = layout
+        .nextSetBit((index / PAGE_CELLS + 1) * PAGE_CELLS)) {
+      touch(MINES, index);
+    }
+
+    byte[] above = new byte[this.gridWidth];
+    byte[] current = new byte[this.gridWidth];
+    byte[] below = new byte[this.gridWidth];
+    // column sums padded with a zero on each side
+    int[] columnSums = new int[this.gridWidth + 2];
+    mineRow(0, current);
+    for (int row = 0; row < this.gridHeight; row++) {
+      mineRow(row + 1, below);
+      for (int col = 0; col < this.gridWidth; col++) {
+        columnSums[col + 1] = above[col] + current[col] + below[col];
+      }
+      int rowStart = row * this.gridWidth;
+      for (int col = 0; col < this.gridWidth; col++) {
+        this.adjacent[rowStart + col] = (byte) (columnSums[col] + columnSums[col + 1]
+            + columnSums[col + 2] - current[col]);
+      }
+      byte[] recycled = above;
+      above = current;
+      current = below;
+      below = recycled;
+    }
+  }
+
+  // write 1 for every mine and 0 for every safe cell of the given row into
+  // 'out'. rows outside the board have no mines
+  void mineRow(int row, byte[] out) {
+    Arrays.fill(out, (byte) 0);
+    if (0 <= row && row < this.gridHeight) {
+      int rowStart = row * this.gridWidth;
+      int rowEnd = rowStart + this.gridWidth;
+      for (int index = this.mines.nextSetBit(rowStart); 0 <= index
+          && index < rowEnd; index = this.mines.nextSetBit(index + 1)) {
+        out[index - rowStart] = 1;
+      }
+    }
+  }
+
+  // place a mine on the given cell and update its neighbors' mine counts
+  void placeMine(int index) {
+    if (!this.mines.get(index)) {
+      this.mines.set(index);
+      touch(MINES, index);
+      this.numMines += 1;
+      this.openings = null;
+      int numNeighbors = neighbors(index, this.neighborScratch);
+      for (int i = 0; i < numNeighbors; i++) {
+        this.adjacent[this.neighborScratch[i]] += 1;
+      }
+    }
+  }
+
+  // is the given cell hidden?
+  boolean isHidden(int index) {
+    return this.hidden.get(index);
+  }
+
+  // is the given cell a mine?
+  boolean isMine(int index) {
+    return this.mines.get(index);
+  }
+
+  // is the given cell flagged?
+  boolean isFlagged(int index) {
+    return this.flags.get(index);
+  }
+
+  // the number of mines that neighbor the given cell
+  int adjacentMines(int index) {
+    return this.adjacent[index];
+  }
+
+  // flip the flag on the given cell
+  void toggleFlag(int index) {
+    this.flags.flip(index);
+    touch(FLAGS, index);
+    if (this.flags.get(index)) {
+      this.numFlags += 1;
+    }
+    else {
+      this.numFlags -= 1;
+    }
+    debugCheck();
+  }
+
+  // make the given cell visible if it is hidden, following the same rules as
+  // Cell.makeVisible: a cell with no neighboring mines also uncovers every
+  // neighbor that has no neighboring mines. return the number of cells that
+  // were uncovered; their indices are the first entries of 'revealed'
+  int reveal(int index) {
+    return reveal(index, 0);
+  }
+
+  // reveal the given cell like reveal(int), but write the uncovered cells into
+  // 'revealed' starting at 'start', after the cells of earlier reveals that
+  // are still wanted. return the number of cells uncovered by this reveal
+  int reveal(int index, int start) {
+    if (!this.hidden.get(index)) {
+      return 0;
+    }
+    // an opening that is still hidden is uncovered whole from the index
+    if (this.useOpenings && this.adjacent[index] == 0 && !this.mines.get(index)) {
+      OpeningIndex openings = openingIndex();
+      int region = openings.regionOf(index);
+      if (openings.isIntact(region)) {
+        return revealOpening(openings, region, start);
+      }
+    }
+    this.hidden.clear(index);
+    if (!this.mines.get(index)) {
+      this.numSafeRevealed += 1;
+    }
+    if (start == this.revealed.length) {
+      this.revealed = Arrays.copyOf(this.revealed, Math.min(2 * start, size()));
+    }
+    this.revealed[start] = index;
+    int head = start;
+    int tail = start + 1;
+    while (head < tail) {
+      int cell = this.revealed[head];
+      head += 1;
+      if (this.adjacent[cell] == 0) {
+        int numNeighbors = neighbors(cell, this.neighborScratch);
+        for (int i = 0; i < numNeighbors; i++) {
+          int neighbor = this.neighborScratch[i];
+          if (this.adjacent[neighbor] == 0 && this.hidden.get(neighbor)) {
+            this.hidden.clear(neighbor);
+            if (tail == this.revealed.length) {
+              this.revealed = Arrays.copyOf(this.revealed, Math.min(2 * tail, size()));
+            }
+            this.revealed[tail] = neighbor;
+            tail += 1;
+          }
+        }
+      }
+    }
+    touchCells(HIDDEN, this.revealed, start, tail);
+    // cascades only ever pass through cells without neighboring mines, which
+    // can't be mines themselves
+    this.numSafeRevealed += tail - start - 1;
+    this.numHidden -= tail - start;
+    debugCheck();
+    return tail - start;
+  }
+
+  // uncover the given opening, writing its cells into 'revealed' starting
+  // at 'start'. return the number of cells uncovered
+  int revealOpening(OpeningIndex openings, int region, int start) {
+    int size = openings.size(region);
+    if (start + size > this.revealed.length) {
+      this.revealed = Arrays.copyOf(this.revealed,
+          Math.min(Math.max(2 * this.revealed.length, start + size), size()));
+    }
+    openings.uncover(region, this.hidden, this.revealed, start);
+    touchCells(HIDDEN, this.revealed, start, start + size);
+    this.numSafeRevealed += size;
+    this.numHidden -= size;
+    debugCheck();
+    return size;
+  }
+
+  // hide the given uncovered cell again, as when a move is undone
+  void cover(int index) {
+    this.hidden.set(index);
+    touch(HIDDEN, index);
+    this.numHidden += 1;
+    if (!this.mines.get(index)) {
+      this.numSafeRevealed -= 1;
+    }
+    debugCheck();
+  }
+
+  // uncover the given hidden cell on its own, without a cascade, as when a
+  // move is redone. its opening is no longer whole
+  void uncover(int index) {
+    this.hidden.clear(index);
+    touch(HIDDEN, index);
+    this.numHidden -= 1;
+    if (!this.mines.get(index)) {
+      this.numSafeRevealed += 1;
+      if (this.openings != null && this.adjacent[index] == 0) {
+        this.openings.intact[this.openings.regionOf(index)] = false;
+      }
+    }
+    debugCheck();
+  }
+
+  // hide every cell again, keeping the mines, flags and opening index
+  void hideAll() {
+    this.hidden.set(0, size());
+    touchAll(HIDDEN);
+    this.numHidden = size();
+    this.numSafeRevealed = 0;
+    if (this.openings != null) {
+      Arrays.fill(this.openings.intact, true);
+    }
+  }
+
+  // the index of this board's openings, made the first time it is needed
+  // after the mines are laid out
+  OpeningIndex openingIndex() {
+    if (this.openings == null) {
+      this.openings = new OpeningIndex(this);
+    }
+    return this.openings;
+  }
+
+  // count the number of hidden cells remaining on the board
+  int countHidden() {
+    return this.numHidden;
+  }
+
+  // count the number of flags placed on the board
+  int countFlags() {
+    return this.numFlags;
+  }
+
+  // have all the cells that aren't mines been uncovered?
+  boolean allSafeRevealed() {
+    return this.numSafeRevealed == size() - this.numMines;
+  }
+
+  // when the game runs with -Dminesweeper.debug=true, check the live counts
+  // against a full scan of the board after every move
+  static boolean debugChecks = Boolean.getBoolean("minesweeper.debug");
+
+  // run checkCounts if debug checks are turned on
+  void debugCheck() {
+    if (debugChecks) {
+      checkCounts();
+    }
+  }
+
+  // replace the state of the board with the given planes, as read back from
+  // a save, and recount the live counts
+  void restore(BitSet mines, BitSet hidden, BitSet flags) {
+    clear();
+    setMines(mines);
+    this.hidden.clear();
+    this.hidden.or(hidden);
+    this.flags.or(flags);
+    this.numHidden = this.hidden.cardinality();
+    this.numFlags = this.flags.cardinality();
+    BitSet hiddenMines = (BitSet) this.mines.clone();
+    hiddenMines.and(this.hidden);
+    this.numSafeRevealed = size() - this.numHidden - (this.numMines - hiddenMines.cardinality());
+    debugCheck();
+  }
+
+  // scan the whole board and throw if a live count disagrees with it
+  void checkCounts() {
+    BitSet safeRevealed = new BitSet(size());
+    safeRevealed.set(0, size());
+    safeRevealed.andNot(this.hidden);
+    safeRevealed.andNot(this.mines);
+    if (this.numMines != this.mines.cardinality()
+        || this.numHidden != this.hidden.cardinality()
+        || this.numFlags != this.flags.cardinality()
+        || this.numSafeRevealed != safeRevealed.cardinality()) {
+      throw new IllegalStateException("board counts are out of sync");
+    }
+  }
+
+  // estimate the heap bytes used by a packed board of the given size:
+  // three bit planes plus one byte per cell, ignoring the fixed object headers
+  static long estimateBytes(int gridWidth, int gridHeight) {
+    long cells = (long) gridWidth * gridHeight;
+    long wordsPerPlane = (cells + 63) / 64;
+    return 3 * wordsPerPlane * 8 + cells;
+  }
+
+  // estimate the heap bytes used by the ArrayList<ArrayList<Cell>> representation
+  // of a board of the given size on a 64-bit JVM with compressed references.
+  // every cell costs a 24 byte Cell, a 24 byte ArrayList of neighbors and that
+  // list's backing array (16 byte header plus 10 slots once it has grown), and
+  // every row costs an ArrayList with a backing array of at least gridWidth slots
+  static long estimateCellGraphBytes(int gridWidth, int gridHeight) {
+    long cells = (long) gridWidth * gridHeight;
+    long perCell = 24 + 24 + (16 + 10 * 4);
+    long perRow = 24 + 16 + 4L * gridWidth;
+    return cells * perCell + gridHeight * perRow;
+  }
+}
+
+// examples for packed boards
+class ExamplesPackedBoard {
+  PackedBoard board;
+
+  // initialize variables
+  void init() {
+    board = new PackedBoard(3, 3);
+    board.placeMine(board.index(0, 0));
+    board.placeMine(board.index(2, 2));
+    /*
+     * the above board looks like the following:
+     * 
+     * X O O O O O O O X
+     * 
+     * (X = mine, O = safe cell)
+     */
+  }
+
+  // test the neighbors method
+  void testNeighbors(Tester t) {
+    init();
+    int[] out = new int[8];
+
+    t.checkExpect(board.neighbors(board.index(0, 0), out), 3);
+    // a corner cell has 3 neighbors
+
+    t.checkExpect(board.neighbors(board.index(1, 0), out), 5);
+    // an edge cell has 5 neighbors
+
+    t.checkExpect(board.neighbors(board.index(1, 1), out), 8);
+    t.checkExpect(out, new int[] { 0, 1, 2, 3, 5, 6, 7, 8 });
+    // an interior cell has 8 neighbors, listed in index order
+
+    t.checkExpect(new PackedBoard(1, 1).neighbors(0, out), 0);
+    // a single cell board has no neighbors
+  }
+
+  // test the placeMine method
+  void testPlaceMine(Tester t) {
+    init();
+
+    t.checkExpect(board.isMine(0), true);
+    t.checkExpect(board.isMine(1), false);
+    t.checkExpect(board.adjacentMines(0), 0);
+    t.checkExpect(board.adjacentMines(1), 1);
+    t.checkExpect(board.adjacentMines(2), 0);
+    t.checkExpect(board.adjacentMines(4), 2);
+    // the counts match the ones Board.numNeighboringMines gives for seed 9
+
+    board.placeMine(0);
+    t.checkExpect(board.adjacentMines(4), 2);
+    // placing a mine twice does not count it twice
+  }
+
+  // test the setMines method
+  void testSetMines(Tester t) {
+    init();
+    PackedBoard bulk = new PackedBoard(3, 3);
+    BitSet layout = new BitSet(9);
+    layout.set(0);
+    layout.set(8);
+    bulk.setMines(layout);
+    t.checkExpect(bulk.adjacent, board.adjacent);
+    t.checkExpect(bulk.numMines, 2);
+    // counting in bulk gives the same table as placing mines one by one
+
+    MineGenerator mg = new MineGenerator(37, 23, 200, 5);
+    BitSet randomLayout = mg.makeMineLayout();
+    PackedBoard oneByOne = new PackedBoard(37, 23);
+    for (int index = randomLayout.nextSetBit(0); index >= 0; index = randomLayout
+        .nextSetBit(index + 1)) {
+      oneByOne.placeMine(index);
+    }
+    bulk = new PackedBoard(37, 23);
+    bulk.setMines(randomLayout);
+    t.checkExpect(bulk.adjacent, oneByOne.adjacent);
+    // the same holds on a larger board where rows and columns wrap
+
+    PackedBoard single = new PackedBoard(1, 1);
+    single.setMines(layout);
+    t.checkExpect(single.adjacentMines(0), 0);
+    t.checkExpect(single.isMine(0), true);
+    // a single cell board has no neighbors to count
+  }
+
+  // test the reveal method
+  void testReveal(Tester t) {
+    init();
+
+    t.checkExpect(board.reveal(board.index(2, 0)), 1);
+    t.checkExpect(board.revealed[0], 2);
+    t.checkExpect(board.countHidden(), 8);
+    // a zero cell only uncovers neighbors that are also zero cells,
+    // and all of (2, 0)'s neighbors border a mine
+
+    t.checkExpect(board.reveal(board.index(0, 0)), 1);
+    t.checkExpect(board.isHidden(0), false);
+    t.checkExpect(board.countHidden(), 7);
+    // revealing a mine uncovers only the mine
+
+    t.checkExpect(board.reveal(0), 0);
+    t.checkExpect(board.countHidden(), 7);
+    // revealing a visible cell does nothing
+
+    PackedBoard empty = new PackedBoard(4, 4);
+    t.checkExpect(empty.reveal(5), 16);
+    t.checkExpect(empty.countHidden(), 0);
+    // on a board with no mines a single reveal uncovers everything
+
+    init();
+    t.checkExpect(board.reveal(board.index(1, 0)), 1);
+    t.checkExpect(board.reveal(board.index(2, 0), 1), 1);
+    t.checkExpect(board.revealed[0], 1);
+    t.checkExpect(board.revealed[1], 2);
+    // a reveal can add its cells after the cells of an earlier reveal
+  }
+
+  // test that a reveal cascade matches Cell.makeVisible on the seeded test board
+  void testRevealMatchesCells(Tester t) {
+    for (int col = 0; col < 3; col++) {
+      for (int row = 0; row < 3; row++) {
+        ArrayList<ArrayList<Cell>> cells = new Board(3, 3, 2, 9, true).cellGrid();
+        PackedBoard packed = new Board(3, 3, 2, 9, true).game.board;
+        cells.get(row).get(col).makeVisible();
+        packed.reveal(packed.index(col, row));
+        for (int index = 0; index < 9; index++) {
+          t.checkExpect(packed.isHidden(index),
+              cells.get(packed.rowOf(index)).get(packed.colOf(index)).hidden);
+        }
+      }
+    }
+    // clicking any cell uncovers exactly the cells the Cell cascade uncovers
+  }
+
+  // test that a cascade over a very large empty board does not overflow the stack
+  void testRevealLargeBoard(Tester t) {
+    PackedBoard large = new PackedBoard(4096, 4096);
+    t.checkExpect(large.reveal(large.index(2048, 2048)), 4096 * 4096);
+    t.checkExpect(large.countHidden(), 0);
+    // every cell of a 4096 x 4096 board without mines is uncovered at once
+  }
+
+  // test the toggleFlag and countFlags methods
+  void testToggleFlag(Tester t) {
+    init();
+
+    t.checkExpect(board.countFlags(), 0);
+    board.toggleFlag(4);
+    t.checkExpect(board.isFlagged(4), true);
+    t.checkExpect(board.countFlags(), 1);
+    board.toggleFlag(4);
+    t.checkExpect(board.countFlags(), 0);
+    // flags can be placed and removed
+  }
+
+  // test the allSafeRevealed method
+  void testAllSafeRevealed(Tester t) {
+    init();
+
+    t.checkExpect(board.allSafeRevealed(), false);
+    for (int index = 1; index < 8; index++) {
+      board.reveal(index);
+    }
+    t.checkExpect(board.allSafeRevealed(), true);
+    // uncovering the 7 safe cells wins the game
+
+    init();
+    for (int index = 0; index < 7; index++) {
+      board.reveal(index);
+    }
+    t.checkExpect(board.countHidden(), 2);
+    t.checkExpect(board.allSafeRevealed(), false);
+    // uncovering a mine does not count toward winning, even when as many
+    // cells are left hidden as there are mines
+  }
+
+  // test that the live counts always agree with a full scan
+  void testCheckCounts(Tester t) {
+    init();
+    board.toggleFlag(8);
+    board.reveal(4);
+    board.reveal(0);
+    board.reveal(8);
+    board.checkCounts();
+    t.checkExpect(board.numSafeRevealed, 1);
+    t.checkExpect(board.numHidden, 6);
+    // a flagged mine uncovered by a reveal still counts as a mine
+
+    board.numFlags = 0;
+    t.checkException("counts that disagree with the board",
+        new IllegalStateException("board counts are out of sync"), board, "checkCounts");
+  }
+
+  // test the memory estimates against the Cell graph representation
+  void testEstimateBytes(Tester t) {
+    t.checkExpect(PackedBoard.estimateBytes(1000, 1000), 1375000L);
+    t.checkExpect(PackedBoard.estimateCellGraphBytes(1000, 1000), 108040000L);
+    // 1k x 1k: about 1.4 MB packed against about 108 MB of Cells
+
+    t.checkExpect(PackedBoard.estimateBytes(10000, 10000), 137500000L);
+    t.checkExpect(PackedBoard.estimateCellGraphBytes(10000, 10000), 10800400000L);
+    // 10k x 10k: about 138 MB packed against about 10.8 GB of Cells
+  }
+}
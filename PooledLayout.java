@@ -0,0 +1,14 @@
+import java.util.BitSet;
+
+// a mine layout generated ahead of time, with the seed it was generated from
+// so that the game can still be recorded and replayed
+class PooledLayout {
+  int seed;
+  BitSet mines;
+
+  // construct a layout generated from the given seed
+  PooledLayout(int seed, BitSet mines) {
+    this.seed = seed;
+    this.mines = mines;
+  }
+}
@@ -0,0 +1,29 @@
+import java.util.Random;
+
+// a strategy that uncovers a random hidden cell that isn't flagged
+class RandomClickStrategy implements GameStrategy {
+
+  // there is nothing to remember between moves
+  public void startGame(MinesweeperGame game) {
+  }
+
+  // uncover the first hidden, unflagged cell at or after a random cell,
+  // wrapping around to the start of the board
+  public void move(MinesweeperGame game, Random rand) {
+    PackedBoard board = game.board;
+    int start = rand.nextInt(board.size());
+    int index = board.hidden.nextSetBit(start);
+    while (index >= 0 && board.isFlagged(index)) {
+      index = board.hidden.nextSetBit(index + 1);
+    }
+    if (index < 0) {
+      index = board.hidden.nextSetBit(0);
+      while (index >= 0 && board.isFlagged(index)) {
+        index = board.hidden.nextSetBit(index + 1);
+      }
+    }
+    if (index >= 0) {
+      game.reveal(board.colOf(index), board.rowOf(index));
+    }
+  }
+}
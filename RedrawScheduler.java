@@ -0,0 +1,129 @@
+import tester.*;
+import java.util.function.LongSupplier;
+
+// decides when a Board draws its next frame, and keeps the game clock.
+// moves change the game right away, but once frames are paced the frames
+// showing them are drawn at most once every 'frameNanos', so a burst of
+// moves between two ticks is drawn in one frame. the game clock reads a
+// monotonic clock instead of counting ticks, so slow frames don't slow it
+class RedrawScheduler {
+  static final long NANOS_PER_SECOND = 1000000000L;
+
+  LongSupplier clock;
+  // the shortest time between frames that aren't asked for by a tick, or 0
+  // to draw a frame every time one is asked for
+  long frameNanos;
+  // when the last frame was drawn, and whether any has been
+  long lastFrame;
+  boolean drewFrame;
+  // the next frame is drawn however soon it is asked for
+  boolean frameRequested;
+  // the number of times the last frame was shown again instead of drawing
+  // the moves made since
+  int framesCoalesced;
+  // the clock reading when the game clock read 0
+  long clockStart;
+
+  // construct a scheduler that reads the given clock, in nanoseconds, and
+  // draws every frame it is asked for
+  RedrawScheduler(LongSupplier clock) {
+    this.clock = clock;
+    this.frameNanos = 0;
+    this.drewFrame = false;
+    this.frameRequested = false;
+    this.framesCoalesced = 0;
+    startClock(0);
+  }
+
+  // construct a scheduler that reads the system's monotonic clock
+  RedrawScheduler() {
+    this(System::nanoTime);
+  }
+
+  // start the game clock from the given number of seconds
+  void startClock(int seconds) {
+    this.clockStart = this.clock.getAsLong() - seconds * NANOS_PER_SECOND;
+  }
+
+  // the whole seconds on the game clock
+  int clockSeconds() {
+    return (int) ((this.clock.getAsLong() - this.clockStart) / NANOS_PER_SECOND);
+  }
+
+  // have the next frame drawn however soon it is asked for. ticks call this,
+  // so moves held back from a frame are drawn by the next tick at the latest
+  void requestFrame() {
+    this.frameRequested = true;
+  }
+
+  // should the frame being asked for be drawn, rather than the last frame
+  // shown again?
+  boolean frameDue() {
+    if (!this.drewFrame || this.frameRequested || this.frameNanos == 0
+        || this.clock.getAsLong() - this.lastFrame >= this.frameNanos) {
+      return true;
+    }
+    this.framesCoalesced += 1;
+    return false;
+  }
+
+  // note that a frame was just drawn
+  void frameDrawn() {
+    this.lastFrame = this.clock.getAsLong();
+    this.drewFrame = true;
+    this.frameRequested = false;
+  }
+}
+
+// examples for redraw schedulers
+class ExamplesRedrawScheduler {
+  long now;
+  RedrawScheduler scheduler;
+
+  // initialize variables
+  void init() {
+    this.now = 0;
+    this.scheduler = new RedrawScheduler(() -> this.now);
+  }
+
+  // test the game clock
+  void testClock(Tester t) {
+    init();
+
+    this.now = 999999999L;
+    t.checkExpect(this.scheduler.clockSeconds(), 0);
+    this.now = 2500000000L;
+    t.checkExpect(this.scheduler.clockSeconds(), 2);
+    // the clock counts whole seconds since it started
+
+    this.scheduler.startClock(12);
+    this.now += 1000000000L;
+    t.checkExpect(this.scheduler.clockSeconds(), 13);
+    // the clock can start from a saved time
+  }
+
+  // test pacing frames
+  void testFrameDue(Tester t) {
+    init();
+
+    t.checkExpect(this.scheduler.frameDue(), true);
+    this.scheduler.frameDrawn();
+    t.checkExpect(this.scheduler.frameDue(), true);
+    // frames aren't paced until there is a time between them
+
+    this.scheduler.frameNanos = 50000000L;
+    this.now = 10000000L;
+    t.checkExpect(this.scheduler.frameDue(), false);
+    t.checkExpect(this.scheduler.frameDue(), false);
+    t.checkExpect(this.scheduler.framesCoalesced, 2);
+    // frames asked for soon after the last one are held back
+
+    this.scheduler.requestFrame();
+    t.checkExpect(this.scheduler.frameDue(), true);
+    this.scheduler.frameDrawn();
+    t.checkExpect(this.scheduler.frameDue(), false);
+    this.now += 50000000L;
+    t.checkExpect(this.scheduler.frameDue(), true);
+    // a tick or enough time passing lets the next frame be drawn
+  }
+}
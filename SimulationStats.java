@@ -0,0 +1,106 @@
+// totals over a batch of simulated games. everything except the timings only
+// depends on which seeds were played, not on the order they were played in
+class SimulationStats {
+  long games;
+  long wins;
+  long losses;
+  long clicks;
+  long cascades;
+  long cascadeCells;
+  // cascadeSizes[k] counts the cascades that uncovered between 2^k and
+  // 2^(k + 1) - 1 cells
+  long[] cascadeSizes;
+  long totalNanos;
+  long maxNanos;
+
+  // construct the totals of no games
+  SimulationStats() {
+    this.cascadeSizes = new long[32];
+  }
+
+  // count a move that uncovered the given number of cells
+  void recordCascade(int size) {
+    this.cascades += 1;
+    this.cascadeCells += size;
+    this.cascadeSizes[31 - Integer.numberOfLeadingZeros(size)] += 1;
+  }
+
+  // count a finished game
+  void recordGame(MinesweeperGame game, int gameClicks, long nanos) {
+    this.games += 1;
+    if (game.isWon()) {
+      this.wins += 1;
+    }
+    else if (game.isLost()) {
+      this.losses += 1;
+    }
+    this.clicks += gameClicks;
+    this.totalNanos += nanos;
+    this.maxNanos = Math.max(this.maxNanos, nanos);
+  }
+
+  // add the totals of another batch to these
+  void merge(SimulationStats other) {
+    this.games += other.games;
+    this.wins += other.wins;
+    this.losses += other.losses;
+    this.clicks += other.clicks;
+    this.cascades += other.cascades;
+    this.cascadeCells += other.cascadeCells;
+    for (int k = 0; k < this.cascadeSizes.length; k++) {
+      this.cascadeSizes[k] += other.cascadeSizes[k];
+    }
+    this.totalNanos += other.totalNanos;
+    this.maxNanos = Math.max(this.maxNanos, other.maxNanos);
+  }
+
+  // a copy of these totals
+  SimulationStats copy() {
+    SimulationStats copy = new SimulationStats();
+    copy.merge(this);
+    return copy;
+  }
+
+  // did these games turn out the same as the other games, ignoring timings?
+  boolean sameOutcomes(SimulationStats other) {
+    if (this.games != other.games || this.wins != other.wins || this.losses != other.losses
+        || this.clicks != other.clicks || this.cascades != other.cascades
+        || this.cascadeCells != other.cascadeCells) {
+      return false;
+    }
+    for (int k = 0; k < this.cascadeSizes.length; k++) {
+      if (this.cascadeSizes[k] != other.cascadeSizes[k]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  // the fraction of games won
+  double winRate() {
+    return (double) this.wins / Math.max(1, this.games);
+  }
+
+  // the average number of moves per game
+  double clicksPerGame() {
+    return (double) this.clicks / Math.max(1, this.games);
+  }
+
+  // the average number of cells uncovered by a move that uncovered any
+  double cellsPerCascade() {
+    return (double) this.cascadeCells / Math.max(1, this.cascades);
+  }
+
+  // the average time taken by a game in microseconds
+  double microsPerGame() {
+    return this.totalNanos / 1000.0 / Math.max(1, this.games);
+  }
+
+  // a one line summary of these totals
+  public String toString() {
+    return String.format(
+        "games=%d wins=%d (%.2f%%) losses=%d clicks/game=%.2f cells/cascade=%.2f us/game=%.2f",
+        this.games, this.wins, 100 * winRate(), this.losses, clicksPerGame(), cellsPerCascade(),
+        microsPerGame());
+  }
+}
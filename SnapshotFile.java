@@ -0,0 +1,118 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+
+// a save file that is kept open and brought up to date with a board. the
+// board marks the pages of its planes that each move changes, so saving it
+// again rewrites only those pages, without reading the rest of the board. a
+// board saved here for the first time, or last saved to another file, is
+// compared with the file page by page instead
+class SnapshotFile implements Closeable {
+  FileChannel channel;
+  // the file mapped for writing, or null until the first save
+  MappedByteBuffer map;
+  // the pages rewritten by the last save, counting the header page
+  int pagesWritten;
+
+  // open the save file at the given path, creating it if needed. an existing
+  // uncompressed save of the same size is brought up to date page by page
+  SnapshotFile(Path path) throws IOException {
+    this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+        StandardOpenOption.WRITE);
+  }
+
+  // save the given board
+  void save(Board board) throws IOException {
+    PackedBoard packed = board.game.board;
+    long planeBytes = BoardSnapshot.planeBytes(packed.size());
+    long fileBytes = BoardSnapshot.fileBytes(planeBytes);
+    boolean onlyChanges = packed.savedTo == this;
+    if (this.map == null || this.map.capacity() != fileBytes) {
+      onlyChanges = false;
+      if (this.channel.size() != fileBytes) {
+        // start over with a file of the right length, all zeros
+        this.map = null;
+        this.channel.truncate(0);
+        this.channel.write(ByteBuffer.allocate(1), fileBytes - 1);
+      }
+      this.map = this.channel.map(FileChannel.MapMode.READ_WRITE, 0, fileBytes);
+      this.map.order(ByteOrder.LITTLE_ENDIAN);
+    }
+    this.pagesWritten = 0;
+
+    ByteBuffer header = ByteBuffer.allocate(BoardSnapshot.HEADER_BYTES);
+    BoardSnapshot.writeHeader(header, board, 0, 0);
+    if (!header.equals(this.map.slice(0, BoardSnapshot.HEADER_BYTES))) {
+      this.map.put(0, header, 0, BoardSnapshot.HEADER_BYTES);
+      this.pagesWritten += 1;
+    }
+    BitSet[] planes = new BitSet[] { packed.mines, packed.hidden, packed.flags };
+    for (int plane = 0; plane < planes.length; plane++) {
+      long offset = BoardSnapshot.planeOffset(plane, planeBytes);
+      if (onlyChanges) {
+        savePages(planes[plane], packed.dirtyPages[plane], offset);
+      }
+      else {
+        savePlane(planes[plane].toLongArray(), offset, planeBytes);
+      }
+    }
+    packed.markSaved(this);
+    this.map.force();
+  }
+
+  // rewrite the given pages of one plane from its bits
+  void savePages(BitSet bits, BitSet pages, long offset) {
+    int wordsPerPage = BoardSnapshot.PAGE_BYTES / 8;
+    for (int page = pages.nextSetBit(0); page >= 0; page = pages.nextSetBit(page + 1)) {
+      int firstCell = page * PackedBoard.PAGE_CELLS;
+      long[] words = bits.get(firstCell,
+          (int) Math.min((long) firstCell + PackedBoard.PAGE_CELLS, Integer.MAX_VALUE))
+          .toLongArray();
+      int pageStart = (int) offset + page * BoardSnapshot.PAGE_BYTES;
+      for (int i = 0; i < wordsPerPage; i++) {
+        this.map.putLong(pageStart + 8 * i, word(words, i));
+      }
+      this.pagesWritten += 1;
+    }
+  }
+
+  // rewrite the pages of one plane that differ from the given words. the
+  // words past the end of the array are 0
+  void savePlane(long[] words, long offset, long planeBytes) {
+    int wordsPerPage = BoardSnapshot.PAGE_BYTES / 8;
+    long pages = BoardSnapshot.pageAlign(planeBytes) / BoardSnapshot.PAGE_BYTES;
+    for (int page = 0; page < pages; page++) {
+      int pageStart = (int) offset + page * BoardSnapshot.PAGE_BYTES;
+      boolean same = true;
+      for (int i = 0; i < wordsPerPage && same; i++) {
+        same = this.map.getLong(pageStart + 8 * i) == word(words, page * wordsPerPage + i);
+      }
+      if (!same) {
+        for (int i = 0; i < wordsPerPage; i++) {
+          this.map.putLong(pageStart + 8 * i, word(words, page * wordsPerPage + i));
+        }
+        this.pagesWritten += 1;
+      }
+    }
+  }
+
+  // the given word of a plane, 0 past the end of the array
+  static long word(long[] words, int index) {
+    if (index < words.length) {
+      return words[index];
+    }
+    return 0;
+  }
+
+  // close the file
+  public void close() throws IOException {
+    this.map = null;
+    this.channel.close();
+  }
+}
@@ -0,0 +1,48 @@
+import java.util.Random;
+
+// a strategy that uncovers cells the solver has proven safe, and otherwise
+// uncovers a random cell that isn't known to be a mine
+class SolverStrategy implements GameStrategy {
+  ThreadLocal<MineSolver> solvers;
+
+  // construct the strategy
+  SolverStrategy() {
+    this.solvers = new ThreadLocal<>();
+  }
+
+  // start solving a new game on this thread
+  public void startGame(MinesweeperGame game) {
+    MineSolver solver = this.solvers.get();
+    if (solver == null) {
+      this.solvers.set(new MineSolver(game));
+    }
+    else {
+      solver.reset(game);
+    }
+  }
+
+  // uncover a safe cell if one is known, or else guess
+  public void move(MinesweeperGame game, Random rand) {
+    MineSolver solver = this.solvers.get();
+    solver.solve();
+    int index = solver.nextSafe();
+    if (index < 0) {
+      index = guess(solver, rand);
+    }
+    game.reveal(game.board.colOf(index), game.board.rowOf(index));
+    solver.update();
+  }
+
+  // a random hidden cell that isn't known to be a mine
+  int guess(MineSolver solver, Random rand) {
+    PackedBoard board = solver.board;
+    int start = rand.nextInt(board.size());
+    for (int i = 0; i < board.size(); i++) {
+      int index = (start + i) % board.size();
+      if (board.isHidden(index) && !solver.isKnownMine(index)) {
+        return index;
+      }
+    }
+    return start;
+  }
+}